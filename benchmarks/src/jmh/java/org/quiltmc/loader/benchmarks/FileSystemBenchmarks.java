@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quiltmc.loader.impl.filesystem.QuiltClassPath;
+import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
+import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
+
+/** Benchmarks for {@link QuiltMemoryFileSystem.ReadOnly}, {@link QuiltJoinedFileSystem} and {@link QuiltClassPath}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FileSystemBenchmarks {
+
+	/** The number of files in each folder (and so each file system). */
+	@Param({ "100", "2000" })
+	public int files;
+
+	/** The number of file systems joined together by the joined file system (and added to the class path). */
+	private static final int JOINED_COUNT = 4;
+
+	private Path tempDir;
+	private final List<Path> folders = new ArrayList<>();
+	private String[] names;
+
+	private final List<QuiltMemoryFileSystem.ReadOnly> memoryFileSystems = new ArrayList<>();
+	private QuiltJoinedFileSystem joined;
+	private QuiltClassPath classPath;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("quilt-loader-benchmark");
+		List<String> allNames = new ArrayList<>();
+
+		for (int i = 0; i < JOINED_COUNT; i++) {
+			Path folder = tempDir.resolve("mod" + i);
+			folders.add(folder);
+			int packages = Math.max(1, files / 50);
+			allNames.addAll(SyntheticFiles.create(folder, "mod" + i, packages, files / packages, 1024));
+		}
+
+		names = allNames.toArray(new String[0]);
+
+		List<Path> roots = new ArrayList<>();
+		classPath = new QuiltClassPath();
+
+		for (Path folder : folders) {
+			QuiltMemoryFileSystem.ReadOnly fs = new QuiltMemoryFileSystem.ReadOnly("benchmark", true, folder);
+			memoryFileSystems.add(fs);
+			roots.add(fs.getRoot());
+			classPath.addRoot(fs.getRoot());
+		}
+
+		joined = new QuiltJoinedFileSystem("benchmark", roots);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		joined.close();
+
+		for (QuiltMemoryFileSystem fs : memoryFileSystems) {
+			fs.close();
+		}
+
+		SyntheticFiles.delete(tempDir);
+	}
+
+	private String nextName() {
+		String name = names[index];
+		index = (index + 1) % names.length;
+		return name;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int memoryFileSystemConstruction() throws IOException {
+		try (QuiltMemoryFileSystem.ReadOnly fs = new QuiltMemoryFileSystem.ReadOnly("benchmark", true, folders.get(0))) {
+			return fs.getUncompressedSize();
+		}
+	}
+
+	@Benchmark
+	public byte[] memoryFileSystemRead() throws IOException {
+		String name = nextName();
+		int fs = Integer.parseInt(name.substring(3, name.indexOf('/')));
+		return Files.readAllBytes(memoryFileSystems.get(fs).getRoot().resolve(name));
+	}
+
+	@Benchmark
+	public Path classPathFindHit() {
+		return classPath.findResource(nextName());
+	}
+
+	@Benchmark
+	public Path classPathFindMiss() {
+		return classPath.findResource("missing/" + nextName());
+	}
+
+	@Benchmark
+	public boolean joinedFileSystemExists() {
+		return Files.exists(joined.getRoot().resolve(nextName()));
+	}
+
+	@Benchmark
+	public boolean joinedFileSystemMissing() {
+		return Files.exists(joined.getRoot().resolve("missing/" + nextName()));
+	}
+
+	@Benchmark
+	public byte[] joinedFileSystemRead() throws IOException {
+		return Files.readAllBytes(joined.getRoot().resolve(nextName()));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quiltmc.loader.api.VersionFormatException;
+import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
+import org.quiltmc.loader.impl.metadata.qmj.ModMetadataReader;
+import org.quiltmc.loader.impl.metadata.qmj.SemanticVersionImpl;
+
+/** Benchmarks for {@link ModMetadataReader} and {@link SemanticVersionImpl}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetadataBenchmarks {
+
+	private static final String[] VERSIONS = {
+		"1.0.0", "1.0.1", "1.2.0-beta.1", "1.2.0-beta.2", "1.2.0-rc.1", "1.2.0", "1.19.2", "2.4.1+mc1.19.2",
+		"0.18.1-beta.17", "10.0.0-alpha.3+build.7"
+	};
+
+	private byte[] modJson;
+	private SemanticVersionImpl[] parsed;
+
+	@Setup
+	public void setup() throws IOException, VersionFormatException {
+		try (InputStream is = MetadataBenchmarks.class.getResourceAsStream("/benchmark.quilt.mod.json")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				out.write(buffer, 0, len);
+			}
+
+			modJson = out.toByteArray();
+		}
+
+		parsed = new SemanticVersionImpl[VERSIONS.length];
+
+		for (int i = 0; i < VERSIONS.length; i++) {
+			parsed[i] = SemanticVersionImpl.of(VERSIONS[i]);
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public InternalModMetadata readModMetadata() throws IOException {
+		return ModMetadataReader.read(new ByteArrayInputStream(modJson));
+	}
+
+	@Benchmark
+	public int parseVersions() throws VersionFormatException {
+		int total = 0;
+
+		for (String version : VERSIONS) {
+			total += SemanticVersionImpl.of(version).versionComponentCount();
+		}
+
+		return total;
+	}
+
+	@Benchmark
+	public int compareVersions() {
+		int total = 0;
+
+		for (SemanticVersionImpl a : parsed) {
+			for (SemanticVersionImpl b : parsed) {
+				total += a.compareTo(b);
+			}
+		}
+
+		return total;
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.api.plugin.solver.Rule;
+import org.quiltmc.loader.api.plugin.solver.RuleDefiner;
+import org.quiltmc.loader.impl.discovery.ModSolvingError;
+import org.quiltmc.loader.impl.solver.Sat4jWrapper;
+
+/** Solves (and optimises) synthetic rule sets with {@link Sat4jWrapper}. Each "mod" has a few differently weighted
+ * versions (at most one of which can be chosen) and depends on a few earlier mods. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SolverBenchmark {
+
+	@Param({ "100", "1000" })
+	public int mods;
+
+	@Param({ "3" })
+	public int versionsPerMod;
+
+	@Param({ "3" })
+	public int dependenciesPerMod;
+
+	private List<Option> options;
+	private List<Rule> rules;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(mods * 31L + versionsPerMod);
+		options = new ArrayList<>();
+		rules = new ArrayList<>();
+		List<List<Option>> byMod = new ArrayList<>();
+
+		for (int mod = 0; mod < mods; mod++) {
+			List<Option> versions = new ArrayList<>();
+
+			for (int version = 0; version < versionsPerMod; version++) {
+				Option option = new Option("mod" + mod, version);
+				versions.add(option);
+				options.add(option);
+			}
+
+			byMod.add(versions);
+			rules.add(new AtMostOneRule("mod" + mod, versions));
+
+			if (mod % 10 == 0) {
+				// Some mods are "root" mods, like the ones directly in the mods folder
+				rules.add(new MandatoryRule("mod" + mod, versions));
+			}
+
+			for (int dep = 0; dep < dependenciesPerMod && mod > 0; dep++) {
+				List<Option> target = byMod.get(random.nextInt(mod));
+				// Depend on any version except the oldest
+				List<Option> allowed = target.subList(Math.min(1, target.size() - 1), target.size());
+
+				for (Option from : versions) {
+					rules.add(new DependencyRule(from, allowed));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public List<LoadOption> solve() throws TimeoutException, ModSolvingError {
+		Sat4jWrapper solver = new Sat4jWrapper();
+
+		for (Option option : options) {
+			solver.addOption(option, option.version);
+		}
+
+		for (Rule rule : rules) {
+			solver.addRule(rule);
+		}
+
+		if (!solver.hasSolution()) {
+			throw new IllegalStateException("The synthetic rule set should always be solvable!");
+		}
+
+		return solver.getSolution();
+	}
+
+	static final class Option extends LoadOption {
+		final String modId;
+		final int version;
+
+		Option(String modId, int version) {
+			this.modId = modId;
+			this.version = version;
+		}
+
+		@Override
+		public String toString() {
+			return modId + " v" + version;
+		}
+	}
+
+	static abstract class SimpleRule extends Rule {
+		@Override
+		public boolean onLoadOptionAdded(LoadOption option) {
+			return false;
+		}
+
+		@Override
+		public boolean onLoadOptionRemoved(LoadOption option) {
+			return false;
+		}
+
+		@Override
+		public Collection<? extends LoadOption> getNodesFrom() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Collection<? extends LoadOption> getNodesTo() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void fallbackErrorDescription(StringBuilder errors) {
+			errors.append(this);
+		}
+	}
+
+	static final class AtMostOneRule extends SimpleRule {
+		final String modId;
+		final LoadOption[] versions;
+
+		AtMostOneRule(String modId, List<Option> versions) {
+			this.modId = modId;
+			this.versions = versions.toArray(new LoadOption[0]);
+		}
+
+		@Override
+		public void define(RuleDefiner definer) {
+			definer.atMost(1, versions);
+		}
+
+		@Override
+		public String toString() {
+			return "at most one version of " + modId;
+		}
+	}
+
+	static final class MandatoryRule extends SimpleRule {
+		final String modId;
+		final LoadOption[] versions;
+
+		MandatoryRule(String modId, List<Option> versions) {
+			this.modId = modId;
+			this.versions = versions.toArray(new LoadOption[0]);
+		}
+
+		@Override
+		public void define(RuleDefiner definer) {
+			definer.atLeastOneOf(versions);
+		}
+
+		@Override
+		public String toString() {
+			return modId + " is mandatory";
+		}
+	}
+
+	static final class DependencyRule extends SimpleRule {
+		final Option from;
+		final List<Option> to;
+
+		DependencyRule(Option from, List<Option> to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void define(RuleDefiner definer) {
+			LoadOption[] options = new LoadOption[to.size() + 1];
+			options[0] = definer.negate(from);
+
+			for (int i = 0; i < to.size(); i++) {
+				options[i + 1] = to.get(i);
+			}
+
+			definer.atLeastOneOf(options);
+		}
+
+		@Override
+		public String toString() {
+			return from + " depends on " + to;
+		}
+	}
+}
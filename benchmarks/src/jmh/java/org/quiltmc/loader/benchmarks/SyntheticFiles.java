@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Creates folders full of fake class files, laid out like a mod jar. */
+final class SyntheticFiles {
+
+	private SyntheticFiles() {}
+
+	/** @return The relative path of every file created, in a fixed order. */
+	static List<String> create(Path root, String prefix, int packages, int filesPerPackage, int fileSize) throws IOException {
+		Random random = new Random(packages * 31L + filesPerPackage);
+		List<String> names = new ArrayList<>();
+		byte[] data = new byte[fileSize];
+
+		for (int p = 0; p < packages; p++) {
+			String pkg = prefix + "/pkg" + p;
+			Files.createDirectories(root.resolve(pkg));
+
+			for (int f = 0; f < filesPerPackage; f++) {
+				String name = pkg + "/Class" + f + ".class";
+				random.nextBytes(data);
+				Files.write(root.resolve(name), data);
+				names.add(name);
+			}
+		}
+
+		return names;
+	}
+
+	static void delete(Path root) throws IOException {
+		if (root == null || !Files.exists(root)) {
+			return;
+		}
+
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+}
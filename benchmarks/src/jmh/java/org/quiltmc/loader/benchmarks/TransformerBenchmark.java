@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quiltmc.loader.impl.transformer.QuiltTransformer;
+
+import net.fabricmc.api.EnvType;
+
+/** Runs {@link QuiltTransformer#transform(boolean, EnvType, String, byte[])} over a fixed corpus: every class in guava
+ * 31.1, which the benchmarks build pins. (The loader's own classes would change with every version, so the results
+ * couldn't be compared between them). None of them are minecraft classes, so this measures environment stripping,
+ * which is what every mod class goes through. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransformerBenchmark {
+
+	/** Any class in the corpus jar. */
+	private static final String CORPUS_CLASS = "com.google.common.collect.ImmutableList";
+
+	@Param({ "CLIENT", "SERVER" })
+	public EnvType envType;
+
+	private String[] names;
+	private byte[][] classes;
+
+	@Setup
+	public void setup() throws IOException, URISyntaxException, ClassNotFoundException {
+		Class<?> corpusClass = Class.forName(CORPUS_CLASS, false, TransformerBenchmark.class.getClassLoader());
+		Path source = Paths.get(corpusClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+		List<String> nameList = new ArrayList<>();
+		List<byte[]> classList = new ArrayList<>();
+
+		try (ZipFile zip = new ZipFile(source.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+
+				if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+					nameList.add(toClassName(entry.getName()));
+
+					try (InputStream is = zip.getInputStream(entry)) {
+						classList.add(readAll(is));
+					}
+				}
+			}
+		}
+
+		names = nameList.toArray(new String[0]);
+		classes = classList.toArray(new byte[0][]);
+	}
+
+	private static String toClassName(String path) {
+		return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+	}
+
+	private static byte[] readAll(InputStream is) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int len;
+
+		while ((len = is.read(buffer)) > 0) {
+			out.write(buffer, 0, len);
+		}
+
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public void transformCorpus(Blackhole blackhole) {
+		for (int i = 0; i < classes.length; i++) {
+			try {
+				blackhole.consume(QuiltTransformer.transform(false, envType, names[i], classes[i]));
+			} catch (RuntimeException e) {
+				// Classes which are stripped entirely in this environment
+				blackhole.consume(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.game.minecraft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.game.minecraft.LibClassifier.Lib;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+import net.fabricmc.api.EnvType;
+
+/** Stores the results of {@link MinecraftGameProvider#locateGame}: the {@link LibClassifier classified libraries}
+ * (after running the server {@link BundlerProcessor bundler}, if there was one) and the {@link McVersion game version}.
+ * <p>
+ * The cache is keyed by the stamp (path, size and last modified time) of every class path entry, since hashing the
+ * contents of every library would take longer than classifying them. Files which weren't on the class path, like the
+ * libraries extracted by the bundler, are stamped too, and the cache is only used if they are all unchanged - so the
+ * bundler is run again if any of its outputs are missing or modified. Nothing is cached if the class path contains a
+ * folder, since a folder's stamp doesn't change when its contents do. */
+final class GameDiscoveryCache {
+
+	static final String FILE_NAME = "game-discovery.bin";
+
+	private static final int MAGIC = 0x51474443; // "QGDC"
+	private static final int VERSION = 1;
+
+	private final Path file;
+	private final List<Path> lookupPaths;
+	private final String key;
+
+	private GameDiscoveryCache(Path file, List<Path> lookupPaths, String key) {
+		this.file = file;
+		this.lookupPaths = lookupPaths;
+		this.key = key;
+	}
+
+	/** @param versionName The version passed on the command line (or by system property), or null.
+	 * @return The cache, or null if the given class path can't be cached. */
+	static GameDiscoveryCache create(Path file, List<Path> lookupPaths, EnvType env, String versionName) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(("loader=" + QuiltLoaderImpl.VERSION + "\nversion=" + VERSION + "\nenv=" + env + "\ngame_version=" + versionName + "\n").getBytes(StandardCharsets.UTF_8));
+
+			for (Path path : lookupPaths) {
+				String stamp = stamp(path);
+
+				if (stamp == null) {
+					return null;
+				}
+
+				digest.update(stamp.getBytes(StandardCharsets.UTF_8));
+			}
+
+			return new GameDiscoveryCache(file, lookupPaths, HashUtil.hashToHex(digest.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** @return The stamp of the given file, or null if it's a folder or doesn't exist. */
+	private static String stamp(Path path) throws IOException {
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return path.toAbsolutePath() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis() + "\n";
+	}
+
+	static final class Result {
+		final LibClassifier classifier;
+		final McVersion version;
+
+		Result(LibClassifier classifier, McVersion version) {
+			this.classifier = classifier;
+			this.version = version;
+		}
+	}
+
+	/** @return The cached result, or null if there isn't one for the current class path (or it couldn't be read). */
+	Result read() {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try (InputStream stream = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(stream);
+
+			if (in.readInt() != MAGIC || !key.equals(in.readUTF())) {
+				return null;
+			}
+
+			// Every file that wasn't part of the key must be unchanged
+			for (int i = in.readInt(); i > 0; i--) {
+				Path path = Paths.get(in.readUTF());
+
+				if (!in.readUTF().equals(stamp(path))) {
+					Log.debug(LogCategory.GAME_PROVIDER, "Not using the game discovery cache since %s has changed", path);
+					return null;
+				}
+			}
+
+			LibClassifier classifier = new LibClassifier();
+
+			for (int i = in.readInt(); i > 0; i--) {
+				Lib lib = Lib.valueOf(in.readUTF());
+				Path origin = Paths.get(in.readUTF());
+				classifier.restoreMatch(lib, origin, in.readUTF());
+			}
+
+			for (int i = in.readInt(); i > 0; i--) {
+				classifier.restoreUnmatched(Paths.get(in.readUTF()));
+			}
+
+			String id = readNullable(in);
+			String name = readNullable(in);
+			String raw = readNullable(in);
+			String normalized = readNullable(in);
+			int classVersion = in.readInt();
+			McVersion version = McVersion.restore(id, name, raw, normalized, classVersion < 0 ? OptionalInt.empty() : OptionalInt.of(classVersion));
+
+			return new Result(classifier, version);
+		} catch (IOException | IllegalArgumentException e) {
+			Log.warn(LogCategory.GAME_PROVIDER, "Failed to read the game discovery cache " + file, e);
+			return null;
+		}
+	}
+
+	void write(LibClassifier classifier, McVersion version) {
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(baos);
+			out.writeInt(MAGIC);
+			out.writeUTF(key);
+
+			Set<Path> extraFiles = new HashSet<>(classifier.getMatches().values());
+			extraFiles.addAll(classifier.getUnmatchedOrigins());
+			extraFiles.removeAll(lookupPaths);
+			List<String[]> extraStamps = new ArrayList<>();
+
+			for (Path path : extraFiles) {
+				String stamp = stamp(path);
+
+				if (stamp == null) {
+					// Then we can't tell if it's changed
+					return;
+				}
+
+				extraStamps.add(new String[] { path.toString(), stamp });
+			}
+
+			out.writeInt(extraStamps.size());
+
+			for (String[] stamp : extraStamps) {
+				out.writeUTF(stamp[0]);
+				out.writeUTF(stamp[1]);
+			}
+
+			Map<Lib, Path> matches = classifier.getMatches();
+			out.writeInt(matches.size());
+
+			for (Map.Entry<Lib, Path> entry : matches.entrySet()) {
+				out.writeUTF(entry.getKey().name());
+				out.writeUTF(entry.getValue().toString());
+				out.writeUTF(classifier.getLocalPath(entry.getKey()));
+			}
+
+			List<Path> unmatched = classifier.getUnmatchedOrigins();
+			out.writeInt(unmatched.size());
+
+			for (Path path : unmatched) {
+				out.writeUTF(path.toString());
+			}
+
+			writeNullable(out, version.getId());
+			writeNullable(out, version.getName());
+			writeNullable(out, version.getRaw());
+			writeNullable(out, version.getNormalized());
+			out.writeInt(version.getClassVersion().orElse(-1));
+			out.flush();
+
+			Files.createDirectories(file.getParent());
+			Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+			Files.write(tmp, baos.toByteArray());
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.GAME_PROVIDER, "Failed to write the game discovery cache " + file, e);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+}
@@ -21,10 +21,12 @@ import net.fabricmc.api.ModInitializer;
 
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.entrypoint.EntrypointUtils;
+import org.quiltmc.loader.impl.metrics.EntrypointMetrics;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
 import java.io.File;
+import java.nio.file.Path;
 
 public final class Hooks {
 	public static final String INTERNAL_NAME = Hooks.class.getName().replace('.', '/');
@@ -51,6 +53,7 @@ public final class Hooks {
 		QuiltLoaderImpl.INSTANCE.prepareModInit(runDir.toPath(), gameInstance);
 		EntrypointUtils.invoke("main", ModInitializer.class, it -> it.onInitialize());
 		EntrypointUtils.invoke("client", ClientModInitializer.class, it -> it.onInitializeClient());
+		writeEntrypointMetrics();
 	}
 
 	public static void startServer(File runDir, Object gameInstance) {
@@ -61,6 +64,12 @@ public final class Hooks {
 		QuiltLoaderImpl.INSTANCE.prepareModInit(runDir.toPath(), gameInstance);
 		EntrypointUtils.invoke("main", ModInitializer.class, it -> it.onInitialize());
 		EntrypointUtils.invoke("server", DedicatedServerModInitializer.class, it -> it.onInitializeServer());
+		writeEntrypointMetrics();
+	}
+
+	private static void writeEntrypointMetrics() {
+		Path cacheDir = QuiltLoaderImpl.INSTANCE.getGameDir().resolve(QuiltLoaderImpl.CACHE_DIR_NAME);
+		EntrypointMetrics.write(cacheDir.resolve(EntrypointMetrics.FILE_NAME));
 	}
 
 	public static void setGameInstance(Object gameInstance) {
@@ -88,6 +88,21 @@ final class LibClassifier {
 		if (!matched) unmatchedOrigins.add(path);
 	}
 
+	/** Adds a match that was found previously. Used by {@link GameDiscoveryCache}. */
+	void restoreMatch(Lib lib, Path origin, String localPath) {
+		matches.put(lib, origin);
+		localPaths.put(lib, localPath);
+	}
+
+	/** Adds an unmatched origin that was found previously. Used by {@link GameDiscoveryCache}. */
+	void restoreUnmatched(Path origin) {
+		unmatchedOrigins.add(origin);
+	}
+
+	Map<Lib, Path> getMatches() {
+		return matches;
+	}
+
 	public boolean is(Path path, Lib... libs) {
 		for (Lib lib : libs) {
 			if (path.equals(matches.get(lib))) return true;
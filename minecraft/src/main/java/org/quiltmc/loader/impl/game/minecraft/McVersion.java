@@ -42,14 +42,20 @@ public final class McVersion {
 	private final String normalized;
 	private final OptionalInt classVersion;
 
-	private McVersion(String id, String name, String raw, String release, OptionalInt classVersion) {
+	private McVersion(String id, String name, String raw, String normalized, OptionalInt classVersion) {
 		this.id = id;
 		this.name = name;
 		this.raw = raw;
-		this.normalized = McVersionLookup.normalizeVersion(raw, release);
+		this.normalized = normalized;
 		this.classVersion = classVersion;
 	}
 
+	/** Recreates a version that was previously looked up, without normalizing it again. Used by
+	 * {@link GameDiscoveryCache}. */
+	static McVersion restore(String id, String name, String raw, String normalized, OptionalInt classVersion) {
+		return new McVersion(id, name, raw, normalized, classVersion);
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -124,7 +130,7 @@ public final class McVersion {
 		}
 
 		public McVersion build() {
-			return new McVersion(this.id, this.name, this.version, this.release, this.classVersion);
+			return new McVersion(this.id, this.name, this.version, McVersionLookup.normalizeVersion(this.version, this.release), this.classVersion);
 		}
 	}
 }
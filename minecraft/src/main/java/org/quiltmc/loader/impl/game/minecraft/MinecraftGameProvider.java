@@ -54,6 +54,7 @@ import org.quiltmc.loader.impl.util.ExceptionUtil;
 import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
 import org.quiltmc.loader.impl.util.log.LogHandler;
 
 import net.fabricmc.loader.api.ObjectShare;
@@ -61,6 +62,8 @@ import net.fabricmc.loader.api.ObjectShare;
 import net.fabricmc.api.EnvType;
 
 public class MinecraftGameProvider implements GameProvider {
+	private static final String GAME_PATCHES_DIR_NAME = "game-patches"; // relative to cache dir
+
 	private static final String[] ALLOWED_EARLY_CLASS_PREFIXES = { "org.apache.logging.log4j.", "com.mojang.util." };
 
 	private static final Set<String> SENSITIVE_ARGS = new HashSet<>(Arrays.asList(
@@ -207,6 +210,11 @@ public class MinecraftGameProvider implements GameProvider {
 		this.arguments = new Arguments();
 		arguments.parse(args);
 
+		String version;
+		GameDiscoveryCache cache = null;
+		GameDiscoveryCache.Result cached;
+		LibClassifier classifier;
+
 		try {
 			String gameJarProperty = System.getProperty(SystemProperties.GAME_JAR_PATH);
 			List<Path> lookupPaths;
@@ -222,11 +230,26 @@ public class MinecraftGameProvider implements GameProvider {
 				lookupPaths = launcher.getClassPath();
 			}
 
-			LibClassifier classifier = new LibClassifier();
-			classifier.process(lookupPaths, envType);
+			version = arguments.remove(Arguments.GAME_VERSION);
+			if (version == null) version = System.getProperty(SystemProperties.GAME_VERSION);
+
+			if (!Boolean.getBoolean(SystemProperties.DISABLE_GAME_DISCOVERY_CACHE)) {
+				Path cacheFile = getLaunchDirectory().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(GameDiscoveryCache.FILE_NAME);
+				cache = GameDiscoveryCache.create(cacheFile, lookupPaths, envType, version);
+			}
+
+			cached = cache != null ? cache.read() : null;
+
+			if (cached != null) {
+				Log.debug(LogCategory.GAME_PROVIDER, "Using the cached game discovery results");
+				classifier = cached.classifier;
+			} else {
+				classifier = new LibClassifier();
+				classifier.process(lookupPaths, envType);
 
-			if (classifier.has(Lib.MC_BUNDLER)) {
-				BundlerProcessor.process(classifier);
+				if (classifier.has(Lib.MC_BUNDLER)) {
+					BundlerProcessor.process(classifier);
+				}
 			}
 
 			Lib gameLib = envType == EnvType.CLIENT ? Lib.MC_CLIENT : Lib.MC_SERVER;
@@ -272,9 +295,15 @@ public class MinecraftGameProvider implements GameProvider {
 		share.put("fabric-loader:inputGameJar", gameJar);
 		if (realmsJar != null) share.put("fabric-loader:inputRealmsJar", realmsJar);
 
-		String version = arguments.remove(Arguments.GAME_VERSION);
-		if (version == null) version = System.getProperty(SystemProperties.GAME_VERSION);
-		versionData = McVersionLookup.getVersion(gameJar, entrypoint, version);
+		if (cached != null) {
+			versionData = cached.version;
+		} else {
+			versionData = McVersionLookup.getVersion(gameJar, entrypoint, version);
+
+			if (cache != null) {
+				cache.write(classifier, versionData);
+			}
+		}
 
 		processArgumentMap(arguments, envType);
 
@@ -356,7 +385,7 @@ public class MinecraftGameProvider implements GameProvider {
 				new EntrypointPatch(Version.of(versionData.getNormalized())),
 				new BrandingPatch());
 
-		transformer.locateEntrypoints(launcher, gameJar);
+		transformer.locateEntrypoints(launcher, gameJar, getLaunchDirectory().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(GAME_PATCHES_DIR_NAME));
 	}
 
 	private void setupLogHandler(QuiltLauncher launcher, boolean useTargetCl) {
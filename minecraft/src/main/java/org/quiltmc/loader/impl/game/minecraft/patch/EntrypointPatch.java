@@ -534,6 +534,24 @@ public class EntrypointPatch extends GamePatch {
 		}
 	}
 
+	@Override
+	public String getCacheKey() {
+		return super.getCacheKey() + " " + minecraftVersion.raw();
+	}
+
+	@Override
+	public void processCached(QuiltLauncher launcher) {
+		String entrypoint = launcher.getEntrypoint();
+
+		if (!entrypoint.startsWith("net.minecraft.") && !entrypoint.startsWith("com.mojang.")) {
+			return;
+		}
+
+		if (entrypoint.contains("Applet")) {
+			Hooks.appletMainClass = entrypoint;
+		}
+	}
+
 	private boolean hasSuperClass(String cls, String superCls, Function<String, ClassReader> classSource) {
 		if (cls.contains("$") || (!cls.startsWith("net/minecraft") && cls.contains("/"))) {
 			return false;
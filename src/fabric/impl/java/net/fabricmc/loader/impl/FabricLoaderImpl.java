@@ -76,11 +76,17 @@ public class FabricLoaderImpl extends FabricLoader {
 
 	@Override
 	public Optional<ModContainer> getModContainer(String id) {
-		return QuiltLoader.getModContainer(id).map(ModContainerImpl::new);
+		return QuiltLoader.getModContainer(id).map(ModContainerImpl::of);
 	}
 
 	@Override
 	public Collection<ModContainer> getAllMods() {
+		Collection<ModContainer> frozen = ModContainerImpl.getFrozenMods();
+
+		if (frozen != null) {
+			return frozen;
+		}
+
 		Collection<ModContainer> out = new ArrayList<>();
 		for (org.quiltmc.loader.api.ModContainer mc : QuiltLoader.getAllMods()) {
 			out.add(new ModContainerImpl(mc));
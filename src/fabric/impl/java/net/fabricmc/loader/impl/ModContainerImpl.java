@@ -24,11 +24,17 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.quiltmc.loader.api.ModContainer;
 import org.quiltmc.loader.api.QuiltLoader;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.metadata.qmj.ConvertibleModMetadata;
 
 import net.fabricmc.loader.api.metadata.ModMetadata;
@@ -38,12 +44,164 @@ import net.fabricmc.loader.metadata.LoaderModMetadata;
 
 @Deprecated
 public final class ModContainerImpl extends net.fabricmc.loader.ModContainer {
+
 	private final ModContainer quilt;
 
+	/** Only computed for frozen wrappers, otherwise these are null and computed on every call. */
+	private Optional<net.fabricmc.loader.api.ModContainer> containingMod;
+	private Collection<net.fabricmc.loader.api.ModContainer> containedMods;
+
 	public ModContainerImpl(ModContainer quilt) {
 		this.quilt = quilt;
 	}
 
+	/** The wrapper of every loaded mod, and the jar-in-jar graph between them, created by
+	 * {@link ModContainerImpl#freeze(Collection)}. Held by the {@link QuiltLoaderImpl} that froze them. */
+	public static final class FrozenMods {
+		private final Map<ModContainer, ModContainerImpl> wrappers;
+		/** Every value of {@link #wrappers}, in load order. */
+		private final Collection<net.fabricmc.loader.api.ModContainer> mods;
+
+		FrozenMods(Map<ModContainer, ModContainerImpl> wrappers, Collection<net.fabricmc.loader.api.ModContainer> mods) {
+			this.wrappers = wrappers;
+			this.mods = mods;
+		}
+
+		/** @return The wrapper for the given mod, or null if it wasn't loaded when these were frozen. */
+		ModContainerImpl get(ModContainer quilt) {
+			return wrappers.get(quilt);
+		}
+
+		Collection<net.fabricmc.loader.api.ModContainer> getMods() {
+			return mods;
+		}
+	}
+
+	/** @return The wrapper for the given mod. This is the same object every time once the loader has been frozen. */
+	public static ModContainerImpl of(ModContainer quilt) {
+		FrozenMods frozen = QuiltLoaderImpl.INSTANCE.getFrozenFabricMods();
+
+		if (frozen != null) {
+			ModContainerImpl wrapper = frozen.get(quilt);
+
+			if (wrapper != null) {
+				return wrapper;
+			}
+		}
+
+		return new ModContainerImpl(quilt);
+	}
+
+	/** @return Every loaded mod, or null if the loader hasn't been frozen yet. */
+	static Collection<net.fabricmc.loader.api.ModContainer> getFrozenMods() {
+		FrozenMods frozen = QuiltLoaderImpl.INSTANCE.getFrozenFabricMods();
+		return frozen == null ? null : frozen.getMods();
+	}
+
+	/** Creates the wrapper for every mod, and the jar-in-jar graph between them, once the set of loaded mods can't
+	 * change any more. This doesn't change any global state, so the caller has to keep the result. */
+	public static FrozenMods freeze(Collection<ModContainer> mods) {
+		Map<ModContainer, ModContainerImpl> wrappers = new IdentityHashMap<>();
+		List<net.fabricmc.loader.api.ModContainer> all = new ArrayList<>(mods.size());
+		Map<List<Path>, List<ModContainerImpl>> bySourcePath = new HashMap<>();
+
+		for (ModContainer mod : mods) {
+			ModContainerImpl wrapper = new ModContainerImpl(mod);
+			wrappers.put(mod, wrapper);
+			all.add(wrapper);
+
+			for (List<Path> paths : mod.getSourcePaths()) {
+				bySourcePath.computeIfAbsent(paths, p -> new ArrayList<>(1)).add(wrapper);
+			}
+		}
+
+		Map<ModContainerImpl, Set<net.fabricmc.loader.api.ModContainer>> contained = new HashMap<>();
+
+		for (net.fabricmc.loader.api.ModContainer container : all) {
+			ModContainerImpl child = (ModContainerImpl) container;
+
+			for (List<Path> paths : child.quilt.getSourcePaths()) {
+				if (paths.size() < 2) {
+					continue;
+				}
+
+				List<ModContainerImpl> parents = bySourcePath.get(paths.subList(0, paths.size() - 1));
+
+				if (parents == null) {
+					continue;
+				}
+
+				for (ModContainerImpl parent : parents) {
+					if (child.containingMod == null) {
+						child.containingMod = Optional.of(parent);
+					}
+
+					if (parent != child) {
+						contained.computeIfAbsent(parent, p -> new LinkedHashSet<>()).add(child);
+					}
+				}
+			}
+		}
+
+		for (net.fabricmc.loader.api.ModContainer container : all) {
+			ModContainerImpl wrapper = (ModContainerImpl) container;
+
+			if (wrapper.containingMod == null) {
+				wrapper.containingMod = Optional.empty();
+			}
+
+			Set<net.fabricmc.loader.api.ModContainer> children = contained.get(wrapper);
+			wrapper.containedMods = children == null
+				? Collections.emptyList()
+				: Collections.unmodifiableList(new ArrayList<>(children));
+		}
+
+		return new FrozenMods(wrappers, Collections.unmodifiableList(all));
+	}
+
+	/** Finds the containing mod without a frozen graph, which {@link #freeze(Collection)} must agree with.
+	 *
+	 * @return The first of the given mods which the given mod was loaded from (as a jar-in-jar), or null. */
+	static ModContainer findContainingMod(ModContainer mod, Collection<? extends ModContainer> all) {
+		for (List<Path> paths : mod.getSourcePaths()) {
+			if (paths.size() < 2) {
+				continue;
+			}
+			List<Path> subtracted = new ArrayList<>(paths);
+			subtracted.remove(subtracted.size() - 1);
+			for (ModContainer container : all) {
+				if (container.getSourcePaths().contains(subtracted)) {
+					return container;
+				}
+			}
+		}
+		return null;
+	}
+
+	/** Finds the contained mods without a frozen graph, which {@link #freeze(Collection)} must agree with.
+	 *
+	 * @return Every one of the given mods which was loaded from the given mod (as a jar-in-jar), in the same order. */
+	static List<ModContainer> findContainedMods(ModContainer mod, Collection<? extends ModContainer> all) {
+		List<ModContainer> contained = new ArrayList<>();
+		for (ModContainer other : all) {
+			if (other == mod) {
+				continue;
+			}
+			for (List<Path> paths : other.getSourcePaths()) {
+				if (paths.size() < 2) {
+					continue;
+				}
+				List<Path> subtracted = new ArrayList<>(paths);
+				subtracted.remove(subtracted.size() - 1);
+				if (mod.getSourcePaths().contains(subtracted)) {
+					contained.add(other);
+					break;
+				}
+			}
+		}
+		return contained;
+	}
+
 	@Override
 	public ModMetadata getMetadata() {
 		return getInfo();
@@ -75,39 +233,23 @@ public final class ModContainerImpl extends net.fabricmc.loader.ModContainer {
 
 	@Override
 	public Optional<net.fabricmc.loader.api.ModContainer> getContainingMod() {
-		for (List<Path> paths : quilt.getSourcePaths()) {
-			if (paths.size() < 2) {
-				continue;
-			}
-			List<Path> subtracted = new ArrayList<>(paths);
-			subtracted.remove(subtracted.size() - 1);
-			for (ModContainer container : QuiltLoader.getAllMods()) {
-				if (container.getSourcePaths().contains(subtracted)) {
-					return Optional.of(new ModContainerImpl(quilt));
-				}
-			}
+		if (containingMod != null) {
+			return containingMod;
 		}
-		return Optional.empty();
+
+		ModContainer container = findContainingMod(quilt, QuiltLoader.getAllMods());
+		return container == null ? Optional.empty() : Optional.of(of(container));
 	}
 
 	@Override
 	public Collection<net.fabricmc.loader.api.ModContainer> getContainedMods() {
+		if (containedMods != null) {
+			return containedMods;
+		}
+
 		List<net.fabricmc.loader.api.ModContainer> contained = new ArrayList<>();
-		for (ModContainer other : QuiltLoader.getAllMods()) {
-			if (other == quilt) {
-				continue;
-			}
-			for (List<Path> paths : other.getSourcePaths()) {
-				if (paths.size() < 2) {
-					continue;
-				}
-				List<Path> subtracted = new ArrayList<>(paths);
-				subtracted.remove(subtracted.size() - 1);
-				if (quilt.getSourcePaths().contains(subtracted)) {
-					contained.add(new ModContainerImpl(other));
-					break;
-				}
-			}
+		for (ModContainer other : findContainedMods(quilt, QuiltLoader.getAllMods())) {
+			contained.add(of(other));
 		}
 		return contained;
 	}
@@ -36,6 +36,6 @@ public final class EntrypointContainerImpl<T> implements EntrypointContainer<T>
 
 	@Override
 	public ModContainer getProvider() {
-		return new ModContainerImpl(quilt.getProvider());
+		return ModContainerImpl.of(quilt.getProvider());
 	}
 }
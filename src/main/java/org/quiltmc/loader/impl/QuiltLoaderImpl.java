@@ -21,6 +21,7 @@ import java.awt.GraphicsEnvironment;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -32,6 +33,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -70,6 +72,9 @@ import org.quiltmc.loader.impl.launch.knot.Knot;
 import org.quiltmc.loader.impl.metadata.FabricLoaderModMetadata;
 import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
 import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
+import org.quiltmc.loader.impl.metrics.EntrypointMetrics;
+import org.quiltmc.loader.impl.metrics.ModMemoryMetrics;
+import org.quiltmc.loader.impl.metrics.StartupTimeline;
 import org.quiltmc.loader.impl.plugin.QuiltPluginErrorImpl;
 import org.quiltmc.loader.impl.plugin.QuiltPluginManagerImpl;
 import org.quiltmc.loader.impl.plugin.fabric.FabricModOption;
@@ -77,10 +82,12 @@ import org.quiltmc.loader.impl.plugin.gui.GuiManagerImpl;
 import org.quiltmc.loader.impl.report.QuiltReport.CrashReportSaveFailed;
 import org.quiltmc.loader.impl.report.QuiltReportedError;
 import org.quiltmc.loader.impl.solver.ModSolveResultImpl;
+import org.quiltmc.loader.impl.transformer.EnvironmentAnnotationIndex;
 import org.quiltmc.loader.impl.transformer.TransformCache;
 import org.quiltmc.loader.impl.util.Arguments;
 import org.quiltmc.loader.impl.util.DefaultLanguageAdapter;
 import org.quiltmc.loader.impl.util.FileSystemUtil;
+import org.quiltmc.loader.impl.util.HashUtil;
 import org.quiltmc.loader.impl.util.ModLanguageAdapter;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
@@ -88,6 +95,7 @@ import org.quiltmc.loader.impl.util.log.LogCategory;
 import org.spongepowered.asm.mixin.FabricUtil;
 
 import net.fabricmc.loader.api.ObjectShare;
+import net.fabricmc.loader.impl.ModContainerImpl;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerReader;
@@ -119,6 +127,7 @@ public final class QuiltLoaderImpl {
 	private final ObjectShare objectShare = new ObjectShareImpl();
 
 	private boolean frozen = false;
+	private volatile ModContainerImpl.FrozenMods frozenFabricMods;
 
 	private Object gameInstance;
 
@@ -129,6 +138,8 @@ public final class QuiltLoaderImpl {
 	private Path gameDir;
 	private Path configDir;
 	private Path modsDir;
+	/** A hash of every mod that was loaded, or null if the mods haven't been set up yet. */
+	private String modSetFingerprint;
 
 	protected QuiltLoaderImpl() {
 	}
@@ -143,6 +154,12 @@ public final class QuiltLoaderImpl {
 
 		frozen = true;
 		finishModLoading();
+		frozenFabricMods = ModContainerImpl.freeze(getAllMods());
+	}
+
+	/** @return The fabric wrapper of every loaded mod, or null if this hasn't been {@link #freeze() frozen} yet. */
+	public ModContainerImpl.FrozenMods getFrozenFabricMods() {
+		return frozenFabricMods;
 	}
 
 	public GameProvider getGameProvider() {
@@ -243,7 +260,11 @@ public final class QuiltLoaderImpl {
 
 	private void setup() throws ModResolutionException {
 
-		ModSolveResult result = runPlugins();
+		ModSolveResult result;
+
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("loader", "runPlugins")) {
+			result = runPlugins();
+		}
 
 		SpecificLoadOptionResult<LoadOption> spec = result.getResult(LoadOption.class);
 
@@ -266,13 +287,23 @@ public final class QuiltLoaderImpl {
 		performLoadLateReordering(modList);
 
 		Path transformCacheFile = getGameDir().resolve(CACHE_DIR_NAME).resolve("transform-cache.zip");
-		TransformCache.populateTransformBundle(transformCacheFile, modList, result);
+
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("loader", "populateTransformCache")) {
+			String options = TransformCache.populateTransformBundle(transformCacheFile, modList, result);
+			modSetFingerprint = HashUtil.hashToHex(HashUtil.computeHash(options.getBytes(StandardCharsets.UTF_8)));
+		}
+
 		Path transformedModBundle;
 		try {
 			transformedModBundle = FileSystemUtil.getJarFileSystem(transformCacheFile, false).get().getPath("/");
 		} catch (IOException e) {
 			throw new RuntimeException(e); // TODO
 		}
+
+		if (!isDevelopmentEnvironment() && !Boolean.getBoolean(SystemProperties.DISABLE_ENVIRONMENT_INDEX)) {
+			EnvironmentAnnotationIndex.install(EnvironmentAnnotationIndex.read(transformedModBundle.resolve(EnvironmentAnnotationIndex.FILE_NAME)));
+		}
+
 		for (ModLoadOption modOption : modList) {
 
 			final Path resourceRoot;
@@ -300,8 +331,11 @@ public final class QuiltLoaderImpl {
 					// if (paths.size() == 1) {
 					// resourceRoot = paths.get(0);
 					// } else {
-					resourceRoot = new QuiltJoinedFileSystem("final-mod-" + modOption.id(), paths).getRoot();
+					// Nothing writes to the transform bundle once it's been populated, even though it's opened
+					// writable, so the joined file system can still be indexed
+					resourceRoot = new QuiltJoinedFileSystem("final-mod-" + modOption.id(), paths, null, true).getRoot();
 					// }
+					ModMemoryMetrics.registerUntransformedRoot(modOption.id(), modOption.resourceRoot());
 				}
 			}
 
@@ -322,19 +356,21 @@ public final class QuiltLoaderImpl {
 		QuiltLoaderConfig config = new QuiltLoaderConfig(getConfigDir().resolve("quilt-loader.txt"));
 		QuiltPluginManagerImpl plugins = new QuiltPluginManagerImpl(getGameDir(), getConfigDir(), getModsDir(), provider, config);
 
+		boolean canOpenGui = (provider == null || provider.canOpenErrorGui()) && !GraphicsEnvironment.isHeadless();
+		boolean dev = isDevelopmentEnvironment();
+		boolean show = config.alwaysShowModStateWindow;
+		plugins.setModsGuiTabNeeded(canOpenGui && (dev || show), canOpenGui);
+
 		Path crashReportFile = null;
 		String fullCrashText = null;
 
 		try {
 			ModSolveResultImpl result = plugins.run(true);
 
-			if ((provider != null && !provider.canOpenErrorGui()) || GraphicsEnvironment.isHeadless()) {
+			if (!canOpenGui) {
 				return result;
 			}
 
-			boolean dev = isDevelopmentEnvironment();
-			boolean show = config.alwaysShowModStateWindow;
-
 			if (!dev && !show) {
 				return result;
 			}
@@ -392,7 +428,7 @@ public final class QuiltLoaderImpl {
 			}
 		}
 
-		if ((provider != null && !provider.canOpenErrorGui()) || GraphicsEnvironment.isHeadless()) {
+		if (!canOpenGui) {
 			if (crashReportFile != null) {
 				System.err.println("Game crashed! Saved the crash report to " + crashReportFile);
 			}
@@ -470,12 +506,15 @@ public final class QuiltLoaderImpl {
 		// - ID
 		// - version
 		// - loader plugin
+		// - entrypoint time (once any entrypoints have been created)
 		// - source path(s)
 
+		boolean showInitTime = EntrypointMetrics.hasData();
 		int maxNameLength = "Mod".length();
 		int maxIdLength = "ID".length();
 		int maxVersionLength = "Version".length();
 		int maxPluginLength = "Plugin".length();
+		int maxInitTimeLength = "Init Time".length();
 		List<Integer> maxSourcePathLengths = new ArrayList<>();
 
 		for (ModContainerExt mod : mods) {
@@ -483,6 +522,7 @@ public final class QuiltLoaderImpl {
 			maxIdLength = Math.max(maxIdLength, mod.metadata().id().length());
 			maxVersionLength = Math.max(maxVersionLength, mod.metadata().version().toString().length());
 			maxPluginLength = Math.max(maxPluginLength, mod.pluginId().length());
+			maxInitTimeLength = Math.max(maxInitTimeLength, getInitTime(mod).length());
 
 			for (List<Path> paths : mod.getSourcePaths()) {
 				for (int i = 0; i < paths.size(); i++) {
@@ -502,6 +542,7 @@ public final class QuiltLoaderImpl {
 		maxIdLength++;
 		maxVersionLength++;
 		maxPluginLength++;
+		maxInitTimeLength++;
 
 		StringBuilder sbTab = new StringBuilder();
 		StringBuilder sbSep = new StringBuilder();
@@ -531,6 +572,14 @@ public final class QuiltLoaderImpl {
 			sbTab.append(" ");
 			sbSep.append("-");
 		}
+		if (showInitTime) {
+			sbTab.append("| Init Time ");
+			sbSep.append("|----------:");
+			for (int i = "Init Time".length(); i < maxInitTimeLength; i++) {
+				sbTab.append(" ");
+				sbSep.insert(sbSep.length() - 1, "-");
+			}
+		}
 		sbTab.append("|");
 		sbSep.append("|");
 
@@ -559,6 +608,7 @@ public final class QuiltLoaderImpl {
 			// - ID
 			// - version
 			// - loader plugin
+			// - entrypoint time
 			// - source path(s)
 			sbTab.append("| ");
 			String index = Integer.toString(mods.indexOf(mod));
@@ -581,6 +631,14 @@ public final class QuiltLoaderImpl {
 			for (int i = mod.pluginId().length(); i < maxPluginLength; i++) {
 				sbTab.append(" ");
 			}
+			if (showInitTime) {
+				String initTime = getInitTime(mod);
+				sbTab.append(" | ");
+				for (int i = initTime.length(); i < maxInitTimeLength; i++) {
+					sbTab.append(" ");
+				}
+				sbTab.append(initTime);
+			}
 
 			for (int pathsIndex = 0; pathsIndex < mod.getSourcePaths().size(); pathsIndex++) {
 				List<Path> paths = mod.getSourcePaths().get(pathsIndex);
@@ -602,6 +660,12 @@ public final class QuiltLoaderImpl {
 					for (int i = 0; i < maxPluginLength; i++) {
 						sbTab.append(" ");
 					}
+					if (showInitTime) {
+						sbTab.append(" | ");
+						for (int i = 0; i < maxInitTimeLength; i++) {
+							sbTab.append(" ");
+						}
+					}
 				}
 
 				for (int pathIndex = 0; pathIndex < maxSourcePathLengths.size(); pathIndex++) {
@@ -627,6 +691,12 @@ public final class QuiltLoaderImpl {
 		to.accept(sbSep.toString());
 	}
 
+	/** @return The total time spent in the given mod's entrypoints, or an empty string if none have been created. */
+	private static String getInitTime(ModContainerExt mod) {
+		long nanos = EntrypointMetrics.getTotalNanos(mod.metadata().id());
+		return nanos < 0 ? "" : String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+	}
+
 	private static void performMixinReordering(List<ModLoadOption> modList) {
 
 		// Keep Mixin 0.9.2 compatible mods first in the load order, temporary fix for https://github.com/FabricMC/Mixin/issues/89
@@ -710,9 +780,11 @@ public final class QuiltLoaderImpl {
 			}
 		}
 
-		postprocessModMetadata();
-		setupLanguageAdapters();
-		setupMods();
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("loader", "setupMods")) {
+			postprocessModMetadata();
+			setupLanguageAdapters();
+			setupMods();
+		}
 	}
 
 	public boolean hasEntrypoints(String key) {
@@ -727,6 +799,24 @@ public final class QuiltLoaderImpl {
 		return entrypointStorage.getEntrypointContainers(key, type);
 	}
 
+	/** Starts loading the classes of the entrypoints that are invoked when the game starts, in the background. Called
+	 * once mixin is fully set up, and every pre-launch entrypoint has run (since they can add mixin configs). */
+	public void preloadEntrypointClasses(EnvType envType) {
+		List<String> keys = new ArrayList<>();
+		keys.add("main");
+		keys.add("init");
+
+		if (envType == EnvType.CLIENT) {
+			keys.add("client");
+			keys.add("client_init");
+		} else {
+			keys.add("server");
+			keys.add("server_init");
+		}
+
+		entrypointStorage.preloadClasses(keys, QuiltLauncherBase.getLauncher().getTargetClassLoader());
+	}
+
 	public MappingResolver getMappingResolver() {
 		if (mappingResolver == null) {
 			mappingResolver = new QuiltMappingResolver(
@@ -929,6 +1019,16 @@ public final class QuiltLoaderImpl {
 		return accessWidener;
 	}
 
+	/** @return A hash of the id and file contents of every loaded mod, which changes whenever any of them do. Mods
+	 *         loaded from folders are given a different hash every launch. */
+	public String getModSetFingerprint() {
+		if (modSetFingerprint == null) {
+			throw new IllegalStateException("Mods haven't been set up yet!");
+		}
+
+		return modSetFingerprint;
+	}
+
 	/**
 	 * Sets the game instance. This is only used in 20w22a+ by the dedicated server and should not be called by anything else.
 	 */
@@ -17,33 +17,125 @@
 
 package org.quiltmc.loader.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
 
-import net.fabricmc.mappings.EntryTriple;
 import org.quiltmc.loader.api.MappingResolver;
 
 import net.fabricmc.mapping.tree.ClassDef;
 import net.fabricmc.mapping.tree.Descriptored;
 import net.fabricmc.mapping.tree.TinyTree;
 
+/** A {@link MappingResolver} which keeps as little in memory as possible.
+ * <p>
+ * Each namespace only stores sorted arrays of (interned) class names, which are binary searched on lookup. Field and
+ * method names are only read from the mappings the first time their owning class is queried, and are stored in
+ * per-class sorted tables. None of this requires a lock: tables are published with a compare-and-set, so at worst two
+ * threads build the same table and one of them is discarded.
+ * <p>
+ * Classes and members without a name in either namespace are skipped. If the mappings contain the same name more than
+ * once then the last one wins, like it did when these were stored in hash maps. (A class's members are only taken from
+ * the class definition that won, rather than merged from every definition with that name). */
 class QuiltMappingResolver implements MappingResolver {
+	private static final MemberTable EMPTY_TABLE = new MemberTable(new String[0], new String[0], new String[0]);
+	private static final ClassMembers NO_MEMBERS = new ClassMembers(EMPTY_TABLE, EMPTY_TABLE);
+	/** Orders { name, descriptor, mapped name } entries by name and then descriptor, like {@link MemberTable}. */
+	private static final Comparator<String[]> MEMBER_ORDER = Comparator.<String[], String> comparing(e -> e[0]).thenComparing(e -> e[1]);
+
 	private final Supplier<TinyTree> mappingsSupplier;
 	private final Set<String> namespaces;
 	private final Map<String, NamespaceData> namespaceDataMap = new ConcurrentHashMap<>();
 	private final String targetNamespace;
+	private volatile ClassDef[] classDefs;
+
+	private static final class NamespaceData {
+		final String namespace;
+
+		/** Every class name in this namespace, in dot format, sorted. */
+		final String[] classNames;
+		/** The runtime name of each class in {@link #classNames}. */
+		final String[] mappedClassNames;
+		/** The index into {@link QuiltMappingResolver#classDefs} of each class in {@link #classNames}. */
+		final int[] classIndices;
+
+		/** Every runtime class name, in dot format, sorted. */
+		final String[] inverseClassNames;
+		/** The name in this namespace of each class in {@link #inverseClassNames}. */
+		final String[] unmappedClassNames;
+
+		/** Lazily built member tables, indexed in the same order as {@link #classNames}. */
+		final AtomicReferenceArray<ClassMembers> members;
+
+		NamespaceData(String namespace, String[] classNames, String[] mappedClassNames, int[] classIndices,
+			String[] inverseClassNames, String[] unmappedClassNames) {
 
-	private static class NamespaceData {
-		private final Map<String, String> classNames = new HashMap<>();
-		private final Map<String, String> classNamesInverse = new HashMap<>();
-		private final Map<EntryTriple, String> fieldNames = new HashMap<>();
-		private final Map<EntryTriple, String> methodNames = new HashMap<>();
+			this.namespace = namespace;
+			this.classNames = classNames;
+			this.mappedClassNames = mappedClassNames;
+			this.classIndices = classIndices;
+			this.inverseClassNames = inverseClassNames;
+			this.unmappedClassNames = unmappedClassNames;
+			this.members = new AtomicReferenceArray<>(classNames.length);
+		}
+	}
+
+	private static final class ClassMembers {
+		final MemberTable fields;
+		final MemberTable methods;
+
+		ClassMembers(MemberTable fields, MemberTable methods) {
+			this.fields = fields;
+			this.methods = methods;
+		}
+	}
+
+	/** Member names and descriptors sorted by name and then descriptor. Members whose name doesn't change are
+	 * omitted. */
+	private static final class MemberTable {
+		final String[] names;
+		final String[] descriptors;
+		final String[] mappedNames;
+
+		MemberTable(String[] names, String[] descriptors, String[] mappedNames) {
+			this.names = names;
+			this.descriptors = descriptors;
+			this.mappedNames = mappedNames;
+		}
+
+		String get(String name, String descriptor) {
+			int low = 0;
+			int high = names.length - 1;
+
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = names[mid].compareTo(name);
+
+				if (cmp == 0) {
+					cmp = descriptors[mid].compareTo(descriptor);
+				}
+
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return mappedNames[mid];
+				}
+			}
+
+			return name;
+		}
 	}
 
 	QuiltMappingResolver(Supplier<TinyTree> mappingsSupplier, String targetNamespace) {
@@ -52,46 +144,186 @@ class QuiltMappingResolver implements MappingResolver {
 		namespaces = Collections.unmodifiableSet(new HashSet<>(mappingsSupplier.get().getMetadata().getNamespaces()));
 	}
 
+	private ClassDef[] getClassDefs() {
+		ClassDef[] defs = classDefs;
+
+		if (defs == null) {
+			classDefs = defs = mappingsSupplier.get().getClasses().toArray(new ClassDef[0]);
+		}
+
+		return defs;
+	}
+
 	protected final NamespaceData getNamespaceData(String namespace) {
-		return namespaceDataMap.computeIfAbsent(namespace, (fromNamespace) -> {
+		NamespaceData data = namespaceDataMap.get(namespace);
+
+		if (data == null) {
 			if (!namespaces.contains(namespace)) {
 				throw new IllegalArgumentException("Unknown namespace: " + namespace + " (we know about " + namespaces + ")");
 			}
 
-			NamespaceData data = new NamespaceData();
-			TinyTree mappings = mappingsSupplier.get();
-			Map<String, String> classNameMap = new HashMap<>();
+			data = buildNamespaceData(namespace);
+			NamespaceData existing = namespaceDataMap.putIfAbsent(namespace, data);
+
+			if (existing != null) {
+				data = existing;
+			}
+		}
+
+		return data;
+	}
+
+	private NamespaceData buildNamespaceData(String fromNamespace) {
+		ClassDef[] defs = getClassDefs();
+		Map<String, String> interned = new HashMap<>();
+		List<ClassEntry> entries = new ArrayList<>(defs.length);
+
+		for (int i = 0; i < defs.length; i++) {
+			String from = defs[i].getName(fromNamespace);
+			String to = defs[i].getName(targetNamespace);
+
+			if (from == null || to == null) {
+				continue;
+			}
+
+			entries.add(new ClassEntry(intern(interned, from), intern(interned, to), i));
+		}
+
+		List<ClassEntry> byName = sortLastWins(entries, Comparator.comparing((ClassEntry e) -> e.from));
+		int count = byName.size();
+		String[] classNames = new String[count];
+		String[] mappedClassNames = new String[count];
+		int[] classIndices = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			ClassEntry entry = byName.get(i);
+			classNames[i] = entry.from;
+			mappedClassNames[i] = entry.to;
+			classIndices[i] = entry.index;
+		}
+
+		List<ClassEntry> byMappedName = sortLastWins(entries, Comparator.comparing((ClassEntry e) -> e.to));
+		int inverseCount = byMappedName.size();
+		String[] inverseClassNames = new String[inverseCount];
+		String[] unmappedClassNames = new String[inverseCount];
+
+		for (int i = 0; i < inverseCount; i++) {
+			ClassEntry entry = byMappedName.get(i);
+			inverseClassNames[i] = entry.to;
+			unmappedClassNames[i] = entry.from;
+		}
 
-			for (ClassDef classEntry : mappings.getClasses()) {
-				String fromClass = mapClassName(classNameMap, classEntry.getName(fromNamespace));
-				String toClass = mapClassName(classNameMap, classEntry.getName(targetNamespace));
+		return new NamespaceData(fromNamespace, classNames, mappedClassNames, classIndices, inverseClassNames, unmappedClassNames);
+	}
 
-				data.classNames.put(fromClass, toClass);
-				data.classNamesInverse.put(toClass, fromClass);
+	/** @return The given entries sorted, keeping only the last of any entries which compare as equal. */
+	private static <E> List<E> sortLastWins(List<E> entries, Comparator<E> comparator) {
+		List<E> sorted = new ArrayList<>(entries);
+		// List.sort is stable, so equal entries stay in their original order
+		sorted.sort(comparator);
+		List<E> unique = new ArrayList<>(sorted.size());
 
-				String mappedClassName = mapClassName(classNameMap, fromClass);
+		for (int i = 0; i < sorted.size(); i++) {
+			E entry = sorted.get(i);
 
-				recordMember(fromNamespace, classEntry.getFields(), data.fieldNames, mappedClassName);
-				recordMember(fromNamespace, classEntry.getMethods(), data.methodNames, mappedClassName);
+			if (i + 1 < sorted.size() && comparator.compare(sorted.get(i + 1), entry) == 0) {
+				continue;
 			}
 
-			return data;
-		});
+			unique.add(entry);
+		}
+
+		return unique;
+	}
+
+	private static final class ClassEntry {
+		final String from, to;
+		final int index;
+
+		ClassEntry(String from, String to, int index) {
+			this.from = from;
+			this.to = to;
+			this.index = index;
+		}
+	}
+
+	private static String intern(Map<String, String> interned, String cname) {
+		return interned.computeIfAbsent(cname, QuiltMappingResolver::replaceSlashesWithDots);
 	}
 
 	private static String replaceSlashesWithDots(String cname) {
 		return cname.replace('/', '.');
 	}
 
-	private String mapClassName(Map<String, String> classNameMap, String s) {
-		return classNameMap.computeIfAbsent(s, QuiltMappingResolver::replaceSlashesWithDots);
+	private ClassMembers getMembers(NamespaceData data, String owner) {
+		int index = Arrays.binarySearch(data.classNames, owner);
+
+		if (index < 0) {
+			return NO_MEMBERS;
+		}
+
+		ClassMembers members = data.members.get(index);
+
+		if (members == null) {
+			ClassDef def = getClassDefs()[data.classIndices[index]];
+			members = new ClassMembers(
+				buildTable(data.namespace, def.getFields()), buildTable(data.namespace, def.getMethods())
+			);
+
+			if (!data.members.compareAndSet(index, null, members)) {
+				members = data.members.get(index);
+			}
+		}
+
+		return members;
 	}
 
-	private <T extends Descriptored> void recordMember(String fromNamespace, Collection<T> descriptoredList, Map<EntryTriple, String> putInto, String fromClass) {
+	private <T extends Descriptored> MemberTable buildTable(String fromNamespace, Collection<T> descriptoredList) {
+		List<String[]> all = new ArrayList<>(descriptoredList.size());
+
 		for (T descriptored : descriptoredList) {
-			EntryTriple fromEntry = new EntryTriple(fromClass, descriptored.getName(fromNamespace), descriptored.getDescriptor(fromNamespace));
-			putInto.put(fromEntry, descriptored.getName(targetNamespace));
+			String name = descriptored.getName(fromNamespace);
+			String descriptor = descriptored.getDescriptor(fromNamespace);
+
+			if (name == null || descriptor == null) {
+				continue;
+			}
+
+			all.add(new String[] { name, descriptor, descriptored.getName(targetNamespace) });
+		}
+
+		List<String[]> entries = new ArrayList<>(all.size());
+
+		// Members which don't have a different name are left out after finding the last entry for each member, so
+		// that they still override earlier entries
+		for (String[] entry : sortLastWins(all, MEMBER_ORDER)) {
+			if (entry[2] != null && !entry[0].equals(entry[2])) {
+				entries.add(entry);
+			}
+		}
+
+		if (entries.isEmpty()) {
+			return EMPTY_TABLE;
 		}
+
+		int count = entries.size();
+		String[] names = new String[count];
+		String[] descriptors = new String[count];
+		String[] mappedNames = new String[count];
+
+		for (int i = 0; i < count; i++) {
+			String[] entry = entries.get(i);
+			names[i] = entry[0];
+			descriptors[i] = entry[1];
+			mappedNames[i] = entry[2];
+		}
+
+		return new MemberTable(names, descriptors, mappedNames);
+	}
+
+	private static String lookup(String[] keys, String[] values, String key) {
+		int index = Arrays.binarySearch(keys, key);
+		return index < 0 ? key : values[index];
 	}
 
 	@Override
@@ -110,7 +342,8 @@ class QuiltMappingResolver implements MappingResolver {
 			throw new IllegalArgumentException("Class names must be provided in dot format: " + className);
 		}
 
-		return getNamespaceData(namespace).classNames.getOrDefault(className, className);
+		NamespaceData data = getNamespaceData(namespace);
+		return lookup(data.classNames, data.mappedClassNames, className);
 	}
 
 	@Override
@@ -119,7 +352,8 @@ class QuiltMappingResolver implements MappingResolver {
 			throw new IllegalArgumentException("Class names must be provided in dot format: " + className);
 		}
 
-		return getNamespaceData(namespace).classNamesInverse.getOrDefault(className, className);
+		NamespaceData data = getNamespaceData(namespace);
+		return lookup(data.inverseClassNames, data.unmappedClassNames, className);
 	}
 
 	@Override
@@ -128,7 +362,11 @@ class QuiltMappingResolver implements MappingResolver {
 			throw new IllegalArgumentException("Class names must be provided in dot format: " + owner);
 		}
 
-		return getNamespaceData(namespace).fieldNames.getOrDefault(new EntryTriple(owner, name, descriptor), name);
+		if (name == null || descriptor == null) {
+			return name;
+		}
+
+		return getMembers(getNamespaceData(namespace), owner).fields.get(name, descriptor);
 	}
 
 	@Override
@@ -137,6 +375,10 @@ class QuiltMappingResolver implements MappingResolver {
 			throw new IllegalArgumentException("Class names must be provided in dot format: " + owner);
 		}
 
-		return getNamespaceData(namespace).methodNames.getOrDefault(new EntryTriple(owner, name, descriptor), name);
+		if (name == null || descriptor == null) {
+			return name;
+		}
+
+		return getMembers(getNamespaceData(namespace), owner).methods.get(name, descriptor);
 	}
 }
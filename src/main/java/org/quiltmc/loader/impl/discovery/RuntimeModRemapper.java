@@ -17,9 +17,12 @@
 
 package org.quiltmc.loader.impl.discovery;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -27,6 +30,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,14 +39,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.Remapper;
 import org.quiltmc.loader.api.plugin.solver.ModLoadOption;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.util.FileSystemUtil;
 import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.mappings.ClassHierarchyIndex;
 import org.quiltmc.loader.impl.util.mappings.TinyRemapperMappingsHelper;
 
 import net.fabricmc.accesswidener.AccessWidenerFormatException;
@@ -56,6 +68,8 @@ import net.fabricmc.tinyremapper.TinyRemapper;
 
 public final class RuntimeModRemapper {
 
+	private static final String REMAP_CLASSPATH_DIR_NAME = "remap-classpath";
+
 	public static void remap(Path cache, List<ModLoadOption> modList) {
 		List<ModLoadOption> modsToRemap = modList.stream()
 				.filter(modLoadOption -> modLoadOption.namespaceMappingFrom() != null)
@@ -73,7 +87,7 @@ public final class RuntimeModRemapper {
 				.build();
 
 		try {
-			remapper.readClassPathAsync(getRemapClasspath().toArray(new Path[0]));
+			remapper.readClassPathAsync(getIndexedRemapClasspath().toArray(new Path[0]));
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to populate remap classpath", e);
 		}
@@ -143,6 +157,102 @@ public final class RuntimeModRemapper {
 		return writer.write();
 	}
 
+	/** Replaces every jar on the remap classpath with a single "stub" jar, which holds the hierarchy and member
+	 * declarations of every class but none of their code. The stub jar is kept in
+	 * {@code .quilt/remap-classpath/<key>.jar}, where the key is derived from the hashes of the jars it was built from,
+	 * so later launches only need to hash the classpath rather than parse every class in it again. */
+	private static List<Path> getIndexedRemapClasspath() throws IOException {
+		List<Path> classpath = getRemapClasspath();
+		List<Path> jars = new ArrayList<>();
+		List<Path> result = new ArrayList<>();
+
+		for (Path path : classpath) {
+			if (Files.isRegularFile(path)) {
+				jars.add(path);
+			} else {
+				// Folders can't be hashed, and are usually small anyway
+				result.add(path);
+			}
+		}
+
+		if (jars.isEmpty()) {
+			return result;
+		}
+
+		Path dir = QuiltLoaderImpl.INSTANCE.getGameDir().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(REMAP_CLASSPATH_DIR_NAME);
+		String key = ClassHierarchyIndex.computeKey(jars);
+		Path stubJar = dir.resolve(key + ".jar");
+
+		if (Files.isRegularFile(stubJar)) {
+			Log.debug(LogCategory.MOD_REMAP, "Reusing the remap classpath index %s", stubJar);
+		} else {
+			long start = System.nanoTime();
+			ClassHierarchyIndex index = ClassHierarchyIndex.build(jars);
+
+			try {
+				Files.createDirectories(dir);
+				deleteStaleStubJars(dir);
+				writeStubJar(index, stubJar);
+			} catch (IOException e) {
+				Log.warn(LogCategory.MOD_REMAP, "Failed to write the remap classpath index to " + stubJar + ", using the full classpath instead", e);
+				return classpath;
+			}
+
+			Log.info(LogCategory.MOD_REMAP, "Indexed %d remap classpath classes in %d ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+		}
+
+		result.add(stubJar);
+		return result;
+	}
+
+	private static void deleteStaleStubJars(Path dir) throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.jar")) {
+			for (Path old : stream) {
+				Files.deleteIfExists(old);
+			}
+		}
+	}
+
+	private static void writeStubJar(ClassHierarchyIndex index, Path file) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			for (ClassHierarchyIndex.ClassEntry entry : index.getClasses()) {
+				if ((entry.access & Opcodes.ACC_MODULE) != 0) {
+					continue;
+				}
+
+				zip.putNextEntry(new ZipEntry(entry.name + ".class"));
+				zip.write(createStubClass(entry));
+				zip.closeEntry();
+			}
+		}
+
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/** Creates a class with the same access, super types and member declarations as the original, but without any
+	 * method bodies, signatures or attributes - which is all tiny-remapper needs from classpath classes. */
+	private static byte[] createStubClass(ClassHierarchyIndex.ClassEntry entry) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, entry.access, entry.name, null, entry.superName, entry.interfaces);
+
+		for (ClassHierarchyIndex.MemberEntry field : entry.fields) {
+			writer.visitField(field.access, field.name, field.descriptor, null, null).visitEnd();
+		}
+
+		for (ClassHierarchyIndex.MemberEntry method : entry.methods) {
+			writer.visitMethod(method.access, method.name, method.descriptor, null, null).visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
 	private static List<Path> getRemapClasspath() throws IOException {
 		String remapClasspathFile = System.getProperty(SystemProperties.REMAP_CLASSPATH_FILE);
 
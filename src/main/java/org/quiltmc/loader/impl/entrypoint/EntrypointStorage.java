@@ -24,10 +24,15 @@ import org.quiltmc.loader.api.entrypoint.EntrypointException;
 import org.quiltmc.loader.api.plugin.ModContainerExt;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
+import org.quiltmc.loader.impl.metrics.EntrypointMetrics;
+import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class EntrypointStorage {
 	interface Entry {
@@ -35,6 +40,14 @@ public final class EntrypointStorage {
 		boolean isOptional();
 
 		ModContainerExt getModContainer();
+
+		/** @return The name of the class this entry creates (or reads a member from). */
+		String getClassName();
+	}
+
+	static String getClassName(String value) {
+		int memberStart = value.indexOf("::");
+		return memberStart < 0 ? value : value.substring(0, memberStart);
 	}
 
 	@SuppressWarnings("deprecation")
@@ -83,6 +96,11 @@ public final class EntrypointStorage {
 		public ModContainerExt getModContainer() {
 			return mod;
 		}
+
+		@Override
+		public String getClassName() {
+			return EntrypointStorage.getClassName(value);
+		}
 	}
 
 	private static final class NewEntry implements Entry {
@@ -127,6 +145,11 @@ public final class EntrypointStorage {
 		public ModContainerExt getModContainer() {
 			return mod;
 		}
+
+		@Override
+		public String getClassName() {
+			return EntrypointStorage.getClassName(value);
+		}
 	}
 
 	private final Map<String, List<Entry>> entryMap = new HashMap<>();
@@ -167,7 +190,7 @@ public final class EntrypointStorage {
 
 		for (Entry entry : entries) {
 			try {
-				T result = entry.getOrCreate(type);
+				T result = create(key, entry, type);
 
 				if (result != null) {
 					results.add(result);
@@ -188,6 +211,95 @@ public final class EntrypointStorage {
 		return results;
 	}
 
+	/** Starts loading (but not initializing) the class of every entrypoint registered under the given keys on background
+	 * threads, if {@link SystemProperties#ENTRYPOINT_PRELOAD_THREADS} is set. Loading a class also runs it through the
+	 * transformers and mixin, which would otherwise all happen one entrypoint at a time when the entrypoints are first
+	 * created.
+	 * <p>
+	 * This is off by default: mixin transforms every class under a single lock, so the threads mostly wait on each
+	 * other (and on the main thread), and the order classes are loaded in is no longer deterministic.
+	 * <p>
+	 * This doesn't wait for the classes to finish loading: if an entrypoint is created while its class is still being
+	 * loaded then the class loader just waits for it. */
+	public void preloadClasses(Collection<String> keys, ClassLoader classLoader) {
+		int threads = Integer.getInteger(SystemProperties.ENTRYPOINT_PRELOAD_THREADS, 0);
+
+		if (threads <= 0) {
+			return;
+		}
+
+		Set<String> classNames = new LinkedHashSet<>();
+
+		for (String key : keys) {
+			for (Entry entry : entryMap.getOrDefault(key, Collections.emptyList())) {
+				classNames.add(entry.getClassName());
+			}
+		}
+
+		if (!classNames.isEmpty()) {
+			preloadClasses(new ArrayList<>(classNames), classLoader, threads);
+		}
+	}
+
+	/** Submits every class to a new pool of the given number of daemon threads, which is shut down once they've all
+	 * been loaded.
+	 *
+	 * @return The pool, so tests can wait for it to terminate. */
+	static ExecutorService preloadClasses(List<String> classNames, ClassLoader classLoader, int threads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, classNames.size()), task -> {
+			Thread thread = new Thread(task, "Quilt Entrypoint Preload " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long start = System.nanoTime();
+		AtomicInteger remaining = new AtomicInteger(classNames.size());
+
+		for (String name : classNames) {
+			executor.execute(() -> {
+				try {
+					Class.forName(name, false, classLoader);
+				} catch (Throwable t) {
+					// Creating the entrypoint will fail too, but this is the only place that says why it failed here
+					Log.warn(LogCategory.ENTRYPOINT, "Failed to preload the entrypoint class " + name, t);
+				}
+
+				if (remaining.decrementAndGet() == 0) {
+					Log.debug(LogCategory.ENTRYPOINT, "Preloaded %d entrypoint classes in %dms", classNames.size(), (System.nanoTime() - start) / 1_000_000);
+				}
+			});
+		}
+
+		// Already submitted tasks still run, but no more threads are kept around afterwards
+		executor.shutdown();
+		return executor;
+	}
+
+	/** Creates (or gets) the given entry's object, and records how long loading its class and constructing it took. */
+	private static <T> T create(String key, Entry entry, Class<T> type) throws Exception {
+		String modId = entry.getModContainer().metadata().id();
+		EntrypointMetrics.Sample sample = EntrypointMetrics.begin(key, modId, EntrypointMetrics.Stage.CLASS_LOAD);
+
+		if (sample != null) {
+			try {
+				Class.forName(entry.getClassName(), false, QuiltLauncherBase.getLauncher().getTargetClassLoader());
+			} catch (Throwable t) {
+				// Creating the entrypoint will report this properly
+			} finally {
+				EntrypointMetrics.end(sample);
+			}
+		}
+
+		sample = EntrypointMetrics.begin(key, modId, EntrypointMetrics.Stage.CONSTRUCT);
+
+		try {
+			return entry.getOrCreate(type);
+		} finally {
+			EntrypointMetrics.end(sample);
+		}
+	}
+
 	@SuppressWarnings("deprecation")
 	public <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
 		List<Entry> entries = entryMap.get(key);
@@ -201,7 +313,7 @@ public final class EntrypointStorage {
 
 			if (entry.isOptional()) {
 				try {
-					T instance = entry.getOrCreate(type);
+					T instance = create(key, entry, type);
 					if (instance == null) continue;
 
 					container = new EntrypointContainerImpl<>(entry.getModContainer(), instance);
@@ -217,7 +329,7 @@ public final class EntrypointStorage {
 			} else {
 				container = new EntrypointContainerImpl<>(entry.getModContainer(), () -> {
 				try {
-					return entry.getOrCreate(type);
+					return create(key, entry, type);
 				} catch (Exception ex) {
 					throw new QuiltEntrypointException(key, entry.getModContainer().metadata().id(), ex);
 				}
@@ -20,6 +20,7 @@ package org.quiltmc.loader.impl.entrypoint;
 import org.quiltmc.loader.api.ModContainer;
 import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.metrics.EntrypointMetrics;
 import org.quiltmc.loader.impl.util.ExceptionUtil;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
@@ -55,6 +56,8 @@ public final class EntrypointUtils {
 		Log.debug(LogCategory.ENTRYPOINT, "Iterating over entrypoint '%s'", name);
 
 		for (EntrypointContainer<T> container : entrypoints) {
+			EntrypointMetrics.Sample sample = EntrypointMetrics.begin(name, container.getProvider().metadata().id(), EntrypointMetrics.Stage.INVOKE);
+
 			try {
 				invoker.accept(container);
 			} catch (Throwable t) {
@@ -63,6 +66,8 @@ public final class EntrypointUtils {
 						exc -> new RuntimeException(String.format("Could not execute entrypoint stage '%s' due to errors, provided by '%s'!",
 								name, container.getProvider().metadata().id()),
 								exc));
+			} finally {
+				EntrypointMetrics.end(sample);
 			}
 		}
 
@@ -130,4 +130,16 @@ public abstract class GamePatch {
 	}
 
 	public abstract void process(QuiltLauncher launcher, Function<String, ClassReader> classSource, Consumer<ClassNode> classEmitter);
+
+	/** @return A string which changes whenever the classes emitted by {@link #process} could change for the same game
+	 *         jar, so {@link GameTransformer} knows when it can reuse the classes it cached on a previous launch. */
+	public String getCacheKey() {
+		return getClass().getName();
+	}
+
+	/** Called instead of {@link #process} when the patched classes were loaded from the cache. Patches which set any
+	 * other state while processing must set it again here. */
+	public void processCached(QuiltLauncher launcher) {
+		// Nothing to do by default
+	}
 }
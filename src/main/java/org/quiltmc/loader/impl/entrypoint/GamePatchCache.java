@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.game.GameProviderHelper;
+import org.quiltmc.loader.impl.game.LazyGameRemapper;
+import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Stores the classes produced by {@link GameTransformer}'s patches, so later launches with the same game jar don't
+ * need to open or analyse it at all.
+ * <p>
+ * Each entry is named after a hash of the game jar's contents and everything else the patches read: the loader
+ * version, {@link #VERSION}, each patch's {@link GamePatch#getCacheKey() cache key}, the environment, the game
+ * entrypoint, and the mapping namespace. Only the newest entry is kept. */
+final class GamePatchCache {
+
+	/** Increment this whenever a patch changes in a way that its {@link GamePatch#getCacheKey()} doesn't cover. */
+	static final int VERSION = 1;
+
+	private static final int MAGIC = 0x51475043; // "QGPC"
+	private static final String FILE_EXTENSION = ".bin";
+
+	private final Path folder;
+	private final Path file;
+
+	private GamePatchCache(Path folder, String key) {
+		this.folder = folder;
+		this.file = folder.resolve(key + FILE_EXTENSION);
+	}
+
+	/** @return The cache for the given game jar, or null if it can't be cached (since the jar is a folder, and so
+	 *         doesn't have a stable hash). */
+	static GamePatchCache create(Path folder, QuiltLauncher launcher, Path gameJar, List<GamePatch> patches) throws IOException {
+		if (!Files.isRegularFile(gameJar)) {
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("loader=").append(QuiltLoaderImpl.VERSION).append('\n');
+		sb.append("version=").append(VERSION).append('\n');
+		sb.append("env=").append(launcher.getEnvironmentType()).append('\n');
+		sb.append("entrypoint=").append(launcher.getEntrypoint()).append('\n');
+		sb.append("development=").append(launcher.isDevelopment()).append('\n');
+		sb.append("namespace=").append(launcher.getTargetNamespace()).append('\n');
+		// In lazy mode the game jar is just the resources, so the classes are covered by the remapper's key instead
+		LazyGameRemapper lazyRemapper = GameProviderHelper.getLazyRemapper();
+		sb.append("lazy_remap=").append(lazyRemapper != null ? lazyRemapper.getCacheKey().replace('\n', ';') : "false").append('\n');
+		sb.append("game_jar=").append(HashUtil.hashToHex(HashUtil.computeHash(gameJar))).append('\n');
+
+		for (GamePatch patch : patches) {
+			sb.append("patch=").append(patch.getCacheKey()).append('\n');
+		}
+
+		String key = HashUtil.hashToHex(HashUtil.computeHash(sb.toString().getBytes(StandardCharsets.UTF_8)));
+		return new GamePatchCache(folder, key);
+	}
+
+	/** @return The cached patched classes, by binary name, or null if they haven't been cached (or couldn't be read). */
+	Map<String, byte[]> read() {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+
+		try (InputStream stream = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(stream);
+
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+
+			int count = in.readInt();
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				classes.put(name, bytes);
+			}
+
+			return classes;
+		} catch (IOException e) {
+			Log.warn(LogCategory.GAME_PATCH, "Failed to read the game patch cache " + file + ", patching again", e);
+			return null;
+		}
+	}
+
+	void write(Map<String, byte[]> classes) {
+		try {
+			Files.createDirectories(folder);
+			deleteOtherEntries();
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(baos);
+			out.writeInt(MAGIC);
+			out.writeInt(classes.size());
+
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+
+			out.flush();
+
+			Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+			Files.write(tmp, baos.toByteArray());
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.GAME_PATCH, "Failed to write the game patch cache " + file, e);
+		}
+	}
+
+	private void deleteOtherEntries() throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+			for (Path other : stream) {
+				if (!other.equals(file) && Files.isRegularFile(other)) {
+					Files.deleteIfExists(other);
+				}
+			}
+		}
+	}
+}
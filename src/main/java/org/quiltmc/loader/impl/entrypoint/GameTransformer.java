@@ -22,7 +22,10 @@ import org.quiltmc.loader.impl.util.LoaderUtil;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
+import org.quiltmc.loader.impl.game.GameProviderHelper;
+import org.quiltmc.loader.impl.game.LazyGameRemapper;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
+import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
 
@@ -32,6 +35,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -62,11 +66,43 @@ public class GameTransformer {
 	}
 
 	public void locateEntrypoints(QuiltLauncher launcher, Path gameJar) {
+		locateEntrypoints(launcher, gameJar, null);
+	}
+
+	/** @param cacheDir The folder to cache the patched classes in, or null to always patch the game jar. */
+	public void locateEntrypoints(QuiltLauncher launcher, Path gameJar, Path cacheDir) {
 		if (entrypointsLocated) {
 			return;
 		}
 
-		patchedClasses = new HashMap<>();
+		GamePatchCache cache = null;
+
+		if (cacheDir != null && !Boolean.getBoolean(SystemProperties.DISABLE_GAME_PATCH_CACHE)) {
+			try {
+				cache = GamePatchCache.create(cacheDir, launcher, gameJar, patches);
+			} catch (IOException e) {
+				Log.warn(LogCategory.GAME_PATCH, "Failed to hash " + gameJar + ", so the patched classes won't be cached", e);
+			}
+		}
+
+		if (cache != null) {
+			Map<String, byte[]> cached = cache.read();
+
+			if (cached != null) {
+				patchedClasses = new HashMap<>(cached);
+
+				for (GamePatch patch : patches) {
+					patch.processCached(launcher);
+				}
+
+				Log.debug(LogCategory.GAME_PATCH, "Loaded %d patched class%s from the cache", patchedClasses.size(), patchedClasses.size() != 1 ? "es" : "");
+				entrypointsLocated = true;
+				return;
+			}
+		}
+
+		patchedClasses = new LinkedHashMap<>();
+		LazyGameRemapper lazyRemapper = GameProviderHelper.getLazyRemapper();
 
 		try (ZipFile zf = new ZipFile(gameJar.toFile())) {
 			Function<String, ClassReader> classSource = name -> {
@@ -76,6 +112,14 @@ public class GameTransformer {
 					return new ClassReader(data);
 				}
 
+				if (lazyRemapper != null && lazyRemapper.hasClass(name)) {
+					try {
+						return new ClassReader(lazyRemapper.getClassBytes(name));
+					} catch (IOException e) {
+						throw new UncheckedIOException(String.format("error remapping %s: %s", name, e), e);
+					}
+				}
+
 				ZipEntry entry = zf.getEntry(LoaderUtil.getClassFileName(name));
 				if (entry == null) return null;
 
@@ -94,6 +138,11 @@ public class GameTransformer {
 		}
 
 		Log.debug(LogCategory.GAME_PATCH, "Patched %d class%s", patchedClasses.size(), patchedClasses.size() != 1 ? "s" : "");
+
+		if (cache != null) {
+			cache.write(patchedClasses);
+		}
+
 		entrypointsLocated = true;
 	}
 
@@ -17,6 +17,9 @@
 package org.quiltmc.loader.impl.filesystem;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.nio.file.ClosedFileSystemException;
 import java.nio.file.FileSystem;
@@ -27,6 +30,8 @@ import java.nio.file.attribute.UserPrincipalLookupService;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.jetbrains.annotations.Nullable;
@@ -42,6 +47,13 @@ public abstract class QuiltBaseFileSystem<FS extends QuiltBaseFileSystem<FS, P>,
 	final Class<FS> filesystemClass;
 	final Class<P> pathClass;
 
+	/** Every interned path without a parent, including {@link #root}. Must be initialised before the root is
+	 * created. */
+	private final ConcurrentMap<String, PathRef<P>> topLevelPaths = new ConcurrentHashMap<>();
+
+	/** Interned paths which nothing else refers to any more, so their entries can be removed from the trie. */
+	private final ReferenceQueue<P> collectedPaths = new ReferenceQueue<>();
+
 	final String name;
 	final P root;
 
@@ -136,7 +148,81 @@ public abstract class QuiltBaseFileSystem<FS extends QuiltBaseFileSystem<FS, P>,
 		}
 	}
 
-	abstract P createPath(@Nullable P parent, String name);
+	/** Creates a new path object. Only {@link #createPath(QuiltBasePath, String)} should call this, so that every path
+	 * is interned. */
+	abstract P newPath(@Nullable P parent, String name);
+
+	/** @return The canonical path with the given parent and name. Paths are interned in a trie rooted at
+	 *         {@link #topLevelPaths}, so while a path is in use there is only one path object for its parent and name,
+	 *         which makes most comparisons identity checks. The trie only holds paths weakly (children hold their
+	 *         parents strongly, but not the other way around) so paths which were only used for a single lookup, or
+	 *         which were deleted, don't stay in memory for as long as the file system does. */
+	final P createPath(@Nullable P parent, String name) {
+		expungeCollectedPaths();
+
+		ConcurrentMap<String, PathRef<P>> siblings = parent == null ? topLevelPaths : parent.children();
+
+		while (true) {
+			PathRef<P> ref = siblings.get(name);
+			P path = ref == null ? null : ref.get();
+
+			if (path != null) {
+				return path;
+			}
+
+			P created = newPath(parent, name);
+			PathRef<P> createdRef = new PathRef<>(created, collectedPaths, siblings, name);
+
+			if (ref == null ? siblings.putIfAbsent(name, createdRef) == null : siblings.replace(name, ref, createdRef)) {
+				return created;
+			}
+		}
+	}
+
+	private void expungeCollectedPaths() {
+		Reference<? extends P> ref;
+
+		while ((ref = collectedPaths.poll()) != null) {
+			PathRef<?> pathRef = (PathRef<?>) ref;
+			pathRef.siblings.remove(pathRef.name, pathRef);
+		}
+	}
+
+	/** A weakly held entry in the path trie, which knows where it is so it can be removed once it's collected. */
+	static final class PathRef<P> extends WeakReference<P> {
+		final ConcurrentMap<String, PathRef<P>> siblings;
+		final String name;
+
+		PathRef(P path, ReferenceQueue<? super P> queue, ConcurrentMap<String, PathRef<P>> siblings, String name) {
+			super(path, queue);
+			this.siblings = siblings;
+			this.name = name;
+		}
+	}
+
+	/** Appends every name in the given '/' separated string to the given path, skipping empty names.
+	 *
+	 * @param path The path to start from, or null to start with a top-level (parentless) path. */
+	final P appendNames(@Nullable P path, String names) {
+		int length = names.length();
+		int start = 0;
+
+		while (start < length) {
+			int end = names.indexOf('/', start);
+
+			if (end < 0) {
+				end = length;
+			}
+
+			if (end > start) {
+				path = createPath(path, names.substring(start, end));
+			}
+
+			start = end + 1;
+		}
+
+		return path;
+	}
 
 	public String getName() {
 		return name;
@@ -169,15 +255,7 @@ public abstract class QuiltBaseFileSystem<FS extends QuiltBaseFileSystem<FS, P>,
 		}
 
 		if (more.length == 0) {
-			P path = first.startsWith("/") ? root : null;
-			for (String sub : first.split("/")) {
-				if (path == null) {
-					path = createPath(null, sub);
-				} else {
-					path = path.resolve(sub);
-				}
-			}
-			return path;
+			return appendNames(first.startsWith("/") ? root : null, first);
 		} else {
 			P path = createPath(null, first);
 			for (String sub : more) {
@@ -33,6 +33,8 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -60,6 +62,9 @@ implements Path
 
 	final int hash;
 
+	/** The interned children of this path, created when the first child is. */
+	private volatile ConcurrentMap<String, QuiltBaseFileSystem.PathRef<P>> children;
+
 	QuiltBasePath(FS fs, @Nullable P parent, String name) {
 		Objects.requireNonNull(fs, "filesystem");
 		Objects.requireNonNull(name, "name");
@@ -101,6 +106,22 @@ implements Path
 		this.hash = fs.hashCode() * 31 + (parent == null ? name.hashCode() : (parent.hash * 31 + name.hashCode()));
 	}
 
+	ConcurrentMap<String, QuiltBaseFileSystem.PathRef<P>> children() {
+		ConcurrentMap<String, QuiltBaseFileSystem.PathRef<P>> map = children;
+
+		if (map == null) {
+			synchronized (this) {
+				map = children;
+
+				if (map == null) {
+					children = map = new ConcurrentHashMap<>(4);
+				}
+			}
+		}
+
+		return map;
+	}
+
 	@Override
 	@Nullable
 	public P getParent() {
@@ -118,13 +139,14 @@ implements Path
 
 	@Override
 	public boolean equals(Object obj) {
+		// Paths in use are interned by QuiltBaseFileSystem.createPath, so this is almost always the answer
 		if (obj == this) return true;
 		if (obj == null) return false;
 		if (obj.getClass() != getClass()) {
 			return false;
 		}
 		QuiltBasePath<?,?> o = (QuiltBasePath<?, ?>) obj;
-		return fs == o.fs && nameCount == o.nameCount && name.equals(o.name) && Objects.equals(parent, o.parent);
+		return fs == o.fs && hash == o.hash && nameCount == o.nameCount && name.equals(o.name) && Objects.equals(parent, o.parent);
 	}
 
 	@Override
@@ -373,13 +395,7 @@ implements Path
 
 	@Override
 	public P resolve(String other) {
-		P p = getThisPath();
-		for (String s : other.split("/")) {
-			if (!s.isEmpty()) {
-				p = fs.createPath(p, s);
-			}
-		}
-		return p;
+		return fs.appendNames(getThisPath(), other);
 	}
 
 	@Override
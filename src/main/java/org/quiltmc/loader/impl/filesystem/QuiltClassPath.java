@@ -16,19 +16,27 @@
 
 package org.quiltmc.loader.impl.filesystem;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.quiltmc.loader.impl.util.UrlUtil;
+
 /** Essentially a {@link QuiltJoinedFileSystem} but which caches all paths in advance. Not exposed as a filesystem since
  * this is a bit more dynamic than that. */
 public class QuiltClassPath {
 
-	private final List<Path> roots = new ArrayList<>();
-	private final Map<String, Path> files = new HashMap<>();
+	private final List<ClassPathRoot> roots = new ArrayList<>();
+	/** Every file in every read-only root, keyed by its path <em>without</em> the leading slash, since that's how class
+	 * files are requested. */
+	private final Map<String, ClassPathResource> files = new HashMap<>();
 
 	public void addRoot(Path root) {
 		if (root instanceof QuiltJoinedPath) {
@@ -42,35 +50,104 @@ public class QuiltClassPath {
 			QuiltMemoryFileSystem fs = ((QuiltMemoryPath) root).fs;
 
 			if (fs instanceof QuiltMemoryFileSystem.ReadWrite) {
-				roots.add(root);
+				roots.add(new ClassPathRoot(root));
 			} else {
-				for (Path key : fs.files.keySet()) {
-					files.putIfAbsent(key.toString(), key);
+				ClassPathRoot cpRoot = new ClassPathRoot(fs.root);
+
+				for (Map.Entry<QuiltMemoryPath, QuiltMemoryEntry> entry : fs.files.entrySet()) {
+					QuiltMemoryPath key = entry.getKey();
+					QuiltMemoryEntry value = entry.getValue();
+					QuiltMemoryFile.ReadOnly file = value instanceof QuiltMemoryFile.ReadOnly ? (QuiltMemoryFile.ReadOnly) value : null;
+					files.putIfAbsent(key.toString().substring(1), new ClassPathResource(key, cpRoot, file));
 				}
 			}
 
 		} else {
-			roots.add(root);
+			roots.add(new ClassPathRoot(root));
 		}
 	}
 
 	public Path findResource(String path) {
-		String absolutePath = path;
-		if (!path.startsWith("/")) {
-			absolutePath = "/" + path;
-		}
-		Path quick = files.get(absolutePath);
+		ClassPathResource resource = resolve(path);
+		return resource != null ? resource.path : null;
+	}
+
+	/** Finds a resource, along with the root it came from. Resources in read-only in-memory roots are found with a
+	 * single map lookup, and reuse the same {@link ClassPathResource} every time.
+	 *
+	 * @return The resource, or null if no root contains it. */
+	public ClassPathResource resolve(String path) {
+		String relativePath = path.startsWith("/") ? path.substring(1) : path;
+		ClassPathResource quick = files.get(relativePath);
 		if (quick != null) {
 			return quick;
 		}
 
-		for (Path root : roots) {
-			Path ext = root.resolve(path);
+		for (ClassPathRoot root : roots) {
+			Path ext = root.path.resolve(relativePath);
 			if (Files.exists(ext)) {
-				return ext;
+				return new ClassPathResource(ext, root, null);
 			}
 		}
 
 		return null;
 	}
+
+	/** A root which was added to the class path, after expanding joined file systems. */
+	public static final class ClassPathRoot {
+		public final Path path;
+
+		private volatile CodeSource codeSource;
+
+		ClassPathRoot(Path path) {
+			this.path = path;
+		}
+
+		/** @return The {@link CodeSource} for every class loaded from this root. This is computed once, and then the same
+		 *         object is returned for every class. */
+		public CodeSource getCodeSource() {
+			CodeSource cs = codeSource;
+
+			if (cs == null) {
+				try {
+					cs = new CodeSource(UrlUtil.asUrl(path), (Certificate[]) null);
+				} catch (MalformedURLException e) {
+					throw new IllegalStateException("Unable to convert " + path + " to a url", e);
+				}
+
+				codeSource = cs;
+			}
+
+			return cs;
+		}
+	}
+
+	/** A resolved resource, and the root it was found in. */
+	public static final class ClassPathResource {
+		public final Path path;
+		public final ClassPathRoot root;
+
+		/** Set if the resource is a file in a read-only in-memory file system, which lets us skip the stream. */
+		private final QuiltMemoryFile.ReadOnly memoryFile;
+
+		ClassPathResource(Path path, ClassPathRoot root, QuiltMemoryFile.ReadOnly memoryFile) {
+			this.path = path;
+			this.root = root;
+			this.memoryFile = memoryFile;
+		}
+
+		/** @return True if this was read from a read-only in-memory file system. */
+		public boolean isInMemory() {
+			return memoryFile != null;
+		}
+
+		/** @return A new array containing every byte of this resource. */
+		public byte[] readAllBytes() throws IOException {
+			if (memoryFile != null) {
+				return memoryFile.readAllBytes();
+			}
+
+			return Files.readAllBytes(path);
+		}
+	}
 }
@@ -17,10 +17,14 @@
 package org.quiltmc.loader.impl.filesystem;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -28,19 +32,38 @@ import java.util.Map;
 import java.util.Set;
 
 import org.jetbrains.annotations.Nullable;
+import org.quiltmc.loader.impl.util.SystemProperties;
 
-/** A {@link FileSystem} that exposes multiple {@link Path}s in a single {@link FileSystem}. */
+/** A {@link FileSystem} that exposes multiple {@link Path}s in a single {@link FileSystem}.
+ * <p>
+ * If every backing path is on a read-only file system (or the creator promises that they won't change) then an index
+ * of every file and folder is built when this is created. Lookups then go straight to the backing path that owns each file, rather than
+ * trying each backing path in turn, and folder listings are already merged. */
 public class QuiltJoinedFileSystem extends QuiltBaseFileSystem<QuiltJoinedFileSystem, QuiltJoinedPath> {
 
 	final Path[] from;
 	final boolean[] shouldCloseFroms;
 	boolean isOpen = true;
 
+	/** Every file and folder in the backing paths, mapped to the first backing path which contains it. Null if this
+	 * isn't indexed. */
+	private final @Nullable Map<QuiltJoinedPath, Path> indexedPaths;
+
+	/** The merged children of every folder in {@link #indexedPaths}. Null if this isn't indexed. */
+	private final @Nullable Map<QuiltJoinedPath, List<QuiltJoinedPath>> indexedChildren;
+
 	public QuiltJoinedFileSystem(String name, List<Path> from) {
 		this(name, from, null);
 	}
 
 	public QuiltJoinedFileSystem(String name, List<Path> from, List<Boolean> shouldClose) {
+		this(name, from, shouldClose, false);
+	}
+
+	/** @param immutable True if the backing paths won't change while this is open, even though their file systems
+	 *            might not be read-only. For example a zip file system which is only written to before it's joined.
+	 *            This allows them to be indexed. */
+	public QuiltJoinedFileSystem(String name, List<Path> from, List<Boolean> shouldClose, boolean immutable) {
 		super(QuiltJoinedFileSystem.class, QuiltJoinedPath.class, name, true);
 
 		this.from = from.toArray(new Path[0]);
@@ -48,11 +71,99 @@ public class QuiltJoinedFileSystem extends QuiltBaseFileSystem<QuiltJoinedFileSy
 		for (int i = 0; i < shouldCloseFroms.length; i++) {
 			shouldCloseFroms[i] = shouldClose != null && shouldClose.get(i);
 		}
+
+		if (canIndex(immutable)) {
+			indexedPaths = new HashMap<>();
+			indexedChildren = new HashMap<>();
+
+			try {
+				for (Path path : this.from) {
+					index(root, path);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to index the joined file system " + name, e);
+			}
+		} else {
+			indexedPaths = null;
+			indexedChildren = null;
+		}
+
 		QuiltJoinedFileSystemProvider.register(this);
 	}
 
+	private boolean canIndex(boolean immutable) {
+		if (Boolean.getBoolean(SystemProperties.DISABLE_JOINED_FILE_SYSTEM_INDEX)) {
+			return false;
+		}
+
+		if (immutable) {
+			return true;
+		}
+
+		for (Path path : from) {
+			if (!path.getFileSystem().isReadOnly()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void index(QuiltJoinedPath joined, Path backing) throws IOException {
+		if (!indexedPaths.containsKey(joined)) {
+			indexedPaths.put(joined, backing);
+		}
+
+		if (!Files.isDirectory(backing)) {
+			return;
+		}
+
+		List<QuiltJoinedPath> children = indexedChildren.computeIfAbsent(joined, p -> new ArrayList<>());
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(backing)) {
+			for (Path child : stream) {
+				String childName = child.getFileName().toString();
+
+				if (childName.endsWith("/")) {
+					// Zip file systems include the separator in folder names
+					childName = childName.substring(0, childName.length() - 1);
+				}
+
+				QuiltJoinedPath joinedChild = createPath(joined, childName);
+
+				if (!indexedPaths.containsKey(joinedChild)) {
+					children.add(joinedChild);
+				}
+
+				index(joinedChild, child);
+			}
+		}
+	}
+
+	/** @return True if {@link #getIndexedPath(QuiltJoinedPath)} and {@link #getIndexedChildren(QuiltJoinedPath)} can be
+	 *         used instead of searching every backing path. */
+	boolean isIndexed() {
+		return indexedPaths != null;
+	}
+
+	/** @param path An absolute, normalised path in this file system.
+	 * @return The backing file or folder for the given path, or null if it doesn't exist. Only valid if
+	 *         {@link #isIndexed()}. */
+	@Nullable
+	Path getIndexedPath(QuiltJoinedPath path) {
+		return indexedPaths.get(path);
+	}
+
+	/** @param path An absolute, normalised path in this file system.
+	 * @return Every child of the given folder, in the order they were found in the backing paths, or null if the path
+	 *         isn't a folder. Only valid if {@link #isIndexed()}. */
+	@Nullable
+	List<QuiltJoinedPath> getIndexedChildren(QuiltJoinedPath path) {
+		return indexedChildren.get(path);
+	}
+
 	@Override
-	QuiltJoinedPath createPath(@Nullable QuiltJoinedPath parent, String name) {
+	QuiltJoinedPath newPath(@Nullable QuiltJoinedPath parent, String name) {
 		return new QuiltJoinedPath(this, parent, name);
 	}
 
@@ -104,6 +215,24 @@ public class QuiltJoinedFileSystem extends QuiltBaseFileSystem<QuiltJoinedFileSy
 		return supported;
 	}
 
+	/** @return An estimate of the memory used by this file system itself, not including its backing paths. This is
+	 *         almost entirely the {@link #isIndexed() index}, so is very small for file systems that aren't indexed. */
+	public long getEstimatedMemoryFootprint() {
+		long total = 60 + from.length * 4;
+
+		if (indexedPaths != null) {
+			for (QuiltJoinedPath path : indexedPaths.keySet()) {
+				total += path.name.length() + 28 + 32;
+			}
+
+			for (List<QuiltJoinedPath> children : indexedChildren.values()) {
+				total += 24 + children.size() * 4;
+			}
+		}
+
+		return total;
+	}
+
 	public int getBackingPathCount() {
 		return from.length;
 	}
@@ -163,6 +163,10 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 
 		QuiltJoinedPath p = (QuiltJoinedPath) path;
 
+		if (p.fs.isIndexed()) {
+			return Files.newInputStream(getIndexedPath(p), options);
+		}
+
 		int count = p.fs.getBackingPathCount();
 		for (int i = 0; i < count; i++) {
 			Path real = p.fs.getBackingPath(i, p);
@@ -194,6 +198,10 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 
 		QuiltJoinedPath p = (QuiltJoinedPath) path;
 
+		if (p.fs.isIndexed()) {
+			return Files.newByteChannel(getIndexedPath(p), options, attrs);
+		}
+
 		int count = p.fs.getBackingPathCount();
 		for (int i = 0; i < count; i++) {
 			Path real = p.fs.getBackingPath(i, p);
@@ -212,6 +220,11 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 	@Override
 	public DirectoryStream<Path> newDirectoryStream(Path dir, Filter<? super Path> filter) throws IOException {
 		QuiltJoinedPath qmp = (QuiltJoinedPath) dir;
+
+		if (qmp.fs.isIndexed()) {
+			return newIndexedDirectoryStream(qmp, filter);
+		}
+
 		return new DirectoryStream<Path>() {
 
 			final List<Path> backingPaths = new ArrayList<>();
@@ -355,6 +368,61 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 		};
 	}
 
+	private static DirectoryStream<Path> newIndexedDirectoryStream(QuiltJoinedPath dir, Filter<? super Path> filter) throws IOException {
+		QuiltJoinedPath abs = toAbsQuiltPath(dir);
+		List<QuiltJoinedPath> children = abs.fs.getIndexedChildren(abs);
+
+		if (children == null) {
+			if (abs.fs.getIndexedPath(abs) == null) {
+				throw new NoSuchFileException(dir.toString());
+			}
+			throw new NotDirectoryException(dir.toString());
+		}
+
+		List<Path> accepted = new ArrayList<>(children.size());
+
+		for (QuiltJoinedPath child : children) {
+			// Keep relative directories relative, like the unindexed stream
+			Path result = abs == dir ? child : dir.resolve(child.name);
+
+			if (filter.accept(result)) {
+				accepted.add(result);
+			}
+		}
+
+		return new DirectoryStream<Path>() {
+			boolean opened = false;
+
+			@Override
+			public Iterator<Path> iterator() {
+				if (opened) {
+					throw new IllegalStateException("newDirectoryStream only supports a single iteration!");
+				}
+				opened = true;
+				return accepted.iterator();
+			}
+
+			@Override
+			public void close() {
+				// Nothing to close
+			}
+		};
+	}
+
+	/** @param path A path in an {@link QuiltJoinedFileSystem#isIndexed() indexed} file system.
+	 * @return The backing path which contains the given path.
+	 * @throws NoSuchFileException if the path doesn't exist. */
+	private static Path getIndexedPath(QuiltJoinedPath path) throws NoSuchFileException {
+		QuiltJoinedPath abs = toAbsQuiltPath(path);
+		Path real = abs.fs.getIndexedPath(abs);
+
+		if (real == null) {
+			throw new NoSuchFileException(path.toString());
+		}
+
+		return real;
+	}
+
 	private static QuiltJoinedPath toAbsQuiltPath(Path path) {
 		Path p = path.toAbsolutePath().normalize();
 		if (p instanceof QuiltJoinedPath) {
@@ -415,6 +483,13 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 			}
 		}
 		QuiltJoinedPath quiltPath = toAbsQuiltPath(path);
+
+		if (quiltPath.fs.isIndexed()) {
+			Path real = getIndexedPath(quiltPath);
+			real.getFileSystem().provider().checkAccess(real, modes);
+			return;
+		}
+
 		for (int i = 0; i < quiltPath.fs.getBackingPathCount(); i++) {
 			Path real = quiltPath.fs.getBackingPath(i, quiltPath);
 			try {
@@ -431,6 +506,12 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
 
 		QuiltJoinedPath quiltPath = toAbsQuiltPath(path);
+
+		if (quiltPath.fs.isIndexed()) {
+			Path real = quiltPath.fs.getIndexedPath(quiltPath);
+			return real != null ? Files.getFileAttributeView(real, type, options) : null;
+		}
+
 		for (int i = 0; i < quiltPath.fs.getBackingPathCount(); i++) {
 			Path real = quiltPath.fs.getBackingPath(i, quiltPath);
 			V view = Files.getFileAttributeView(real, type, options);
@@ -446,6 +527,11 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 		throws IOException {
 
 		QuiltJoinedPath quiltPath = toAbsQuiltPath(path);
+
+		if (quiltPath.fs.isIndexed()) {
+			return Files.readAttributes(getIndexedPath(quiltPath), type, options);
+		}
+
 		for (int i = 0; i < quiltPath.fs.getBackingPathCount(); i++) {
 			Path real = quiltPath.fs.getBackingPath(i, quiltPath);
 			try {
@@ -461,6 +547,11 @@ public final class QuiltJoinedFileSystemProvider extends FileSystemProvider {
 	@Override
 	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
 		QuiltJoinedPath quiltPath = toAbsQuiltPath(path);
+
+		if (quiltPath.fs.isIndexed()) {
+			return Files.readAttributes(getIndexedPath(quiltPath), attributes, options);
+		}
+
 		for (int i = 0; i < quiltPath.fs.getBackingPathCount(); i++) {
 			Path real = quiltPath.fs.getBackingPath(i, quiltPath);
 			try {
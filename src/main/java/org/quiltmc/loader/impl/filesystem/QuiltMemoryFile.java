@@ -90,6 +90,34 @@ abstract class QuiltMemoryFile extends QuiltMemoryEntry {
 			return new QuiltFileAttributes(path, uncompressedSize);
 		}
 
+		/** @return A new array containing the whole (uncompressed) file, without going through an {@link InputStream} or
+		 *         any intermediate buffers. */
+		byte[] readAllBytes() throws IOException {
+			int offset = bytesOffset();
+
+			if (!isCompressed) {
+				return Arrays.copyOfRange(byteArray(), offset, offset + bytesLength());
+			}
+
+			byte[] result = new byte[uncompressedSize];
+
+			try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(byteArray(), offset, bytesLength()))) {
+				int position = 0;
+
+				while (position < uncompressedSize) {
+					int read = gzip.read(result, position, uncompressedSize - position);
+
+					if (read < 0) {
+						throw new IOException("Unable to read enough bytes from the gzip stream!");
+					}
+
+					position += read;
+				}
+			}
+
+			return result;
+		}
+
 		@Override
 		InputStream createInputStream() throws IOException {
 			InputStream direct = new ByteArrayInputStream(byteArray(), bytesOffset(), bytesLength());
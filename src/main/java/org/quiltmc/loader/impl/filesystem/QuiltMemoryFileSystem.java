@@ -75,7 +75,7 @@ public abstract class QuiltMemoryFileSystem extends QuiltBaseFileSystem<QuiltMem
 
 	@Override
 	@NotNull
-	QuiltMemoryPath createPath(@Nullable QuiltMemoryPath parent, String name) {
+	QuiltMemoryPath newPath(@Nullable QuiltMemoryPath parent, String name) {
 		return new QuiltMemoryPath(this, parent, name);
 	}
 
@@ -179,8 +179,8 @@ public abstract class QuiltMemoryFileSystem extends QuiltBaseFileSystem<QuiltMem
 		private QuiltMemoryFileStore.ReadOnly fileStore;
 		private Iterable<FileStore> fileStoreItr;
 
-		/** Only used if {@link #PACK_FILE_DATA} is true. */
-		final byte[] packedByteArray;
+		/** Only used if {@link #PACK_FILE_DATA} is true. Set to null by {@link #release()}. */
+		byte[] packedByteArray;
 
 		/** Creates a new read-only {@link FileSystem} that copies every file in the given directory.
 		 *
@@ -310,6 +310,16 @@ public abstract class QuiltMemoryFileSystem extends QuiltBaseFileSystem<QuiltMem
 			return fileStoreItr;
 		}
 
+		/** {@link #close() Closes} this file system, and then drops every file it contains, so the memory they use can
+		 * be reclaimed even if some of this file system's {@link Path}s are still reachable. Any path in this file system
+		 * will behave as if it doesn't exist afterwards, although streams which are already open can still be read.
+		 * (In other words, this should only be called by the owner of this filesystem). */
+		public synchronized void release() {
+			close();
+			files.clear();
+			packedByteArray = null;
+		}
+
 		public QuiltMemoryFileSystem.ReadWrite copyToWriteable(String newName) {
 			QuiltMemoryFileSystem.ReadWrite fs = new QuiltMemoryFileSystem.ReadWrite(newName, true);
 			copyPath(root, fs.root);
@@ -445,6 +455,19 @@ public abstract class QuiltMemoryFileSystem extends QuiltBaseFileSystem<QuiltMem
 			return fileStoreItr;
 		}
 
+		/** @return The total size of every file currently stored in this file system. */
+		public long getUsedSize() {
+			long total = 0;
+
+			for (QuiltMemoryEntry entry : files.values()) {
+				if (entry instanceof QuiltMemoryFile) {
+					total += entry.createAttributes().size();
+				}
+			}
+
+			return total;
+		}
+
 		@Override
 		public boolean isReadOnly() {
 			return false;
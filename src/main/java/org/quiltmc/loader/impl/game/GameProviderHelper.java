@@ -18,6 +18,7 @@
 package org.quiltmc.loader.impl.game;
 
 import org.quiltmc.loader.impl.util.LoaderUtil;
+import org.quiltmc.loader.impl.util.SystemProperties;
 
 import net.fabricmc.mapping.tree.TinyTree;
 
@@ -51,6 +52,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.jar.JarFile;
 import java.util.zip.ZipFile;
 
@@ -137,6 +139,13 @@ public final class GameProviderHelper {
 	}
 
 	private static boolean emittedInfo = false;
+	private static LazyGameRemapper lazyRemapper;
+
+	/** @return The remapper serving game classes on demand, or null if the game jars were remapped up-front (or didn't
+	 *         need remapping). See {@link SystemProperties#LAZY_GAME_REMAP}. */
+	public static LazyGameRemapper getLazyRemapper() {
+		return lazyRemapper;
+	}
 
 	public static Map<String, Path> deobfuscate(Map<String, Path> inputFileMap, String gameId, String gameVersion, Path gameDir, QuiltLauncher launcher) {
 		Log.debug(LogCategory.GAME_REMAP, "Requesting deobfuscation of %s", inputFileMap);
@@ -169,6 +178,34 @@ public final class GameProviderHelper {
 		}
 
 		Path deobfJarDir = getDeobfJarDir(gameDir, gameId, gameVersion);
+
+		if (Boolean.getBoolean(SystemProperties.LAZY_GAME_REMAP)) {
+			// Sorted so the class lookup order (and so the cache key) is stable
+			Map<String, Path> sortedInputs = new TreeMap<>(inputFileMap);
+			List<Path> inputFiles = new ArrayList<>(sortedInputs.values());
+
+			try {
+				lazyRemapper = LazyGameRemapper.create(
+					inputFiles, mappings, mappingConfig.getMappingsHash(), "official", targetNamespace,
+					deobfJarDir.resolve("lazy-" + targetNamespace)
+				);
+			} catch (IOException e) {
+				throw new RuntimeException("error preparing lazy remapping of game jars " + inputFiles, e);
+			}
+
+			Log.info(LogCategory.GAME_REMAP, "Game classes will be remapped as they are loaded");
+
+			// The resource jars stand in for the input jars, since those still contain the original classes
+			Map<String, Path> ret = new HashMap<>(sortedInputs.size());
+			int i = 0;
+
+			for (String name : sortedInputs.keySet()) {
+				ret.put(name, lazyRemapper.getResourceJars().get(i++));
+			}
+
+			return ret;
+		}
+
 		List<Path> inputFiles = new ArrayList<>(inputFileMap.size());
 		List<Path> outputFiles = new ArrayList<>(inputFileMap.size());
 		List<Path> tmpFiles = new ArrayList<>(inputFileMap.size());
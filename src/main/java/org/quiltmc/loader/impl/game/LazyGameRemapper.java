@@ -0,0 +1,741 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.mappings.ClassHierarchyIndex;
+import org.quiltmc.loader.impl.util.mappings.ClassHierarchyIndex.ClassEntry;
+import org.quiltmc.loader.impl.util.mappings.ClassHierarchyIndex.MemberEntry;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+import net.fabricmc.mapping.tree.ClassDef;
+import net.fabricmc.mapping.tree.Descriptored;
+import net.fabricmc.mapping.tree.TinyTree;
+
+/** Remaps game classes one at a time, the first time they are requested, instead of remapping whole jars up-front.
+ * <p>
+ * Inherited member references are resolved with a {@link ClassHierarchyIndex} of the input jars, which is built once
+ * and then saved. Every remapped class is written to a per-class cache folder, so each class is only remapped once
+ * for a given set of input jars and mappings.
+ * <p>
+ * Since the input jars still contain the original classes, they aren't put on the class path. Instead each one is
+ * replaced by a "resource jar" holding just its other files, with META-INF fixed up in the same way as
+ * {@code NonClassCopyMode.FIX_META_INF} does when the jars are remapped up-front. */
+public final class LazyGameRemapper {
+
+	private static final String INDEX_FILE_NAME = "hierarchy.bin";
+	private static final String INPUTS_FILE_NAME = "inputs.txt";
+	private static final String CLASSES_DIR_NAME = "classes";
+	private static final String RESOURCES_DIR_NAME = "resources";
+	private static final String SERVICES_DIR = "META-INF/services/";
+
+	/** Part of the cache key, so this should be incremented whenever remapped classes or resource jars would be
+	 * written differently. */
+	private static final int FORMAT_VERSION = 2;
+
+	private final List<Path> inputJars;
+	private final List<ZipFile> zips;
+	private final List<Path> resourceJars;
+	private final String sourceNamespace, targetNamespace;
+	private final ClassHierarchyIndex index;
+	private final Path classCacheDir;
+	private final String cacheKey;
+
+	/** Source class name to target class name. */
+	private final Map<String, String> classNames = new HashMap<>();
+	/** Target class name to source class name. */
+	private final Map<String, String> inverseClassNames = new HashMap<>();
+	/** Source class name to "name descriptor" to target field name, built the first time a class is looked at. */
+	private final Map<String, Map<String, String>> fieldNames = new ConcurrentHashMap<>();
+	/** Source class name to "name descriptor" to target method name, built the first time a class is looked at. */
+	private final Map<String, Map<String, String>> methodNames = new ConcurrentHashMap<>();
+	private final Map<String, ClassDef> classDefs = new HashMap<>();
+
+	private final Remapper hierarchyRemapper = new HierarchyRemapper();
+
+	private LazyGameRemapper(List<Path> inputJars, List<ZipFile> zips, List<Path> resourceJars, TinyTree mappings,
+		String sourceNamespace, String targetNamespace, ClassHierarchyIndex index, Path classCacheDir, String cacheKey) {
+
+		this.inputJars = inputJars;
+		this.zips = zips;
+		this.resourceJars = resourceJars;
+		this.sourceNamespace = sourceNamespace;
+		this.targetNamespace = targetNamespace;
+		this.index = index;
+		this.classCacheDir = classCacheDir;
+		this.cacheKey = cacheKey;
+
+		for (ClassDef def : mappings.getClasses()) {
+			String from = def.getName(sourceNamespace);
+			String to = def.getName(targetNamespace);
+			classDefs.put(from, def);
+
+			if (to != null && !from.equals(to)) {
+				classNames.put(from, to);
+			}
+
+			inverseClassNames.put(to != null ? to : from, from);
+		}
+	}
+
+	/** Opens the given jars for lazy remapping, loading (or building) their hierarchy index. The class cache and
+	 * resource jars are cleared if they were written for different jars, mappings, or by a different loader version.
+	 *
+	 * @param mappingsHash A hash of the mappings, from
+	 *            {@link org.quiltmc.loader.impl.launch.common.MappingConfiguration#getMappingsHash()}. */
+	static LazyGameRemapper create(List<Path> inputJars, TinyTree mappings, String mappingsHash, String sourceNamespace,
+		String targetNamespace, Path cacheDir) throws IOException {
+
+		Files.createDirectories(cacheDir);
+
+		ClassHierarchyIndex index = ClassHierarchyIndex.loadOrBuild(cacheDir.resolve(INDEX_FILE_NAME), inputJars);
+		String key = "format " + FORMAT_VERSION + "\nloader " + QuiltLoaderImpl.VERSION + "\nmappings " + mappingsHash
+			+ "\ninputs " + ClassHierarchyIndex.computeKey(inputJars) + "\nnamespace " + targetNamespace;
+		Path classCacheDir = cacheDir.resolve(CLASSES_DIR_NAME);
+		Path resourcesDir = cacheDir.resolve(RESOURCES_DIR_NAME);
+		Path inputsFile = cacheDir.resolve(INPUTS_FILE_NAME);
+
+		String previousKey = null;
+
+		try {
+			previousKey = new String(Files.readAllBytes(inputsFile), StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			// First launch
+		}
+
+		boolean changed = !key.equals(previousKey);
+
+		if (changed) {
+			if (previousKey != null) {
+				Log.info(LogCategory.GAME_REMAP, "Game jars or mappings changed, clearing the remapped class cache");
+			}
+
+			Files.deleteIfExists(inputsFile);
+
+			for (Path dir : new Path[] { classCacheDir, resourcesDir }) {
+				if (Files.exists(dir)) {
+					deleteRecursively(dir);
+				}
+			}
+		}
+
+		List<ZipFile> zips = new ArrayList<>(inputJars.size());
+		List<Path> resourceJars = new ArrayList<>(inputJars.size());
+
+		for (int i = 0; i < inputJars.size(); i++) {
+			Path jar = inputJars.get(i);
+			zips.add(new ZipFile(jar.toFile()));
+			// Prefixed by the index since different folders can contain jars with the same name
+			resourceJars.add(resourcesDir.resolve(i + "-" + jar.getFileName()));
+		}
+
+		LazyGameRemapper remapper = new LazyGameRemapper(
+			inputJars, zips, resourceJars, mappings, sourceNamespace, targetNamespace, index, classCacheDir, key
+		);
+
+		for (int i = 0; i < zips.size(); i++) {
+			if (!Files.exists(resourceJars.get(i))) {
+				remapper.writeResourceJar(zips.get(i), resourceJars.get(i));
+			}
+		}
+
+		if (changed) {
+			// Written last so an interrupted launch starts again from scratch
+			Files.write(inputsFile, key.getBytes(StandardCharsets.UTF_8));
+		}
+
+		return remapper;
+	}
+
+	private static void deleteRecursively(Path dir) throws IOException {
+		try (Stream<Path> stream = Files.walk(dir)) {
+			for (Path path : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/** @return The jars that remapped classes are read from. */
+	public List<Path> getInputJars() {
+		return inputJars;
+	}
+
+	/** @return A key which changes whenever the remapped classes or resource jars would, because the input jars,
+	 *         mappings, or loader version changed. */
+	public String getCacheKey() {
+		return cacheKey;
+	}
+
+	/** @return The resource jar for each input jar, in the same order as {@link #getInputJars()}. These should be put
+	 *         on the class path instead of the input jars. */
+	public List<Path> getResourceJars() {
+		return resourceJars;
+	}
+
+	/** @param className A class name in the target namespace, in either dot or slash format.
+	 * @return True if the class is (after remapping) present in one of the input jars. */
+	public boolean hasClass(String className) {
+		return getSourceName(className.replace('.', '/')) != null;
+	}
+
+	/** @param className A class name in the target namespace, in either dot or slash format.
+	 * @return The resource jar standing in for the jar that the given class is read from, which is also its code
+	 *         source, or null if it's not a game class. */
+	public Path getResourceJar(String className) {
+		String sourceName = getSourceName(className.replace('.', '/'));
+
+		if (sourceName == null) {
+			return null;
+		}
+
+		String entryName = sourceName + ".class";
+
+		for (int i = 0; i < zips.size(); i++) {
+			if (zips.get(i).getEntry(entryName) != null) {
+				return resourceJars.get(i);
+			}
+		}
+
+		return null;
+	}
+
+	private String getSourceName(String targetName) {
+		String sourceName = inverseClassNames.get(targetName);
+
+		if (sourceName == null && !classNames.containsKey(targetName)) {
+			// Not mapped, so it keeps its name
+			sourceName = targetName;
+		}
+
+		return sourceName != null && index.contains(sourceName) ? sourceName : null;
+	}
+
+	/** Returns the remapped bytes of the given class, remapping and caching it if this is the first time it has been
+	 * requested.
+	 *
+	 * @param className A class name in the target namespace, in either dot or slash format.
+	 * @return The remapped class, or null if it's not a game class. */
+	public byte[] getClassBytes(String className) throws IOException {
+		String targetName = className.replace('.', '/');
+		String sourceName = getSourceName(targetName);
+
+		if (sourceName == null) {
+			return null;
+		}
+
+		Path cached = classCacheDir.resolve(targetName + ".class");
+
+		try {
+			return Files.readAllBytes(cached);
+		} catch (NoSuchFileException e) {
+			// Not remapped yet
+		}
+
+		return remapClass(sourceName, cached);
+	}
+
+	/** Returns the remapped file for a ".class" resource, remapping and caching it if this is the first time it has
+	 * been requested. This lets resource lookups of game classes return the same bytes that classes are loaded from.
+	 *
+	 * @param resourceName A resource name, like "net/minecraft/class_1.class".
+	 * @return The cached remapped class file, or null if the resource isn't a game class. */
+	public Path getClassFile(String resourceName) throws IOException {
+		if (!resourceName.endsWith(".class")) {
+			return null;
+		}
+
+		String sourceName = getSourceName(resourceName.substring(0, resourceName.length() - ".class".length()));
+
+		if (sourceName == null) {
+			return null;
+		}
+
+		Path cached = classCacheDir.resolve(resourceName);
+
+		if (!Files.exists(cached) && remapClass(sourceName, cached) == null) {
+			return null;
+		}
+
+		return cached;
+	}
+
+	private byte[] remapClass(String sourceName, Path cached) throws IOException {
+		byte[] input = readSourceClass(sourceName);
+
+		if (input == null) {
+			return null;
+		}
+
+		ClassReader reader = new ClassReader(input);
+		ClassWriter writer = new ClassWriter(0);
+		reader.accept(new SourceFileRemapper(writer, hierarchyRemapper), 0);
+		byte[] output = writer.toByteArray();
+
+		Files.createDirectories(cached.getParent());
+		Path tmp = cached.resolveSibling(cached.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+		Files.write(tmp, output);
+
+		try {
+			Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		return output;
+	}
+
+	private byte[] readSourceClass(String sourceName) throws IOException {
+		String entryName = sourceName + ".class";
+
+		for (ZipFile zip : zips) {
+			ZipEntry entry = zip.getEntry(entryName);
+
+			if (entry != null) {
+				return readEntry(zip, entry);
+			}
+		}
+
+		return null;
+	}
+
+	private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+		try (InputStream is = zip.getInputStream(entry)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, (int) entry.getSize()));
+			byte[] buffer = new byte[8192];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				out.write(buffer, 0, len);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	/** Copies everything except the indexed classes from the given input jar to its resource jar, stripping signature
+	 * files and digests and remapping the class names in the manifest and service files. */
+	private void writeResourceJar(ZipFile zip, Path output) throws IOException {
+		Files.createDirectories(output.getParent());
+		Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(tmp))) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+
+				if (name.endsWith(".class") && index.contains(name.substring(0, name.length() - ".class".length()))) {
+					// Served by getClassFile instead
+					continue;
+				}
+
+				if (isSignatureFile(name)) {
+					continue;
+				}
+
+				byte[] data = entry.isDirectory() ? new byte[0] : readEntry(zip, entry);
+
+				if (name.equals(JarFile.MANIFEST_NAME)) {
+					data = fixManifest(data);
+				} else if (name.startsWith(SERVICES_DIR) && name.indexOf('/', SERVICES_DIR.length()) < 0 && !entry.isDirectory()) {
+					name = SERVICES_DIR + mapBinaryName(name.substring(SERVICES_DIR.length()));
+					data = fixServiceFile(data);
+				}
+
+				out.putNextEntry(new ZipEntry(name));
+				out.write(data);
+				out.closeEntry();
+			}
+		}
+
+		Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/** @return True if the given entry is part of a jar signature, which won't be valid once the classes are
+	 *         remapped. */
+	private static boolean isSignatureFile(String name) {
+		if (!name.startsWith("META-INF/") || name.indexOf('/', "META-INF/".length()) >= 0) {
+			return false;
+		}
+
+		String fileName = name.substring("META-INF/".length()).toUpperCase(Locale.ROOT);
+		return fileName.endsWith(".SF") || fileName.endsWith(".DSA") || fileName.endsWith(".RSA")
+			|| fileName.endsWith(".EC") || fileName.startsWith("SIG-");
+	}
+
+	private byte[] fixManifest(byte[] data) throws IOException {
+		Manifest manifest = new Manifest(new ByteArrayInputStream(data));
+		Attributes mainAttributes = manifest.getMainAttributes();
+
+		for (Attributes.Name name : new Attributes.Name[] { Attributes.Name.MAIN_CLASS, new Attributes.Name("Launcher-Agent-Class") }) {
+			String value = mainAttributes.getValue(name);
+
+			if (value != null) {
+				mainAttributes.put(name, mapBinaryName(value));
+			}
+		}
+
+		mainAttributes.remove(Attributes.Name.SIGNATURE_VERSION);
+
+		for (Iterator<Attributes> iter = manifest.getEntries().values().iterator(); iter.hasNext();) {
+			Attributes attributes = iter.next();
+			attributes.keySet().removeIf(key -> {
+				String name = key.toString();
+				return name.endsWith("-Digest") || name.contains("-Digest-") || name.equals("Magic");
+			});
+
+			if (attributes.isEmpty()) {
+				iter.remove();
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+		manifest.write(out);
+		return out.toByteArray();
+	}
+
+	private byte[] fixServiceFile(byte[] data) throws IOException {
+		StringBuilder sb = new StringBuilder();
+
+		for (String line : new String(data, StandardCharsets.UTF_8).split("\n", -1)) {
+			int end = line.indexOf('#');
+
+			if (end < 0) {
+				end = line.length();
+			}
+
+			String className = line.substring(0, end).trim();
+
+			if (!className.isEmpty()) {
+				line = line.replace(className, mapBinaryName(className));
+			}
+
+			if (sb.length() > 0) {
+				sb.append('\n');
+			}
+
+			sb.append(line);
+		}
+
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** @param name A class name in the source namespace, in dot format. */
+	private String mapBinaryName(String name) {
+		String mapped = classNames.get(name.replace('.', '/'));
+		return mapped != null ? mapped.replace('/', '.') : name;
+	}
+
+	private Map<String, String> getFieldNames(String owner) {
+		return fieldNames.computeIfAbsent(owner, o -> {
+			ClassDef def = classDefs.get(o);
+			Map<String, String> map = new HashMap<>();
+
+			if (def != null) {
+				putMembers(map, def.getFields());
+			}
+
+			return map;
+		});
+	}
+
+	private Map<String, String> getMethodNames(String owner) {
+		return methodNames.computeIfAbsent(owner, o -> {
+			ClassDef def = classDefs.get(o);
+			Map<String, String> map = new HashMap<>();
+
+			if (def != null) {
+				putMembers(map, def.getMethods());
+			}
+
+			return map;
+		});
+	}
+
+	private <T extends Descriptored> void putMembers(Map<String, String> map, Iterable<T> members) {
+		for (T member : members) {
+			String from = member.getName(sourceNamespace);
+			String to = member.getName(targetNamespace);
+
+			if (from != null && to != null && !from.equals(to)) {
+				map.put(from + " " + member.getDescriptor(sourceNamespace), to);
+			}
+		}
+	}
+
+	/** Finds the mapped name of a field reference, by resolving it in the same order as the JVM (JVMS 5.4.3.2): the
+	 * owner, then its super interfaces, and then its super class. Private and (from other packages) package-private
+	 * fields of super types are skipped, since they aren't inherited. */
+	private String findField(String owner, String name, String descriptor) {
+		ClassEntry entry = index.get(owner);
+
+		if (entry == null) {
+			return null;
+		}
+
+		String declaring = resolveField(entry, owner, name, descriptor, true, new HashSet<>());
+		return declaring != null ? getFieldNames(declaring).get(name + " " + descriptor) : null;
+	}
+
+	private String resolveField(ClassEntry entry, String owner, String name, String descriptor, boolean self, Set<String> visited) {
+		if (!visited.add(entry.name)) {
+			return null;
+		}
+
+		MemberEntry field = findDeclared(entry.fields, name, descriptor);
+
+		if (field != null && (self || isInherited(field, entry.name, owner))) {
+			return entry.name;
+		}
+
+		for (String itf : entry.interfaces) {
+			ClassEntry itfEntry = index.get(itf);
+
+			if (itfEntry != null) {
+				String declaring = resolveField(itfEntry, owner, name, descriptor, false, visited);
+
+				if (declaring != null) {
+					return declaring;
+				}
+			}
+		}
+
+		ClassEntry superEntry = entry.superName != null ? index.get(entry.superName) : null;
+		return superEntry != null ? resolveField(superEntry, owner, name, descriptor, false, visited) : null;
+	}
+
+	/** Finds the mapped name of a method reference, by resolving it in the same order as the JVM (JVMS 5.4.3.3 and
+	 * 5.4.3.4): the owner and then its super classes, and then the super interfaces of all of them. Private and (from
+	 * other packages) package-private methods of super types are skipped, as are static methods of super interfaces,
+	 * since they aren't inherited. */
+	private String findMethod(String owner, String name, String descriptor) {
+		ClassEntry entry = index.get(owner);
+
+		if (entry == null) {
+			return null;
+		}
+
+		String declaring = resolveMethod(entry, owner, name, descriptor);
+		return declaring != null ? getMethodNames(declaring).get(name + " " + descriptor) : null;
+	}
+
+	private String resolveMethod(ClassEntry ownerEntry, String owner, String name, String descriptor) {
+		List<String> interfaces = new ArrayList<>();
+		Set<String> visited = new HashSet<>();
+		boolean isInterface = (ownerEntry.access & Opcodes.ACC_INTERFACE) != 0;
+
+		// Interfaces only search themselves here, since their super class is always java/lang/Object
+		for (ClassEntry entry = ownerEntry; entry != null && visited.add(entry.name);) {
+			MemberEntry method = findDeclared(entry.methods, name, descriptor);
+
+			if (method != null && (entry == ownerEntry || isInherited(method, entry.name, owner))) {
+				return entry.name;
+			}
+
+			Collections.addAll(interfaces, entry.interfaces);
+			entry = !isInterface && entry.superName != null ? index.get(entry.superName) : null;
+		}
+
+		// Breadth first, so more specific interfaces are found before the interfaces they extend
+		for (int i = 0; i < interfaces.size(); i++) {
+			ClassEntry entry = index.get(interfaces.get(i));
+
+			if (entry == null || !visited.add(entry.name)) {
+				continue;
+			}
+
+			MemberEntry method = findDeclared(entry.methods, name, descriptor);
+
+			if (method != null && (method.access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC)) == 0) {
+				return entry.name;
+			}
+
+			Collections.addAll(interfaces, entry.interfaces);
+		}
+
+		return null;
+	}
+
+	private static MemberEntry findDeclared(MemberEntry[] members, String name, String descriptor) {
+		for (MemberEntry member : members) {
+			if (member.name.equals(name) && member.descriptor.equals(descriptor)) {
+				return member;
+			}
+		}
+
+		return null;
+	}
+
+	/** @return True if the given member of a super type is inherited by the given class. */
+	private static boolean isInherited(MemberEntry member, String declaring, String owner) {
+		if ((member.access & Opcodes.ACC_PRIVATE) != 0) {
+			return false;
+		}
+
+		if ((member.access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) {
+			return true;
+		}
+
+		return getPackage(declaring).equals(getPackage(owner));
+	}
+
+	private static String getPackage(String internalName) {
+		int slash = internalName.lastIndexOf('/');
+		return slash < 0 ? "" : internalName.substring(0, slash);
+	}
+
+	/** Finds the only method in the given interface (or its super interfaces) with the given name, for lambda
+	 * metafactory call sites where only the name and interface are known. */
+	private String findInterfaceMethod(String owner, String name, Set<String> visited) {
+		if (!visited.add(owner)) {
+			return null;
+		}
+
+		ClassEntry entry = index.get(owner);
+
+		if (entry == null) {
+			return null;
+		}
+
+		String found = null;
+
+		for (MemberEntry method : entry.methods) {
+			if (method.name.equals(name)) {
+				String mapped = getMethodNames(owner).get(name + " " + method.descriptor);
+
+				if (mapped != null) {
+					if (found != null && !found.equals(mapped)) {
+						// Ambiguous
+						return null;
+					}
+
+					found = mapped;
+				}
+			}
+		}
+
+		if (found != null) {
+			return found;
+		}
+
+		for (String itf : entry.interfaces) {
+			found = findInterfaceMethod(itf, name, visited);
+
+			if (found != null) {
+				return found;
+			}
+		}
+
+		return null;
+	}
+
+	final class HierarchyRemapper extends Remapper {
+		@Override
+		public String map(String internalName) {
+			return classNames.getOrDefault(internalName, internalName);
+		}
+
+		@Override
+		public String mapMethodName(String owner, String name, String descriptor) {
+			if (name.startsWith("<") || owner.startsWith("[")) {
+				return name;
+			}
+
+			String mapped = findMethod(owner, name, descriptor);
+			return mapped != null ? mapped : name;
+		}
+
+		@Override
+		public String mapFieldName(String owner, String name, String descriptor) {
+			String mapped = findField(owner, name, descriptor);
+			return mapped != null ? mapped : name;
+		}
+
+		@Override
+		public String mapRecordComponentName(String owner, String name, String descriptor) {
+			return mapFieldName(owner, name, descriptor);
+		}
+
+		@Override
+		public String mapInvokeDynamicMethodName(String name, String descriptor) {
+			Type returnType = Type.getReturnType(descriptor);
+
+			if (returnType.getSort() != Type.OBJECT) {
+				return name;
+			}
+
+			String mapped = findInterfaceMethod(returnType.getInternalName(), name, new HashSet<>());
+			return mapped != null ? mapped : name;
+		}
+	}
+
+	/** Rewrites the source file attribute to match the remapped outer class name, since the obfuscated names don't
+	 * give anything useful in stack traces. */
+	static final class SourceFileRemapper extends ClassRemapper {
+		SourceFileRemapper(ClassVisitor classVisitor, Remapper remapper) {
+			super(QuiltLoaderImpl.ASM_VERSION, classVisitor, remapper);
+		}
+
+		@Override
+		public void visitSource(String source, String debug) {
+			String mappedName = remapper.map(className);
+			int start = mappedName.lastIndexOf('/') + 1;
+			int end = mappedName.indexOf('$', start);
+			String outer = end < 0 ? mappedName.substring(start) : mappedName.substring(start, end);
+			super.visitSource(outer + ".java", debug);
+		}
+	}
+}
@@ -45,6 +45,7 @@ import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.gui.QuiltJsonGui.QuiltBasicButtonAction;
 import org.quiltmc.loader.impl.gui.QuiltJsonGui.QuiltJsonGuiMessage;
 import org.quiltmc.loader.impl.gui.QuiltJsonGui.QuiltJsonGuiTreeTab;
+import org.quiltmc.loader.impl.metrics.ModMemoryMetrics;
 import org.quiltmc.loader.impl.plugin.QuiltPluginErrorImpl;
 import org.quiltmc.loader.impl.plugin.gui.GuiManagerImpl;
 import org.quiltmc.loader.impl.report.QuiltReport;
@@ -117,6 +118,11 @@ public final class QuiltGuiEntry {
 			} catch (Throwable t) {
 				report.addStacktraceSection("Exception while building the mods table", 0, t);
 			}
+			try {
+				ModMemoryMetrics.get().appendReport(report.addStringSection("Mod Memory", 100)::lines);
+			} catch (Throwable t) {
+				report.addStacktraceSection("Exception while building the mod memory table", 100, t);
+			}
 
 			Path crashReportFile = null;
 			String crashReportText = null;
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.launch.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+import javax.management.JMException;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.UrlUtil;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Manages a class data sharing (AppCDS) archive of the classes loaded from the app class path - which is loader
+ * itself, and all of its libraries (asm, sat4j, mixin, tiny-remapper, etc). The JVM can map those classes straight
+ * from the archive instead of reading, verifying, and defining each one again every time the game starts.
+ * <p>
+ * When {@link SystemProperties#CLASS_DATA_SHARING} is set the archive is written to {@value #ARCHIVE_NAME} in the .quilt
+ * folder once knot has finished starting up, unless an up-to-date archive is already there. Alongside it is a stamp file
+ * recording the loader jar, JVM, and class path that it was created with, which is used to tell if the archive is
+ * stale. The archive is only used if the game is started with {@code -XX:SharedArchiveFile=<archive>}, which is logged
+ * after it's been created.
+ * <p>
+ * The archive is written with the {@code VM.cds static_dump} diagnostic command, which needs java 17 or later. Older
+ * JVMs (13 and later) can create one instead by starting with {@code -XX:ArchiveClassesAtExit=<archive>}, in which case
+ * only the stamp file is written here. */
+public final class ClassDataSharing {
+
+	public static final String ARCHIVE_NAME = "quilt-loader.jsa";
+	private static final String STAMP_SUFFIX = ".properties";
+
+	private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+	private static final String CDS_OPERATION = "vmCds";
+
+	private static final String SHARED_ARCHIVE_ARG = "-XX:SharedArchiveFile=";
+	private static final String ARCHIVE_AT_EXIT_ARG = "-XX:ArchiveClassesAtExit=";
+
+	private ClassDataSharing() {}
+
+	/** Checks that the archive this JVM was started with (if it's ours) isn't stale, and then writes a new archive (on a
+	 * background thread) if {@link SystemProperties#CLASS_DATA_SHARING} is set and the archive is missing or stale. This
+	 * should be called once nearly everything that loader needs has been loaded.
+	 *
+	 * @param cacheDir The .quilt folder. */
+	public static void update(Path cacheDir) {
+		Path archive = cacheDir.resolve(ARCHIVE_NAME).toAbsolutePath().normalize();
+		Path stampFile = archive.resolveSibling(ARCHIVE_NAME + STAMP_SUFFIX);
+		boolean enabled = Boolean.getBoolean(SystemProperties.CLASS_DATA_SHARING);
+
+		List<String> jvmArgs;
+
+		try {
+			jvmArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		} catch (LinkageError | SecurityException e) {
+			return;
+		}
+
+		boolean usingArchive = isArgFor(jvmArgs, SHARED_ARCHIVE_ARG, archive);
+		boolean archivingAtExit = isArgFor(jvmArgs, ARCHIVE_AT_EXIT_ARG, archive);
+
+		if (!usingArchive && !archivingAtExit && !enabled) {
+			return;
+		}
+
+		Properties expected;
+
+		try {
+			expected = createStamp();
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to check the class data sharing archive!", e);
+			return;
+		}
+
+		if (expected == null) {
+			if (enabled) {
+				Log.warn(LogCategory.GENERAL, "Class data sharing is only supported when quilt loader is run from a jar!");
+			}
+			return;
+		}
+
+		boolean upToDate = Files.isRegularFile(archive) && expected.equals(readStamp(stampFile));
+
+		if (archivingAtExit) {
+			// The JVM will (re)write the archive itself when it exits
+			writeStamp(stampFile, expected);
+			return;
+		}
+
+		if (upToDate) {
+			Log.debug(LogCategory.GENERAL, "The class data sharing archive %s is up to date", archive);
+			return;
+		}
+
+		if (usingArchive && !enabled) {
+			Log.warn(LogCategory.GENERAL, "The class data sharing archive %s is out of date, so the JVM may not be able to use it!", archive);
+			Log.warn(LogCategory.GENERAL, "Start the game with -D%s=true to recreate it.", SystemProperties.CLASS_DATA_SHARING);
+			return;
+		}
+
+		Thread thread = new Thread(() -> dump(archive, stampFile, expected, usingArchive), "Quilt CDS Dump");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static void dump(Path archive, Path stampFile, Properties stamp, boolean usingArchive) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name;
+
+		try {
+			name = new ObjectName(DIAGNOSTIC_COMMAND);
+
+			if (!hasOperation(server, name, CDS_OPERATION)) {
+				Log.warn(LogCategory.GENERAL, "This JVM can't create class data sharing archives while running (java 17 or later is needed).");
+				Log.warn(LogCategory.GENERAL, "Start the game once with %s%s to create one when it exits instead.", ARCHIVE_AT_EXIT_ARG, archive);
+				return;
+			}
+		} catch (JMException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to find the diagnostic command MBean!", e);
+			return;
+		}
+
+		// The JVM might have the current archive mapped, so the new one is written next to it and then moved over it
+		Path temp = archive.resolveSibling(ARCHIVE_NAME + ".tmp");
+		long start = System.nanoTime();
+
+		try {
+			Files.createDirectories(archive.getParent());
+			Files.deleteIfExists(temp);
+
+			Object[] params = { new String[] { "static_dump", temp.toString() } };
+			String[] signature = { String[].class.getName() };
+			Object output = server.invoke(name, CDS_OPERATION, params, signature);
+
+			if (!Files.isRegularFile(temp)) {
+				Log.warn(LogCategory.GENERAL, "Failed to create the class data sharing archive: %s", output);
+				return;
+			}
+
+			Files.deleteIfExists(stampFile);
+			Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | JMException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to create the class data sharing archive " + archive, e);
+			return;
+		}
+
+		writeStamp(stampFile, stamp);
+		Log.info(LogCategory.GENERAL, "Created the class data sharing archive %s in %dms", archive, (System.nanoTime() - start) / 1_000_000);
+
+		if (!usingArchive) {
+			Log.info(LogCategory.GENERAL, "Add %s%s to the JVM arguments to start faster.", SHARED_ARCHIVE_ARG, archive);
+		}
+	}
+
+	private static boolean hasOperation(MBeanServer server, ObjectName name, String operation) throws JMException {
+		if (!server.isRegistered(name)) {
+			return false;
+		}
+
+		for (MBeanOperationInfo info : server.getMBeanInfo(name).getOperations()) {
+			if (info.getName().equals(operation)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isArgFor(List<String> jvmArgs, String prefix, Path archive) {
+		for (String arg : jvmArgs) {
+			if (arg.startsWith(prefix)) {
+				try {
+					// The archive can also be given as "static.jsa:dynamic.jsa"
+					for (String file : arg.substring(prefix.length()).split(File.pathSeparator)) {
+						if (Paths.get(file).toAbsolutePath().normalize().equals(archive)) {
+							return true;
+						}
+					}
+				} catch (RuntimeException e) {
+					// Not a valid path, so it can't be ours
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/** @return Everything that the archive depends on, or null if loader isn't in a jar (since the JVM can't archive
+	 *         classes loaded from directories). */
+	private static Properties createStamp() throws IOException {
+		Path loaderJar;
+
+		try {
+			loaderJar = UrlUtil.asPath(ClassDataSharing.class.getProtectionDomain().getCodeSource().getLocation());
+		} catch (Exception e) {
+			throw new IOException("Failed to find the loader jar", e);
+		}
+
+		if (!Files.isRegularFile(loaderJar)) {
+			return null;
+		}
+
+		Properties stamp = new Properties();
+		stamp.setProperty("loader.version", QuiltLoaderImpl.VERSION);
+		stamp.setProperty("loader.jar", loaderJar.toAbsolutePath().toString());
+		stamp.setProperty("loader.jar.size", Long.toString(Files.size(loaderJar)));
+		stamp.setProperty("loader.jar.modified", Long.toString(Files.getLastModifiedTime(loaderJar).toMillis()));
+		stamp.setProperty("java.vm.version", System.getProperty("java.vm.version", ""));
+		stamp.setProperty("java.home", System.getProperty("java.home", ""));
+		stamp.setProperty("java.class.path", System.getProperty("java.class.path", ""));
+		return stamp;
+	}
+
+	private static Properties readStamp(Path stampFile) {
+		if (!Files.isRegularFile(stampFile)) {
+			return null;
+		}
+
+		Properties stamp = new Properties();
+
+		try (Reader reader = Files.newBufferedReader(stampFile)) {
+			stamp.load(reader);
+		} catch (IOException e) {
+			Log.debug(LogCategory.GENERAL, "Failed to read " + stampFile, e);
+			return null;
+		}
+
+		return stamp;
+	}
+
+	private static void writeStamp(Path stampFile, Properties stamp) {
+		try {
+			Files.createDirectories(stampFile.getParent());
+
+			try (Writer writer = Files.newBufferedWriter(stampFile)) {
+				stamp.store(writer, "Quilt Loader class data sharing archive stamp");
+			}
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to write " + stampFile, e);
+		}
+	}
+}
@@ -17,12 +17,18 @@
 package org.quiltmc.loader.impl.launch.common;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.jar.Attributes.Name;
 import java.util.jar.Manifest;
@@ -31,16 +37,23 @@ import java.util.zip.ZipError;
 import net.fabricmc.mapping.tree.TinyMappingFactory;
 import net.fabricmc.mapping.tree.TinyTree;
 
+import org.quiltmc.loader.impl.metrics.StartupTimeline;
+import org.quiltmc.loader.impl.util.HashUtil;
 import org.quiltmc.loader.impl.util.ManifestUtil;
 import org.quiltmc.loader.impl.util.log.Log;
 import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.quiltmc.loader.impl.util.mappings.CompiledMappings;
 
 public final class MappingConfiguration {
+	private static final String COMPILED_MAPPINGS_DIR_NAME = "mappings"; // relative to cache dir
+
 	private boolean initialized;
+	private Path cacheDir;
 
 	private String gameId;
 	private String gameVersion;
 	private TinyTree mappings;
+	private String mappingsHash;
 
 	public String getGameId() {
 		initialize();
@@ -67,6 +80,20 @@ public final class MappingConfiguration {
 		return mappings;
 	}
 
+	/** @return A hash of the raw mappings file, or an empty string if there aren't any mappings. This changes whenever
+	 *         the mappings do, so it can be used as part of a cache key for anything derived from them. */
+	public String getMappingsHash() {
+		initialize();
+
+		return mappingsHash;
+	}
+
+	/** Sets the directory that compiled mappings are stored in. If this isn't set before the mappings are first
+	 * requested then the tiny file is parsed directly, and nothing is cached. */
+	public void setCacheDirectory(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
 	public String getTargetNamespace() {
 		return QuiltLauncherBase.getLauncher().isDevelopment() ? "named" : "intermediary";
 	}
@@ -102,13 +129,22 @@ public final class MappingConfiguration {
 					}
 				}
 
-				try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+				try (InputStream stream = connection.getInputStream()) {
 					long time = System.currentTimeMillis();
-					TinyTree mappings = TinyMappingFactory.loadWithDetection(reader);
+					TinyTree mappings;
+
+					byte[] raw = readFully(stream);
+					String hash = HashUtil.hashToHex(HashUtil.computeHash(raw));
+
+					try (StartupTimeline.Phase phase = StartupTimeline.begin("mappings", "loadMappings")) {
+						mappings = loadMappings(raw, hash);
+					}
+
 					Log.debug(LogCategory.MAPPINGS, "Loading mappings took %d ms", System.currentTimeMillis() - time);
 
 					if (mappings.getMetadata().getNamespaces().contains(getTargetNamespace())) {
 						this.mappings = mappings;
+						this.mappingsHash = hash;
 						break;
 					}
 
@@ -122,8 +158,53 @@ public final class MappingConfiguration {
 		if (mappings == null) {
 			Log.info(LogCategory.MAPPINGS, "Mappings not present!");
 			mappings = TinyMappingFactory.EMPTY_TREE;
+			mappingsHash = "";
 		}
 
 		initialized = true;
 	}
+
+	private TinyTree loadMappings(byte[] raw, String hash) throws IOException {
+		if (cacheDir == null) {
+			return parseMappings(raw);
+		}
+
+		Path compiled = cacheDir.resolve(COMPILED_MAPPINGS_DIR_NAME).resolve(hash + CompiledMappings.FILE_EXTENSION);
+
+		if (Files.isRegularFile(compiled)) {
+			try {
+				return CompiledMappings.open(compiled);
+			} catch (IOException e) {
+				Log.warn(LogCategory.MAPPINGS, "Failed to read compiled mappings " + compiled + ", recompiling them", e);
+			}
+		}
+
+		TinyTree parsed = parseMappings(raw);
+
+		try {
+			CompiledMappings.write(parsed, compiled);
+			return CompiledMappings.open(compiled);
+		} catch (IOException e) {
+			Log.warn(LogCategory.MAPPINGS, "Failed to compile mappings to " + compiled, e);
+			return parsed;
+		}
+	}
+
+	private static TinyTree parseMappings(byte[] raw) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(raw), StandardCharsets.UTF_8))) {
+			return TinyMappingFactory.loadWithDetection(reader);
+		}
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[0x4000];
+		int count;
+
+		while ((count = stream.read(buffer)) > 0) {
+			out.write(buffer, 0, count);
+		}
+
+		return out.toByteArray();
+	}
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.quiltmc.json5.JsonReader;
+import org.quiltmc.json5.JsonToken;
+import org.quiltmc.loader.api.plugin.ModContainerExt;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Reads every mixin config, and the refmaps they reference, into memory before {@link QuiltMixinBootstrap} registers
+ * them with mixin. Mixin registers (and later selects) configs one at a time, reading each file through
+ * {@link QuiltLauncher#getResourceAsStream(String)} or the mod's file system as it goes - with hundreds of configs that
+ * becomes a long serial stall, so instead the files are all read in parallel up front, and handed to mixin from memory
+ * by {@link #open(String)}.
+ * <p>
+ * Each prefetched file is dropped once it has been read as many times as it's expected to be, and anything left over is
+ * dropped by {@link #clear()}. Files that weren't prefetched (or that failed to read) are just read normally. */
+public final class MixinResourcePrefetcher {
+
+	/** The key mixin uses for a config's refmap. */
+	private static final String REFMAP_KEY = "refmap";
+
+	private static final Map<String, Prefetched> PREFETCHED = new ConcurrentHashMap<>();
+
+	private MixinResourcePrefetcher() {}
+
+	/** @param configs Every config that will be passed to mixin, mapped to the mod it should be read from, or null if
+	 *            it should be read through the launcher. */
+	static void prefetch(Map<String, ModContainerExt> configs) {
+		int threads = Integer.getInteger(SystemProperties.MIXIN_PREFETCH_THREADS, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+		if (threads <= 0 || configs.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		ExecutorService executor = threads == 1 ? null : Executors.newFixedThreadPool(Math.min(threads, configs.size()), r -> {
+			Thread thread = new Thread(r, "Quilt Mixin Prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			List<Callable<String>> configTasks = new ArrayList<>();
+
+			for (Map.Entry<String, ModContainerExt> entry : configs.entrySet()) {
+				String name = entry.getKey();
+				ModContainerExt mod = entry.getValue();
+				configTasks.add(() -> {
+					byte[] bytes = mod == null ? readFromLauncher(name) : readFromMod(mod, name);
+
+					if (bytes == null) {
+						return null;
+					}
+
+					PREFETCHED.put(name, new Prefetched(bytes, 1));
+					return readRefmapName(name, bytes);
+				});
+			}
+
+			// Refmaps are read through the launcher, and are often shared between all of a mod's configs
+			Map<String, Integer> refmaps = new HashMap<>();
+
+			for (String refmap : runAll(executor, configTasks)) {
+				if (refmap != null) {
+					refmaps.merge(refmap, 1, Integer::sum);
+				}
+			}
+
+			List<Callable<String>> refmapTasks = new ArrayList<>();
+
+			for (Map.Entry<String, Integer> entry : refmaps.entrySet()) {
+				String name = entry.getKey();
+				int reads = entry.getValue();
+				refmapTasks.add(() -> {
+					byte[] bytes = readFromLauncher(name);
+
+					if (bytes != null) {
+						PREFETCHED.put(name, new Prefetched(bytes, reads));
+					}
+
+					return null;
+				});
+			}
+
+			runAll(executor, refmapTasks);
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+
+		Log.debug(LogCategory.MIXIN, "Prefetched %d mixin configs and refmaps in %dms", PREFETCHED.size(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static List<String> runAll(ExecutorService executor, List<Callable<String>> tasks) {
+		List<String> results = new ArrayList<>(tasks.size());
+
+		if (executor == null) {
+			for (Callable<String> task : tasks) {
+				results.add(run(task));
+			}
+
+			return results;
+		}
+
+		List<Future<String>> futures = new ArrayList<>(tasks.size());
+
+		for (Callable<String> task : tasks) {
+			futures.add(executor.submit(() -> run(task)));
+		}
+
+		for (Future<String> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				// Anything left over will be read by mixin instead
+				break;
+			} catch (ExecutionException e) {
+				// run() doesn't throw
+				throw new IllegalStateException(e);
+			}
+		}
+
+		return results;
+	}
+
+	private static String run(Callable<String> task) {
+		try {
+			return task.call();
+		} catch (Exception e) {
+			// Mixin will read (and report) this itself later
+			Log.debug(LogCategory.MIXIN, "Failed to prefetch a mixin resource", e);
+			return null;
+		}
+	}
+
+	/** Mirrors MixinServiceKnot.getResourceAsStream for "#modid:path" config names. */
+	private static byte[] readFromMod(ModContainerExt mod, String name) throws IOException {
+		String resource = name.substring(name.indexOf(':') + 1);
+		Path path = mod.rootPath().resolve(resource);
+
+		if (!Files.exists(path)) {
+			return null;
+		}
+
+		return Files.readAllBytes(path);
+	}
+
+	private static byte[] readFromLauncher(String name) throws IOException {
+		try (InputStream stream = QuiltLauncherBase.getLauncher().getResourceAsStream(name)) {
+			if (stream == null) {
+				return null;
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(stream.available(), 1024));
+			byte[] buffer = new byte[8192];
+			int read;
+
+			while ((read = stream.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	/** @return The refmap named by the given config, or null if it doesn't name one (or isn't valid json, in which case
+	 *         mixin will report the error). */
+	private static String readRefmapName(String config, byte[] bytes) {
+		try (JsonReader reader = JsonReader.json(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+				return null;
+			}
+
+			reader.beginObject();
+
+			while (reader.hasNext()) {
+				if (REFMAP_KEY.equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+					return reader.nextString();
+				}
+
+				reader.skipValue();
+			}
+
+			return null;
+		} catch (IOException | RuntimeException e) {
+			Log.debug(LogCategory.MIXIN, "Failed to find the refmap of mixin config " + config, e);
+			return null;
+		}
+	}
+
+	/** @return A stream of the prefetched resource, or null if the resource wasn't prefetched (or has already been read
+	 *         as many times as it was expected to be). */
+	public static InputStream open(String name) {
+		if (PREFETCHED.isEmpty()) {
+			return null;
+		}
+
+		Prefetched prefetched = PREFETCHED.get(name);
+
+		if (prefetched == null) {
+			return null;
+		}
+
+		if (prefetched.readsLeft.decrementAndGet() <= 0) {
+			PREFETCHED.remove(name, prefetched);
+		}
+
+		return new ByteArrayInputStream(prefetched.bytes);
+	}
+
+	/** Drops every prefetched resource that mixin hasn't read yet. Called once the game is about to start, since by then
+	 * mixin has normally read everything it's going to. */
+	public static void clear() {
+		PREFETCHED.clear();
+	}
+
+	private static final class Prefetched {
+		final byte[] bytes;
+		final AtomicInteger readsLeft;
+
+		Prefetched(byte[] bytes, int reads) {
+			this.bytes = bytes;
+			this.readsLeft = new AtomicInteger(reads);
+		}
+	}
+}
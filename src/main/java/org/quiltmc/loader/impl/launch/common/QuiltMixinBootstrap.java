@@ -48,6 +48,7 @@ import org.spongepowered.asm.mixin.transformer.Config;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -71,6 +72,22 @@ public final class QuiltMixinBootstrap {
 				.collect(Collectors.toSet());
 	}
 
+	private static void prefetchConfigs(QuiltLoaderImpl loader, EnvType side, Set<String> plainConfigs) {
+		Map<String, ModContainerExt> configs = new LinkedHashMap<>();
+
+		for (String config : plainConfigs) {
+			configs.put(config, null);
+		}
+
+		for (ModContainerExt mod : loader.getAllModsExt()) {
+			for (String config : mod.metadata().mixins(side)) {
+				configs.put("#" + mod.metadata().id() + ":" + config, mod);
+			}
+		}
+
+		MixinResourcePrefetcher.prefetch(configs);
+	}
+
 	public static void init(EnvType side, QuiltLoaderImpl loader) {
 		if (initialized) {
 			throw new IllegalStateException("QuiltMixinBootstrap has already been initialized!");
@@ -98,8 +115,11 @@ public final class QuiltMixinBootstrap {
 			}
 		}
 
+		Set<String> plainConfigs = getMixinConfigs(loader, side);
+		prefetchConfigs(loader, side, plainConfigs);
+
 		MixinBootstrap.init();
-		getMixinConfigs(loader, side).forEach(QuiltMixinBootstrap::addConfiguration);
+		plainConfigs.forEach(QuiltMixinBootstrap::addConfiguration);
 
 		Map<String, ModContainerExt> configToModMap = new HashMap<>();
 
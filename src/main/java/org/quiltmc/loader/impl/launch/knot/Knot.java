@@ -18,13 +18,19 @@ package org.quiltmc.loader.impl.launch.knot;
 
 import net.fabricmc.api.EnvType;
 
+import org.quiltmc.loader.api.plugin.ModContainerExt;
 import org.quiltmc.loader.impl.FormattedException;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.config.QuiltConfigImpl;
 import org.quiltmc.loader.impl.entrypoint.EntrypointUtils;
 import org.quiltmc.loader.impl.game.GameProvider;
+import org.quiltmc.loader.impl.launch.common.ClassDataSharing;
+import org.quiltmc.loader.impl.launch.common.MixinResourcePrefetcher;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.launch.common.QuiltMixinBootstrap;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics;
+import org.quiltmc.loader.impl.metrics.ModMemoryMetrics;
+import org.quiltmc.loader.impl.metrics.StartupTimeline;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.UrlUtil;
 import org.quiltmc.loader.impl.util.log.Log;
@@ -121,7 +127,11 @@ public final class Knot extends QuiltLauncherBase {
 			classPath.add(path);
 		}
 
-		provider = createGameProvider(args);
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "createGameProvider")) {
+			provider = createGameProvider(args);
+		}
+
+		getMappingConfiguration().setCacheDirectory(provider.getLaunchDirectory().resolve(QuiltLoaderImpl.CACHE_DIR_NAME));
 		Log.info(LogCategory.GAME_PROVIDER, "Loading %s %s with Quilt Loader %s", provider.getGameName(), provider.getRawGameVersion(), QuiltLoaderImpl.VERSION);
 
 		isDevelopment = Boolean.parseBoolean(System.getProperty(SystemProperties.DEVELOPMENT, "false"));
@@ -132,27 +142,49 @@ public final class Knot extends QuiltLauncherBase {
 		classLoader = useCompatibility ? new KnotCompatibilityClassLoader(isDevelopment(), envType, provider) : new KnotClassLoader(isDevelopment(), envType, provider);
 		ClassLoader cl = (ClassLoader) classLoader;
 
-		provider.initialize(this);
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "initializeGameProvider")) {
+			provider.initialize(this);
+		}
 
 		Thread.currentThread().setContextClassLoader(cl);
 
 		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
 		loader.setGameProvider(provider);
-		loader.load();
+
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "loadMods")) {
+			loader.load();
+		}
+
 		loader.freeze();
 
-		QuiltLoaderImpl.INSTANCE.loadAccessWideners();
+		for (ModContainerExt mod : loader.getAllModsExt()) {
+			try {
+				ClassLoadingMetrics.registerModRoot(UrlUtil.asUrl(mod.rootPath()), mod.metadata().id());
+			} catch (MalformedURLException e) {
+				// Then the classes will just be attributed to the path instead
+			}
+		}
+
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "loadAccessWideners")) {
+			QuiltLoaderImpl.INSTANCE.loadAccessWideners();
+		}
 
-		MixinBootstrap.init();
-		QuiltMixinBootstrap.init(getEnvironmentType(), loader);
-		QuiltLauncherBase.finishMixinBootstrapping();
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "mixinBootstrap")) {
+			MixinBootstrap.init();
+			QuiltMixinBootstrap.init(getEnvironmentType(), loader);
+			QuiltLauncherBase.finishMixinBootstrapping();
+		}
 
-		classLoader.getDelegate().initializeTransformers();
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "initializeTransformers")) {
+			classLoader.getDelegate().initializeTransformers();
+		}
 
 		provider.unlockClassPath(this);
 		unlocked = true;
 
-		QuiltConfigImpl.init();
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "initializeConfig")) {
+			QuiltConfigImpl.init();
+		}
 
 		try {
 			// If the very first class transformed by mixin is also referenced by a mixin config
@@ -164,7 +196,18 @@ public final class Knot extends QuiltLauncherBase {
 			Log.warn(LogCategory.KNOT, "If you get a 'LinkageError' of 'attempted duplicated * definition' after this then this error is the cause!", cnfe);
 		}
 
-		loader.invokePreLaunch();
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("knot", "preLaunch")) {
+			loader.invokePreLaunch();
+		}
+
+		loader.preloadEntrypointClasses(envType);
+
+		// Mixin has read every config by now, and normally every refmap too
+		MixinResourcePrefetcher.clear();
+		ClassLoadingMetrics.registerMBean();
+		ModMemoryMetrics.registerMBean();
+		StartupTimeline.finish(provider.getLaunchDirectory().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(StartupTimeline.FILE_NAME));
+		ClassDataSharing.update(provider.getLaunchDirectory().resolve(QuiltLoaderImpl.CACHE_DIR_NAME));
 
 		return cl;
 	}
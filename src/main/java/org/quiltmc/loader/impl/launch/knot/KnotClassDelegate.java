@@ -22,8 +22,14 @@ import org.objectweb.asm.ClassReader;
 import org.quiltmc.loader.api.minecraft.ClientOnly;
 import org.quiltmc.loader.api.minecraft.DedicatedServerOnly;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.filesystem.QuiltClassPath.ClassPathResource;
 import org.quiltmc.loader.impl.game.GameProvider;
+import org.quiltmc.loader.impl.game.GameProviderHelper;
+import org.quiltmc.loader.impl.game.LazyGameRemapper;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics.Source;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics.Stage;
 import org.quiltmc.loader.impl.transformer.PackageEnvironmentStrippingData;
 import org.quiltmc.loader.impl.transformer.QuiltTransformer;
 import org.quiltmc.loader.impl.util.FileSystemUtil;
@@ -39,6 +45,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.net.JarURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.FileSystemNotFoundException;
@@ -71,6 +78,7 @@ class KnotClassDelegate {
 	private final boolean isDevelopment;
 	private final EnvType envType;
 	private IMixinTransformer mixinTransformer;
+	private PostMixinClassCache postMixinCache;
 	private boolean transformInitialized = false;
 	private final Map<String, String[]> allowedPrefixes = new ConcurrentHashMap<>();
 	private final Set<String> parentSourcedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
@@ -104,7 +112,10 @@ class KnotClassDelegate {
 			}
 		}
 
+		postMixinCache = PostMixinClassCache.create(envType, isDevelopment);
 		transformInitialized = true;
+		// Anything mixin read before now wasn't transformed
+		MixinServiceKnot.CLASS_NODE_CACHE.clear();
 	}
 
 	private IMixinTransformer getMixinTransformer() {
@@ -117,8 +128,23 @@ class KnotClassDelegate {
 			return null;
 		}
 
+		LazyGameRemapper lazyRemapper = GameProviderHelper.getLazyRemapper();
+		Path lazyResourceJar = lazyRemapper != null ? lazyRemapper.getResourceJar(name) : null;
+		String fileName = LoaderUtil.getClassFileName(name);
+		// Resolved once, and then used for the prefix check, reading the class, and its code source
+		ClassPathResource resource = lazyResourceJar == null ? itf.resolveClassPathResource(fileName) : null;
+
 		if (!allowedPrefixes.isEmpty()) {
-			URL url = itf.getResource(LoaderUtil.getClassFileName(name));
+			URL url;
+
+			if (lazyResourceJar != null) {
+				url = asUrl(lazyResourceJar);
+			} else if (resource != null) {
+				url = asUrl(resource.path);
+			} else {
+				url = itf.getResource(fileName);
+			}
+
 			String[] prefixes;
 
 			if (url != null
@@ -150,14 +176,39 @@ class KnotClassDelegate {
 			}
 		}
 
-		byte[] input = getPostMixinClassByteArray(name, allowFromParent);
+		ClassLoadingMetrics.Sample sample = ClassLoadingMetrics.beginClass();
+		CodeSource loadedFrom = null;
+
+		try {
+			Class<?> c = tryLoadClass0(name, fileName, allowFromParent, lazyResourceJar, resource);
+
+			if (c != null) {
+				loadedFrom = c.getProtectionDomain().getCodeSource();
+			}
+
+			return c;
+		} finally {
+			ClassLoadingMetrics.endClass(sample, loadedFrom);
+		}
+	}
+
+	private Class<?> tryLoadClass0(String name, String fileName, boolean allowFromParent, Path lazyResourceJar, ClassPathResource resource) {
+		byte[] input = getPostMixinClassByteArray(name, allowFromParent, resource);
 		if (input == null) return null;
 
 		if (allowFromParent) {
 			parentSourcedClasses.add(name);
 		}
 
-		KnotClassDelegate.Metadata metadata = getMetadata(name, itf.getResource(LoaderUtil.getClassFileName(name)));
+		CodeSource codeSource;
+
+		if (lazyResourceJar != null) {
+			codeSource = getMetadata(asUrl(lazyResourceJar)).codeSource;
+		} else if (resource != null) {
+			codeSource = resource.root.getCodeSource();
+		} else {
+			codeSource = getMetadata(name, itf.getResource(fileName)).codeSource;
+		}
 
 		int pkgDelimiterPos = name.lastIndexOf('.');
 
@@ -186,7 +237,44 @@ class KnotClassDelegate {
 			}
 		}
 
-		return itf.defineClassFwd(name, input, 0, input.length, metadata.codeSource);
+		long start = ClassLoadingMetrics.startStage();
+		Class<?> c = itf.defineClassFwd(name, input, 0, input.length, codeSource);
+		ClassLoadingMetrics.recordStage(Stage.DEFINE, start);
+		MixinServiceKnot.CLASS_NODE_CACHE.invalidate(name);
+		return c;
+	}
+
+	private static URL asUrl(Path path) {
+		try {
+			return UrlUtil.asUrl(path);
+		} catch (MalformedURLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** Used by resource lookups, so they see the same remapped bytes as class loading does, rather than nothing (since
+	 * the class path only has the game's resource jars).
+	 *
+	 * @return The remapped file of the given resource if it's a lazily remapped game class, otherwise null. */
+	static Path getLazyClassFile(String resourceName) {
+		LazyGameRemapper lazyRemapper = GameProviderHelper.getLazyRemapper();
+
+		if (lazyRemapper == null) {
+			return null;
+		}
+
+		try {
+			return lazyRemapper.getClassFile(resourceName);
+		} catch (IOException e) {
+			Log.warn(LogCategory.KNOT, "Failed to remap " + resourceName, e);
+			return null;
+		}
+	}
+
+	/** @return The URL of {@link #getLazyClassFile(String)}, or null. */
+	static URL getLazyClassResource(String resourceName) {
+		Path path = getLazyClassFile(resourceName);
+		return path != null ? asUrl(path) : null;
 	}
 
 	boolean computeCanLoadPackage(String pkgName, boolean allowFromParent) {
@@ -268,19 +356,42 @@ class KnotClassDelegate {
 	}
 
 	public byte[] getPostMixinClassByteArray(String name, boolean allowFromParent) {
-		byte[] transformedClassArray = getPreMixinClassByteArray(name, allowFromParent);
+		return getPostMixinClassByteArray(name, allowFromParent, null);
+	}
+
+	/** @param resource The already resolved class file, or null if it needs to be looked up. */
+	private byte[] getPostMixinClassByteArray(String name, boolean allowFromParent, ClassPathResource resource) {
+		byte[] transformedClassArray = null;
+
+		if (transformInitialized && (allowFromParent || resource != null)) {
+			// Mixin has usually already read (and transformed) the class while preparing. Mixin always reads classes
+			// with allowFromParent, so we can only use its copy if that wouldn't have found a different class.
+			transformedClassArray = MixinServiceKnot.CLASS_NODE_CACHE.takeTransformedBytes(name);
+		}
+
+		if (transformedClassArray == null) {
+			transformedClassArray = getPreMixinClassByteArray(name, allowFromParent, resource);
+		}
 
 		if (!transformInitialized || !canTransformClass(name)) {
 			return transformedClassArray;
 		}
 
+		long start = ClassLoadingMetrics.startStage();
+
 		try {
+			if (postMixinCache != null) {
+				return postMixinCache.transform(name, transformedClassArray, (n, bytes) -> getMixinTransformer().transformClassBytes(n, n, bytes));
+			}
+
 			return getMixinTransformer().transformClassBytes(name, name, transformedClassArray);
 		} catch (Throwable t) {
 			String msg = String.format("Mixin transformation of %s failed", name);
 			Log.warn(LogCategory.KNOT, msg, t);
 
 			throw new RuntimeException(msg, t);
+		} finally {
+			ClassLoadingMetrics.recordStage(Stage.MIXIN, start);
 		}
 	}
 
@@ -288,12 +399,16 @@ class KnotClassDelegate {
 	 * Runs all the class transformers except mixin.
 	 */
 	public byte[] getPreMixinClassByteArray(String name, boolean allowFromParent) {
+		return getPreMixinClassByteArray(name, allowFromParent, null);
+	}
+
+	private byte[] getPreMixinClassByteArray(String name, boolean allowFromParent, ClassPathResource resource) {
 		// some of the transformers rely on dot notation
 		name = name.replace('/', '.');
 
 		if (!transformInitialized || !canTransformClass(name)) {
 			try {
-				return getRawClassByteArray(name, allowFromParent);
+				return getRawClassByteArray(name, allowFromParent, resource);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
 			}
@@ -303,14 +418,17 @@ class KnotClassDelegate {
 
 		if (input == null) {
 			try {
-				input = getRawClassByteArray(name, allowFromParent);
+				input = getRawClassByteArray(name, allowFromParent, resource);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
 			}
 		}
 
 		if (input != null) {
-			return QuiltTransformer.transform(isDevelopment, envType, name, input);
+			long start = ClassLoadingMetrics.startStage();
+			byte[] transformed = QuiltTransformer.transform(isDevelopment, envType, name, input);
+			ClassLoadingMetrics.recordStage(Stage.TRANSFORM, start);
+			return transformed;
 		}
 
 		return null;
@@ -323,6 +441,38 @@ class KnotClassDelegate {
 	}
 
 	public byte[] getRawClassByteArray(String name, boolean allowFromParent) throws IOException {
+		return getRawClassByteArray(name, allowFromParent, null);
+	}
+
+	private byte[] getRawClassByteArray(String name, boolean allowFromParent, ClassPathResource resource) throws IOException {
+		long start = ClassLoadingMetrics.startStage();
+
+		try {
+			return getRawClassByteArray0(name, allowFromParent, resource);
+		} finally {
+			ClassLoadingMetrics.recordStage(Stage.READ, start);
+		}
+	}
+
+	private byte[] getRawClassByteArray0(String name, boolean allowFromParent, ClassPathResource resource) throws IOException {
+		LazyGameRemapper lazyRemapper = GameProviderHelper.getLazyRemapper();
+
+		if (lazyRemapper != null && lazyRemapper.hasClass(name)) {
+			byte[] bytes = lazyRemapper.getClassBytes(name);
+
+			if (bytes != null) {
+				ClassLoadingMetrics.recordBytes(Source.GAME_REMAP, bytes.length);
+			}
+
+			return bytes;
+		}
+
+		if (resource != null) {
+			byte[] bytes = resource.readAllBytes();
+			ClassLoadingMetrics.recordBytes(resource.isInMemory() ? Source.MEMORY_FS : KnotClassLoader.getSource(resource.path), bytes.length);
+			return bytes;
+		}
+
 		InputStream inputStream = itf.getResourceAsStream(LoaderUtil.getClassFileName(name), allowFromParent);
 		if (inputStream == null) return null;
 
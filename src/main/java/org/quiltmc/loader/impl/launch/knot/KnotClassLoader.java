@@ -20,7 +20,12 @@ package org.quiltmc.loader.impl.launch.knot;
 import net.fabricmc.api.EnvType;
 
 import org.quiltmc.loader.impl.filesystem.QuiltClassPath;
+import org.quiltmc.loader.impl.filesystem.QuiltClassPath.ClassPathResource;
+import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
+import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
 import org.quiltmc.loader.impl.game.GameProvider;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics.Source;
 import org.quiltmc.loader.impl.util.UrlUtil;
 
 import java.io.IOException;
@@ -28,11 +33,15 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.CodeSource;
 import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Objects;
 
 class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterface {
@@ -96,6 +105,12 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 	public URL findResource(String name) {
 		Objects.requireNonNull(name);
 
+		URL lazyClass = KnotClassDelegate.getLazyClassResource(name);
+
+		if (lazyClass != null) {
+			return lazyClass;
+		}
+
 		Path path = paths.findResource(name);
 		if (path != null) {
 			try {
@@ -112,7 +127,12 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 	public InputStream getResourceAsStream(String name) {
 		Objects.requireNonNull(name);
 
-		Path path = paths.findResource(name);
+		Path path = KnotClassDelegate.getLazyClassFile(name);
+
+		if (path == null) {
+			path = paths.findResource(name);
+		}
+
 		if (path != null) {
 			try {
 				return Files.newInputStream(path);
@@ -138,6 +158,16 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 		// Since we want to get *all* the resources, and QuiltClassPath only caches one per name
 		// we need to skip it anyway
 		Enumeration<URL> first = fakeLoader.getResources(name);
+		URL lazyClass = KnotClassDelegate.getLazyClassResource(name);
+
+		if (lazyClass != null) {
+			// Not in any of the fake loader's jars, since only the game's resource jars are on the class path
+			List<URL> urls = new ArrayList<>();
+			urls.add(lazyClass);
+			urls.addAll(Collections.list(first));
+			first = Collections.enumeration(urls);
+		}
+
 		Enumeration<URL> second = originalLoader.getResources(name);
 		return new Enumeration<URL>() {
 			Enumeration<URL> current = first;
@@ -251,17 +281,38 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 	public InputStream getResourceAsStream(String classFile, boolean allowFromParent) throws IOException {
 		Path path = paths.findResource(classFile);
 		if (path != null) {
-			return Files.newInputStream(path);
+			return ClassLoadingMetrics.countBytes(getSource(path), Files.newInputStream(path));
 		}
 		InputStream inputStream = minimalLoader.getResourceAsStream(classFile);
 
-		if (inputStream == null && allowFromParent) {
-			inputStream = originalLoader.getResourceAsStream(classFile);
+		if (inputStream != null) {
+			return ClassLoadingMetrics.countBytes(Source.JAR_URL, inputStream);
+		}
+
+		if (allowFromParent) {
+			inputStream = ClassLoadingMetrics.countBytes(Source.PARENT, originalLoader.getResourceAsStream(classFile));
 		}
 
 		return inputStream;
 	}
 
+	@Override
+	public ClassPathResource resolveClassPathResource(String filename) {
+		return paths.resolve(filename);
+	}
+
+	static Source getSource(Path path) {
+		FileSystem fs = path.getFileSystem();
+
+		if (fs instanceof QuiltMemoryFileSystem) {
+			return Source.MEMORY_FS;
+		} else if (fs instanceof QuiltJoinedFileSystem) {
+			return Source.JOINED_FS;
+		} else {
+			return Source.FILE_SYSTEM;
+		}
+	}
+
 	@Override
 	public Package getPackage(String name) {
 		return super.getPackage(name);
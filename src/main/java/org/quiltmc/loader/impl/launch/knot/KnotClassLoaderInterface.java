@@ -22,6 +22,8 @@ import java.net.URL;
 import java.nio.file.Path;
 import java.security.CodeSource;
 
+import org.quiltmc.loader.impl.filesystem.QuiltClassPath.ClassPathResource;
+
 interface KnotClassLoaderInterface {
 	KnotClassDelegate getDelegate();
 	boolean isClassLoaded(String name);
@@ -31,6 +33,9 @@ interface KnotClassLoaderInterface {
 	URL getResource(String name);
 	InputStream getResourceAsStream(String filename, boolean skipOriginalLoader) throws IOException;
 
+	/** @return The resource from the cached class path, or null if it's somewhere else (or doesn't exist). */
+	ClassPathResource resolveClassPathResource(String filename);
+
 	Package getPackage(String name);
 	Package definePackage(String name, String specTitle, String specVersion, String specVendor, String implTitle, String implVersion, String implVendor, URL sealBase) throws IllegalArgumentException;
 	Class<?> defineClassFwd(String name, byte[] b, int off, int len, CodeSource cs);
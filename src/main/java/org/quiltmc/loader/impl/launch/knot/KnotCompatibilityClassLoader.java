@@ -18,7 +18,10 @@
 package org.quiltmc.loader.impl.launch.knot;
 
 import net.fabricmc.api.EnvType;
+import org.quiltmc.loader.impl.filesystem.QuiltClassPath.ClassPathResource;
 import org.quiltmc.loader.impl.game.GameProvider;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics;
+import org.quiltmc.loader.impl.metrics.ClassLoadingMetrics.Source;
 import org.quiltmc.loader.impl.util.UrlUtil;
 
 import java.io.IOException;
@@ -28,6 +31,10 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 
 class KnotCompatibilityClassLoader extends URLClassLoader implements KnotClassLoaderInterface {
 	private final KnotClassDelegate delegate;
@@ -94,6 +101,27 @@ class KnotCompatibilityClassLoader extends URLClassLoader implements KnotClassLo
 		}
 	}
 
+	@Override
+	public URL findResource(String name) {
+		URL lazyClass = KnotClassDelegate.getLazyClassResource(name);
+		return lazyClass != null ? lazyClass : super.findResource(name);
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		Enumeration<URL> found = super.findResources(name);
+		URL lazyClass = KnotClassDelegate.getLazyClassResource(name);
+
+		if (lazyClass == null) {
+			return found;
+		}
+
+		List<URL> urls = new ArrayList<>();
+		urls.add(lazyClass);
+		urls.addAll(Collections.list(found));
+		return Collections.enumeration(urls);
+	}
+
 	@Override
 	public void addURL(URL url) {
 		super.addURL(url);
@@ -118,7 +146,13 @@ class KnotCompatibilityClassLoader extends URLClassLoader implements KnotClassLo
 			}
 		}
 
-		return super.getResourceAsStream(classFile);
+		return ClassLoadingMetrics.countBytes(Source.JAR_URL, super.getResourceAsStream(classFile));
+	}
+
+	@Override
+	public ClassPathResource resolveClassPathResource(String filename) {
+		// Everything is loaded through URLs
+		return null;
 	}
 
 	@Override
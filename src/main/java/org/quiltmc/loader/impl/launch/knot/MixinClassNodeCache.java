@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.knot;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.quiltmc.loader.impl.util.SystemProperties;
+
+/** A bounded cache of the classes that mixin reads through {@link MixinServiceKnot}, since it asks for the same target
+ * and mixin classes many times while preparing configs and applying mixins.
+ * <p>
+ * Each entry holds the (possibly transformed) class bytes and a parsed template {@link ClassNode}, behind a
+ * {@link SoftReference} so the garbage collector can reclaim them under memory pressure. Mixin modifies the nodes it
+ * gets (for example when pre-processing mixin classes), so callers always get a fresh copy of the template rather than
+ * the template itself.
+ * <p>
+ * Entries are removed once their class is defined, since mixin won't normally need the bytecode again after that, and
+ * {@link KnotClassDelegate} takes the transformed bytes out of the cache when it defines the class to avoid reading and
+ * transforming it a second time. */
+final class MixinClassNodeCache {
+
+	static final int DEFAULT_SIZE = 2048;
+
+	private final int maxSize;
+
+	/** Bytes after {@link KnotClassDelegate#getPreMixinClassByteArray(String, boolean)}. */
+	private final Map<String, SoftReference<Entry>> transformed;
+
+	/** Bytes from {@link KnotClassDelegate#getRawClassByteArray(String, boolean)}. */
+	private final Map<String, SoftReference<Entry>> raw;
+
+	MixinClassNodeCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.transformed = createMap();
+		this.raw = createMap();
+	}
+
+	static MixinClassNodeCache create() {
+		return new MixinClassNodeCache(Integer.getInteger(SystemProperties.MIXIN_CLASS_NODE_CACHE_SIZE, DEFAULT_SIZE));
+	}
+
+	private Map<String, SoftReference<Entry>> createMap() {
+		return new LinkedHashMap<String, SoftReference<Entry>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Entry>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/** @return A new copy of the cached node, or null if the class isn't cached. */
+	ClassNode getClassNode(String name, boolean runTransformers) {
+		Entry entry = get(name.replace('/', '.'), runTransformers);
+		return entry != null ? entry.copyNode() : null;
+	}
+
+	/** Adds the given bytes to the cache, and returns a fresh node parsed from them. */
+	ClassNode putAndParse(String name, boolean runTransformers, byte[] bytes) {
+		Entry entry = new Entry(bytes);
+
+		if (isEnabled()) {
+			Map<String, SoftReference<Entry>> map = runTransformers ? transformed : raw;
+
+			synchronized (this) {
+				map.put(name.replace('/', '.'), new SoftReference<>(entry));
+			}
+		}
+
+		return entry.copyNode();
+	}
+
+	/** Removes the given class from the cache, and returns its transformed bytes (if they were present). The returned
+	 * array might still be read by a concurrent {@link #getClassNode(String, boolean)} call, so it must not be
+	 * modified. */
+	byte[] takeTransformedBytes(String name) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		String key = name.replace('/', '.');
+		SoftReference<Entry> ref;
+
+		synchronized (this) {
+			ref = transformed.remove(key);
+			raw.remove(key);
+		}
+
+		Entry entry = ref != null ? ref.get() : null;
+		return entry != null ? entry.bytes : null;
+	}
+
+	/** Called when a class is defined, since its bytecode won't be read again by mixin. */
+	void invalidate(String name) {
+		if (isEnabled()) {
+			String key = name.replace('/', '.');
+
+			synchronized (this) {
+				transformed.remove(key);
+				raw.remove(key);
+			}
+		}
+	}
+
+	synchronized void clear() {
+		transformed.clear();
+		raw.clear();
+	}
+
+	private Entry get(String name, boolean runTransformers) {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		SoftReference<Entry> ref;
+
+		synchronized (this) {
+			ref = (runTransformers ? transformed : raw).get(name);
+		}
+
+		return ref != null ? ref.get() : null;
+	}
+
+	private static final class Entry {
+		final byte[] bytes;
+		private boolean requested;
+		private ClassNode template;
+
+		Entry(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		synchronized ClassNode copyNode() {
+			if (template == null) {
+				if (!requested) {
+					// Most classes are only asked for once, so only build the template once something asks again
+					requested = true;
+					return parse();
+				}
+
+				template = parse();
+			}
+
+			// Copying a node skips decoding the constant pool and frames, which makes it a lot cheaper than parsing.
+			// This is synchronized since MethodNode.accept resets the labels of the template.
+			ClassNode copy = new ClassNode();
+			template.accept(copy);
+			return copy;
+		}
+
+		private ClassNode parse() {
+			ClassNode node = new ClassNode();
+			new ClassReader(bytes).accept(node, 0);
+			return node;
+		}
+	}
+}
@@ -20,8 +20,8 @@ package org.quiltmc.loader.impl.launch.knot;
 import org.quiltmc.loader.api.ModContainer;
 import org.quiltmc.loader.api.QuiltLoader;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.launch.common.MixinResourcePrefetcher;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
@@ -51,6 +51,7 @@ import java.util.Optional;
 
 public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBytecodeProvider, ITransformerProvider, IClassTracker {
 	static IMixinTransformer transformer;
+	static final MixinClassNodeCache CLASS_NODE_CACHE = MixinClassNodeCache.create();
 
 	private final ReEntranceLock lock;
 
@@ -79,9 +80,12 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public ClassNode getClassNode(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
-		ClassReader reader = new ClassReader(getClassBytes(name, runTransformers));
-		ClassNode node = new ClassNode();
-		reader.accept(node, 0);
+		ClassNode node = CLASS_NODE_CACHE.getClassNode(name, runTransformers);
+
+		if (node == null) {
+			node = CLASS_NODE_CACHE.putAndParse(name, runTransformers, getClassBytes(name, runTransformers));
+		}
+
 		return node;
 	}
 
@@ -193,6 +197,11 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public InputStream getResourceAsStream(String name) {
+		InputStream prefetched = MixinResourcePrefetcher.open(name);
+		if (prefetched != null) {
+			return prefetched;
+		}
+
 		if (name.startsWith("#")) {
 			// Probably a mod specific resource
 			int colon = name.indexOf(':');
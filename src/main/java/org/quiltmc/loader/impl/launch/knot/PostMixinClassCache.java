@@ -0,0 +1,382 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.knot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+import org.spongepowered.asm.launch.MixinBootstrap;
+
+import net.fabricmc.api.EnvType;
+
+/** An opt-in, persistent cache of class bytecode after mixins have been applied, enabled with
+ * {@value SystemProperties#MIXIN_CLASS_CACHE}.
+ * <p>
+ * The cache is split into a folder per fingerprint, where the fingerprint covers the loader and mixin versions, the
+ * environment, every "mixin.*" system property, the access widener targets, and the hash of every loaded mod (which
+ * covers every mixin config, mixin class and refmap, since they all come from mods). Folders for any other fingerprint
+ * are deleted in the background, so a changed mod set never reuses anything. Each class is then stored alongside a hash
+ * of its pre-mixin bytes, and only used if that hash still matches.
+ * <p>
+ * This skips mixin entirely for cached classes, so anything mixin would have done as a side effect of transforming
+ * them (auditing, exporting, registering generated classes, and updating its {@code ClassInfo} for the class) won't
+ * happen. So classes are never cached if mixin depends on those side effects later:
+ * <ul>
+ * <li>Classes that reference mixin's synthetic classes, or any inner class of the target that the original class
+ * didn't reference (which is how mixin's generated inner classes are named). Those are only registered with mixin
+ * while the target is being transformed, so they couldn't be loaded.</li>
+ * <li>Classes where mixins added non-private fields or methods, or interfaces. Mixin reads the original class when it
+ * needs information about a class that it hasn't transformed, so a mixin applied to a subclass wouldn't see
+ * them.</li>
+ * </ul>
+ * Setting the property to "verify" transforms every class anyway, and warns about every cached class that differs from
+ * the fresh output. */
+final class PostMixinClassCache {
+
+	static final String DIR_NAME = "mixin-class-cache";
+
+	private static final int MAGIC = 0x514D4343; // "QMCC"
+	private static final int FINGERPRINT_PREFIX_LENGTH = 24;
+	private static final int CONSTANT_CLASS = 7;
+	private static final byte[] SYNTHETIC_PACKAGE = "org/spongepowered/asm/synthetic/".getBytes(StandardCharsets.UTF_8);
+
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	});
+
+	interface Transformer {
+		byte[] transform(String name, byte[] input);
+	}
+
+	private final Path folder;
+	private final boolean verify;
+	private final ExecutorService writer;
+
+	private final AtomicInteger mismatches = new AtomicInteger();
+
+	private PostMixinClassCache(Path folder, boolean verify) {
+		this.folder = folder;
+		this.verify = verify;
+		this.writer = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Quilt Mixin Class Cache Writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/** @return The cache, or null if it isn't enabled. */
+	static PostMixinClassCache create(EnvType envType, boolean isDevelopment) {
+		String mode = System.getProperty(SystemProperties.MIXIN_CLASS_CACHE, "false");
+		boolean verify = "verify".equalsIgnoreCase(mode);
+
+		if (!verify && !Boolean.parseBoolean(mode)) {
+			return null;
+		}
+
+		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
+		String fingerprint = computeFingerprint(loader, envType, isDevelopment);
+		Path root = loader.getGameDir().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(DIR_NAME);
+		Path folder = root.resolve(fingerprint.substring(0, FINGERPRINT_PREFIX_LENGTH));
+
+		try {
+			Files.createDirectories(folder);
+		} catch (IOException e) {
+			Log.warn(LogCategory.KNOT, "Failed to create the mixin class cache folder " + folder + ", so it won't be used", e);
+			return null;
+		}
+
+		PostMixinClassCache cache = new PostMixinClassCache(folder, verify);
+		cache.writer.execute(() -> deleteOtherFolders(root, folder));
+		Log.info(LogCategory.KNOT, "Using the mixin class cache in %s%s", folder, verify ? " (verifying)" : "");
+		return cache;
+	}
+
+	private static String computeFingerprint(QuiltLoaderImpl loader, EnvType envType, boolean isDevelopment) {
+		Map<String, String> parts = new TreeMap<>();
+		parts.put("loader", QuiltLoaderImpl.VERSION);
+		parts.put("mixin", MixinBootstrap.VERSION);
+		parts.put("env", envType.name());
+		parts.put("development", Boolean.toString(isDevelopment));
+		parts.put("namespace", QuiltLauncherBase.getLauncher().getTargetNamespace());
+		parts.put("mods", loader.getModSetFingerprint());
+
+		List<String> targets = new ArrayList<>(loader.getAccessWidener().getTargets());
+		targets.sort(null);
+		parts.put("access-widener", String.join(",", targets));
+
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (key.startsWith("mixin.")) {
+				parts.put("property:" + key, System.getProperty(key));
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		for (Map.Entry<String, String> entry : parts.entrySet()) {
+			sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+
+		return HashUtil.hashToHex(HashUtil.computeHash(sb.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/** Returns the post-mixin bytes for the given class, either from the cache or from the given transformer. */
+	byte[] transform(String name, byte[] input, Transformer transformer) {
+		if (input == null) {
+			// Mixin can generate classes that don't exist, which we can't hash
+			return transformer.transform(name, input);
+		}
+
+		byte[] inputHash = DIGEST.get().digest(input);
+		Path file = folder.resolve(name.replace('.', '/') + ".bin");
+		byte[] cached = read(file, inputHash);
+
+		if (cached != null && !verify) {
+			return cached;
+		}
+
+		byte[] output = transformer.transform(name, input);
+
+		if (cached != null) {
+			if (Arrays.equals(cached, output)) {
+				return output;
+			}
+
+			int count = mismatches.incrementAndGet();
+			Log.warn(LogCategory.KNOT, "The mixin class cache entry for %s differs from the freshly transformed class! (%d mismatches so far)", name, count);
+		}
+
+		if (output != null && output != input && !Arrays.equals(output, input) && canCache(name, input, output)) {
+			writer.execute(() -> write(file, inputHash, output));
+		}
+
+		return output;
+	}
+
+	private static byte[] read(Path file, byte[] inputHash) {
+		try (InputStream stream = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(stream);
+
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+
+			byte[] hash = new byte[in.readUnsignedByte()];
+			in.readFully(hash);
+
+			if (!Arrays.equals(hash, inputHash)) {
+				return null;
+			}
+
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return bytes;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Log.debug(LogCategory.KNOT, "Ignoring the unreadable mixin class cache entry %s: %s", file, e);
+			return null;
+		}
+	}
+
+	private static void write(Path file, byte[] inputHash, byte[] output) {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try {
+			Files.createDirectories(file.getParent());
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(output.length + inputHash.length + 9);
+			DataOutputStream out = new DataOutputStream(baos);
+			out.writeInt(MAGIC);
+			out.writeByte(inputHash.length);
+			out.write(inputHash);
+			out.writeInt(output.length);
+			out.write(output);
+			Files.write(tmp, baos.toByteArray());
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			Log.debug(LogCategory.KNOT, "Failed to write the mixin class cache entry %s: %s", file, e);
+		}
+	}
+
+	/** @return True if the output of mixin only differs from the input in ways that mixin doesn't need to know about
+	 *         later (see the class javadoc). */
+	static boolean canCache(String name, byte[] input, byte[] output) {
+		if (referencesSyntheticClasses(output)) {
+			return false;
+		}
+
+		ClassReader inputReader, outputReader;
+
+		try {
+			inputReader = new ClassReader(input);
+			outputReader = new ClassReader(output);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			return false;
+		}
+
+		String innerPrefix = name.replace('.', '/') + "$";
+		Set<String> inputClasses = readClassReferences(inputReader);
+
+		for (String cls : readClassReferences(outputReader)) {
+			if (cls.startsWith(innerPrefix) && !inputClasses.contains(cls)) {
+				return false;
+			}
+		}
+
+		return readVisibleMembers(inputReader).equals(readVisibleMembers(outputReader));
+	}
+
+	/** @return Every class in the constant pool of the given class. */
+	private static Set<String> readClassReferences(ClassReader reader) {
+		Set<String> classes = new HashSet<>();
+		char[] buffer = new char[reader.getMaxStringLength()];
+
+		for (int i = 1; i < reader.getItemCount(); i++) {
+			int offset = reader.getItem(i);
+
+			// Zero for the unused entry after a long or double
+			if (offset != 0 && reader.readByte(offset - 1) == CONSTANT_CLASS) {
+				classes.add(reader.readUTF8(offset, buffer));
+			}
+		}
+
+		return classes;
+	}
+
+	/** @return The super class, interfaces, and every non-private field and method of the given class. */
+	private static Set<String> readVisibleMembers(ClassReader reader) {
+		Set<String> members = new HashSet<>();
+		reader.accept(new ClassVisitor(QuiltLoaderImpl.ASM_VERSION) {
+			@Override
+			public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+				members.add("super " + superName);
+
+				if (interfaces != null) {
+					for (String itf : interfaces) {
+						members.add("interface " + itf);
+					}
+				}
+			}
+
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				if ((access & Opcodes.ACC_PRIVATE) == 0) {
+					members.add("field " + name + " " + descriptor);
+				}
+
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				if ((access & Opcodes.ACC_PRIVATE) == 0) {
+					members.add("method " + name + descriptor);
+				}
+
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return members;
+	}
+
+	private static boolean referencesSyntheticClasses(byte[] bytes) {
+		outer: for (int i = 0; i <= bytes.length - SYNTHETIC_PACKAGE.length; i++) {
+			for (int j = 0; j < SYNTHETIC_PACKAGE.length; j++) {
+				if (bytes[i + j] != SYNTHETIC_PACKAGE[j]) {
+					continue outer;
+				}
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private static void deleteOtherFolders(Path root, Path keep) {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+			for (Path child : stream) {
+				if (!child.equals(keep) && Files.isDirectory(child)) {
+					deleteRecursively(child);
+				}
+			}
+		} catch (IOException e) {
+			Log.debug(LogCategory.KNOT, "Failed to delete old mixin class cache folders: %s", e);
+		}
+	}
+
+	private static void deleteRecursively(Path folder) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+}
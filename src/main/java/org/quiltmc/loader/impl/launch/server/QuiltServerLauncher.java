@@ -67,8 +67,24 @@ public class QuiltServerLauncher {
 	}
 
 	private static void setup(String... runArguments) throws IOException {
+		// Pre-load "quilt-server-launcher.properties"
+		Path propertiesFile = Paths.get("quilt-server-launcher.properties");
+		Properties properties = new Properties();
+
+		if (Files.exists(propertiesFile)) {
+			try (Reader reader = Files.newBufferedReader(propertiesFile)) {
+				properties.load(reader);
+			}
+		}
+
 		if (System.getProperty(SystemProperties.GAME_JAR_PATH) == null) {
-			System.setProperty(SystemProperties.GAME_JAR_PATH, getServerJarPath());
+			System.setProperty(SystemProperties.GAME_JAR_PATH, getServerJarPath(propertiesFile, properties));
+		}
+
+		// Server hosts often don't allow JVM arguments either, so class data sharing can be turned on here too.
+		// The archive still needs -XX:SharedArchiveFile to be used, but that can be passed in JAVA_TOOL_OPTIONS.
+		if (System.getProperty(SystemProperties.CLASS_DATA_SHARING) == null && properties.containsKey("classDataSharing")) {
+			System.setProperty(SystemProperties.CLASS_DATA_SHARING, properties.getProperty("classDataSharing"));
 		}
 
 		Path serverJar = Paths.get(System.getProperty(SystemProperties.GAME_JAR_PATH)).toAbsolutePath().normalize();
@@ -84,17 +100,7 @@ public class QuiltServerLauncher {
 		}
 	}
 
-	private static String getServerJarPath() throws IOException {
-		// Pre-load "quilt-server-launcher.properties"
-		Path propertiesFile = Paths.get("quilt-server-launcher.properties");
-		Properties properties = new Properties();
-
-		if (Files.exists(propertiesFile)) {
-			try (Reader reader = Files.newBufferedReader(propertiesFile)) {
-				properties.load(reader);
-			}
-		}
-
+	private static String getServerJarPath(Path propertiesFile, Properties properties) throws IOException {
 		// Most popular Minecraft server hosting platforms do not allow
 		// passing arbitrary arguments to the server .JAR. Meanwhile,
 		// Mojang's default server filename is "server.jar" as of
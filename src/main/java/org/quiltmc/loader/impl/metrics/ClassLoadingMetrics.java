@@ -0,0 +1,527 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Counters and latency histograms for every class loaded by knot, broken down by the stage of loading, where the class
+ * bytes were read from, and which mod (code source) the class came from.
+ * <p>
+ * Knot calls {@link #beginClass()} and {@link #endClass(Sample, CodeSource)} around loading each class, and
+ * {@link #recordStage(Stage, long)} after each stage. Stages are timed inclusively: if loading a class causes another
+ * class to be loaded (which mixin does quite often) then the time spent loading the second class is counted in both. */
+public final class ClassLoadingMetrics implements ClassLoadingMetricsMXBean {
+
+	public static final String OBJECT_NAME = "org.quiltmc.loader:type=ClassLoading";
+	public static final String DUMP_FILE_NAME = "class-loading-metrics.txt";
+
+	private static final boolean ENABLED = !Boolean.getBoolean(SystemProperties.DISABLE_CLASS_LOADING_METRICS);
+	private static final ClassLoadingMetrics INSTANCE = new ClassLoadingMetrics();
+	private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+	/** The histogram bucket {@code i} counts durations less than 2^i microseconds, except for the last bucket which
+	 * counts everything else. */
+	private static final int BUCKETS = 22;
+
+	public enum Stage {
+		/** Reading the class bytes from the class path. */
+		READ,
+		/** {@link org.quiltmc.loader.impl.transformer.QuiltTransformer}. */
+		TRANSFORM,
+		/** Mixin's transformClassBytes. */
+		MIXIN,
+		/** Defining the class in the JVM (which can load the super classes too). */
+		DEFINE;
+	}
+
+	public enum Source {
+		MEMORY_FS,
+		JOINED_FS,
+		FILE_SYSTEM,
+		JAR_URL,
+		PARENT,
+		GAME_REMAP;
+	}
+
+	/** The per-class state for a class that's being loaded. */
+	public static final class Sample {
+		final Sample previous;
+		final long[] stageNanos = new long[Stage.values().length];
+		long bytes;
+
+		Sample(Sample previous) {
+			this.previous = previous;
+		}
+	}
+
+	static final class Histogram {
+		final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		final LongAdder count = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final AtomicLong maxNanos = new AtomicLong();
+
+		void record(long nanos) {
+			long micros = nanos / 1_000;
+			int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+			buckets.incrementAndGet(bucket);
+			count.increment();
+			totalNanos.add(nanos);
+
+			long max;
+			while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+				// Retry
+			}
+		}
+
+		long[] snapshot() {
+			long[] values = new long[BUCKETS];
+
+			for (int i = 0; i < BUCKETS; i++) {
+				values[i] = buckets.get(i);
+			}
+
+			return values;
+		}
+
+		/** @return The upper bound of the bucket that contains the given fraction of samples, in microseconds. */
+		long percentileMicros(double fraction) {
+			long[] values = snapshot();
+			long total = 0;
+
+			for (long value : values) {
+				total += value;
+			}
+
+			long target = (long) Math.ceil(total * fraction);
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += values[i];
+
+				if (seen >= target && seen > 0) {
+					return 1L << i;
+				}
+			}
+
+			return 0;
+		}
+
+		void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets.set(i, 0);
+			}
+
+			count.reset();
+			totalNanos.reset();
+			maxNanos.set(0);
+		}
+	}
+
+	static final class CodeSourceStats {
+		final LongAdder classes = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+
+		CodeSourceStats() {
+			for (int i = 0; i < stageNanos.length; i++) {
+				stageNanos[i] = new LongAdder();
+			}
+		}
+
+		long totalNanos() {
+			long total = 0;
+
+			for (LongAdder adder : stageNanos) {
+				total += adder.sum();
+			}
+
+			return total;
+		}
+	}
+
+	private final LongAdder classesLoaded = new LongAdder();
+	private final LongAdder[] bytesBySource = new LongAdder[Source.values().length];
+	private final Histogram[] stages = new Histogram[Stage.values().length];
+
+	/** Code source location to stats. These are converted to mod ids when they are read, since most classes are loaded
+	 * before mods are {@link #registerModRoot(URL, String) registered}. */
+	private final Map<String, CodeSourceStats> codeSources = new ConcurrentHashMap<>();
+	private final Map<String, String> modRoots = new ConcurrentHashMap<>();
+
+	private ClassLoadingMetrics() {
+		for (int i = 0; i < bytesBySource.length; i++) {
+			bytesBySource[i] = new LongAdder();
+		}
+
+		for (int i = 0; i < stages.length; i++) {
+			stages[i] = new Histogram();
+		}
+	}
+
+	public static ClassLoadingMetrics get() {
+		return INSTANCE;
+	}
+
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/** Registers {@link #get() the metrics} with the platform MBean server, if they are enabled. This happens on a
+	 * background thread, since the first call to {@link ManagementFactory#getPlatformMBeanServer()} creates the server
+	 * and every platform MBean, which would otherwise delay launching the game. */
+	public static void registerMBean() {
+		if (!ENABLED) {
+			return;
+		}
+
+		Thread thread = new Thread(() -> {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+			} catch (JMException | LinkageError e) {
+				Log.warn(LogCategory.KNOT, "Failed to register the class loading metrics MBean", e);
+			}
+		}, "Quilt Class Loading Metrics Registration");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Used to show the mod id rather than the code source location for classes loaded from a mod. */
+	public static void registerModRoot(URL codeSource, String modId) {
+		if (ENABLED) {
+			INSTANCE.modRoots.put(codeSource.toString(), modId);
+		}
+	}
+
+	// ##########
+	// Collection
+	// ##########
+
+	/** Starts recording a class. Must be matched with a call to {@link #endClass(Sample, CodeSource)}.
+	 *
+	 * @return The sample to pass to {@link #endClass(Sample, CodeSource)}, or null if metrics are disabled. */
+	public static Sample beginClass() {
+		if (!ENABLED) {
+			return null;
+		}
+
+		Sample sample = new Sample(CURRENT.get());
+		CURRENT.set(sample);
+		return sample;
+	}
+
+	/** @param codeSource The code source of the class that was loaded, or null if the class wasn't found. */
+	public static void endClass(Sample sample, CodeSource codeSource) {
+		if (sample == null) {
+			return;
+		}
+
+		if (sample.previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(sample.previous);
+		}
+
+		if (codeSource == null) {
+			return;
+		}
+
+		URL location = codeSource.getLocation();
+		String key = location == null ? "<unknown>" : location.toString();
+		CodeSourceStats stats = INSTANCE.codeSources.computeIfAbsent(key, k -> new CodeSourceStats());
+		stats.classes.increment();
+		stats.bytes.add(sample.bytes);
+
+		for (int i = 0; i < sample.stageNanos.length; i++) {
+			stats.stageNanos[i].add(sample.stageNanos[i]);
+		}
+
+		INSTANCE.classesLoaded.increment();
+	}
+
+	/** @return The value to pass to {@link #recordStage(Stage, long)}. */
+	public static long startStage() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/** @param start The value returned by {@link #startStage()} before the stage started. */
+	public static void recordStage(Stage stage, long start) {
+		if (!ENABLED) {
+			return;
+		}
+
+		long nanos = System.nanoTime() - start;
+		INSTANCE.stages[stage.ordinal()].record(nanos);
+		Sample sample = CURRENT.get();
+
+		if (sample != null) {
+			sample.stageNanos[stage.ordinal()] += nanos;
+		}
+	}
+
+	public static void recordBytes(Source source, long bytes) {
+		if (!ENABLED) {
+			return;
+		}
+
+		INSTANCE.bytesBySource[source.ordinal()].add(bytes);
+		Sample sample = CURRENT.get();
+
+		if (sample != null) {
+			sample.bytes += bytes;
+		}
+	}
+
+	/** @return A stream which {@link #recordBytes(Source, long) records} every byte read from the given stream. */
+	public static InputStream countBytes(Source source, InputStream stream) {
+		if (!ENABLED || stream == null) {
+			return stream;
+		}
+
+		return new FilterInputStream(stream) {
+			@Override
+			public int read() throws IOException {
+				int value = super.read();
+
+				if (value >= 0) {
+					recordBytes(source, 1);
+				}
+
+				return value;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int count = super.read(b, off, len);
+
+				if (count > 0) {
+					recordBytes(source, count);
+				}
+
+				return count;
+			}
+		};
+	}
+
+	// ###
+	// JMX
+	// ###
+
+	@Override
+	public long getClassesLoaded() {
+		return classesLoaded.sum();
+	}
+
+	@Override
+	public Map<String, Long> getBytesReadBySource() {
+		Map<String, Long> map = new LinkedHashMap<>();
+
+		for (Source source : Source.values()) {
+			map.put(name(source), bytesBySource[source.ordinal()].sum());
+		}
+
+		return map;
+	}
+
+	@Override
+	public Map<String, Double> getMillisByStage() {
+		Map<String, Double> map = new LinkedHashMap<>();
+
+		for (Stage stage : Stage.values()) {
+			map.put(name(stage), toMillis(stages[stage.ordinal()].totalNanos.sum()));
+		}
+
+		return map;
+	}
+
+	@Override
+	public long[] getHistogramBucketBoundsMicros() {
+		long[] bounds = new long[BUCKETS - 1];
+
+		for (int i = 0; i < bounds.length; i++) {
+			bounds[i] = 1L << i;
+		}
+
+		return bounds;
+	}
+
+	@Override
+	public Map<String, long[]> getStageHistograms() {
+		Map<String, long[]> map = new LinkedHashMap<>();
+
+		for (Stage stage : Stage.values()) {
+			map.put(name(stage), stages[stage.ordinal()].snapshot());
+		}
+
+		return map;
+	}
+
+	@Override
+	public Map<String, Long> getClassesByMod() {
+		Map<String, Long> map = new LinkedHashMap<>();
+
+		for (Map.Entry<String, CodeSourceStats> entry : sortedCodeSources()) {
+			map.merge(describeCodeSource(entry.getKey()), entry.getValue().classes.sum(), Long::sum);
+		}
+
+		return map;
+	}
+
+	@Override
+	public Map<String, Double> getMillisByMod() {
+		Map<String, Double> map = new LinkedHashMap<>();
+
+		for (Map.Entry<String, CodeSourceStats> entry : sortedCodeSources()) {
+			map.merge(describeCodeSource(entry.getKey()), toMillis(entry.getValue().totalNanos()), Double::sum);
+		}
+
+		return map;
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Classes loaded: ").append(getClassesLoaded()).append('\n');
+
+		sb.append("\nBytes read by source:\n");
+		for (Source source : Source.values()) {
+			sb.append(String.format(Locale.ROOT, "  %-12s %,14d%n", name(source), bytesBySource[source.ordinal()].sum()));
+		}
+
+		sb.append("\nStages:\n");
+		sb.append(String.format(Locale.ROOT, "  %-10s %10s %12s %10s %10s %10s %10s%n", //
+			"stage", "count", "total ms", "max ms", "p50 us", "p90 us", "p99 us"));
+
+		for (Stage stage : Stage.values()) {
+			Histogram histogram = stages[stage.ordinal()];
+			sb.append(String.format(Locale.ROOT, "  %-10s %10d %12.2f %10.2f %10d %10d %10d%n", //
+				name(stage), histogram.count.sum(), toMillis(histogram.totalNanos.sum()), //
+				toMillis(histogram.maxNanos.get()), histogram.percentileMicros(0.5), //
+				histogram.percentileMicros(0.9), histogram.percentileMicros(0.99)));
+		}
+
+		sb.append("\nBy mod (slowest first):\n");
+		sb.append(String.format(Locale.ROOT, "  %-40s %8s %12s", "mod", "classes", "bytes"));
+
+		for (Stage stage : Stage.values()) {
+			sb.append(String.format(Locale.ROOT, " %12s", name(stage) + " ms"));
+		}
+
+		sb.append('\n');
+
+		for (Map.Entry<String, CodeSourceStats> entry : sortedCodeSources()) {
+			CodeSourceStats stats = entry.getValue();
+			sb.append(String.format(Locale.ROOT, "  %-40s %8d %12d", //
+				describeCodeSource(entry.getKey()), stats.classes.sum(), stats.bytes.sum()));
+
+			for (Stage stage : Stage.values()) {
+				sb.append(String.format(Locale.ROOT, " %12.2f", toMillis(stats.stageNanos[stage.ordinal()].sum())));
+			}
+
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	@Override
+	public String dumpToFile() throws IOException {
+		Path file = QuiltLoaderImpl.INSTANCE.getGameDir().resolve(QuiltLoaderImpl.CACHE_DIR_NAME).resolve(DUMP_FILE_NAME);
+		Files.createDirectories(file.getParent());
+		Files.write(file, dump().getBytes(StandardCharsets.UTF_8));
+		return file.toAbsolutePath().toString();
+	}
+
+	@Override
+	public void reset() {
+		classesLoaded.reset();
+
+		for (LongAdder adder : bytesBySource) {
+			adder.reset();
+		}
+
+		for (Histogram histogram : stages) {
+			histogram.reset();
+		}
+
+		codeSources.clear();
+	}
+
+	/** @return The number of classes loaded, and the number of class file bytes read, for each mod (or code source).
+	 *         Used by {@link ModMemoryMetrics}. */
+	Map<String, long[]> getClassesAndBytesByMod() {
+		Map<String, long[]> map = new LinkedHashMap<>();
+
+		for (Map.Entry<String, CodeSourceStats> entry : codeSources.entrySet()) {
+			long[] values = map.computeIfAbsent(describeCodeSource(entry.getKey()), k -> new long[2]);
+			values[0] += entry.getValue().classes.sum();
+			values[1] += entry.getValue().bytes.sum();
+		}
+
+		return map;
+	}
+
+	private List<Map.Entry<String, CodeSourceStats>> sortedCodeSources() {
+		List<Map.Entry<String, CodeSourceStats>> list = new ArrayList<>(codeSources.entrySet());
+		list.sort((a, b) -> Long.compare(b.getValue().totalNanos(), a.getValue().totalNanos()));
+		return list;
+	}
+
+	private String describeCodeSource(String location) {
+		String modId = modRoots.get(location);
+
+		if (modId != null) {
+			return modId;
+		}
+
+		// Use the file name rather than the full location, since that's usually enough to identify it
+		String trimmed = location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+		return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+	}
+
+	private static String name(Enum<?> value) {
+		return value.name().toLowerCase(Locale.ROOT);
+	}
+
+	private static double toMillis(long nanos) {
+		return (nanos / 1_000) / 1_000.0;
+	}
+}
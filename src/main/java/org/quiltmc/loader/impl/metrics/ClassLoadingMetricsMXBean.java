@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+
+/** The JMX view of {@link ClassLoadingMetrics}, registered as {@value ClassLoadingMetrics#OBJECT_NAME}. */
+public interface ClassLoadingMetricsMXBean {
+
+	/** @return The number of classes defined by knot. */
+	long getClassesLoaded();
+
+	/** @return The number of class file bytes read, by where they were read from. */
+	Map<String, Long> getBytesReadBySource();
+
+	/** @return The total time spent in each stage of loading a class, in milliseconds. Stages can be nested (for
+	 *         example mixin loading other classes), so these don't add up to the total time spent loading classes. */
+	Map<String, Double> getMillisByStage();
+
+	/** @return The upper bounds (exclusive) of each bucket in {@link #getStageHistograms()}, in microseconds. The last
+	 *         bucket has no upper bound. */
+	long[] getHistogramBucketBoundsMicros();
+
+	/** @return A latency histogram for each stage of loading a class. */
+	Map<String, long[]> getStageHistograms();
+
+	/** @return The number of classes loaded from each mod (or code source, for classes which aren't from a mod). */
+	Map<String, Long> getClassesByMod();
+
+	/** @return The total time spent loading classes from each mod (or code source), in milliseconds. */
+	Map<String, Double> getMillisByMod();
+
+	/** @return A human readable table of every metric. */
+	String dump();
+
+	/** Writes {@link #dump()} to {@value ClassLoadingMetrics#DUMP_FILE_NAME} in the .quilt folder.
+	 *
+	 * @return The absolute path of the written file. */
+	String dumpToFile() throws IOException;
+
+	/** Resets every metric back to zero. */
+	void reset();
+}
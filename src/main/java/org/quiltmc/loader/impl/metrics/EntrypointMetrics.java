@@ -0,0 +1,221 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.quiltmc.json5.JsonWriter;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Records how long each mod's entrypoints take, for each entrypoint key: the time spent loading the entrypoint's
+ * class, constructing it, and invoking it, along with the bytes allocated by each (when the VM can measure it).
+ * <p>
+ * Every stage is timed exclusively: if invoking one entrypoint invokes another (quilt's own entrypoints are invoked
+ * from a fabric initializer, for example) then the time spent in the inner entrypoint is only counted for the inner
+ * entrypoint's mod. Each stage is also emitted as a JFR event, and the totals are shown in the mod table and written to
+ * {@code .quilt/entrypoint-metrics.json} once the game's initializers have run. */
+public final class EntrypointMetrics {
+
+	public static final String FILE_NAME = "entrypoint-metrics.json";
+
+	private static final boolean ENABLED = !Boolean.getBoolean(SystemProperties.DISABLE_ENTRYPOINT_METRICS);
+	private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+	/** Mod id to stats. */
+	private static final Map<String, ModStats> MODS = new ConcurrentHashMap<>();
+
+	public enum Stage {
+		/** Loading (but not initializing) the entrypoint's class. */
+		CLASS_LOAD,
+		/** Creating the entrypoint object, which includes initializing its class. */
+		CONSTRUCT,
+		/** Calling the entrypoint's method, like {@code onInitialize}. */
+		INVOKE;
+
+		final String jsonName = name().toLowerCase(Locale.ROOT);
+	}
+
+	/** A single stage that's being timed. */
+	public static final class Sample {
+		final Sample previous;
+		final String key, modId;
+		final Stage stage;
+		final long startNanos, startAllocated;
+		final Object jfrEvent;
+		long childNanos, childAllocated;
+
+		Sample(Sample previous, String key, String modId, Stage stage) {
+			this.previous = previous;
+			this.key = key;
+			this.modId = modId;
+			this.stage = stage;
+			this.jfrEvent = JfrEvents.beginEntrypoint(modId, key, stage.jsonName);
+			this.startAllocated = StartupTimeline.getAllocatedBytes(Thread.currentThread());
+			this.startNanos = System.nanoTime();
+		}
+	}
+
+	static final class ModStats {
+		/** Entrypoint key to the nanoseconds spent in each stage. */
+		final Map<String, long[]> nanos = new TreeMap<>();
+		/** Entrypoint key to the bytes allocated in each stage. */
+		final Map<String, long[]> allocated = new TreeMap<>();
+		long totalNanos, totalAllocated;
+	}
+
+	private EntrypointMetrics() {}
+
+	/** Starts timing a stage of an entrypoint. Must be matched with a call to {@link #end(Sample)} on the same thread.
+	 *
+	 * @return The sample to pass to {@link #end(Sample)}, or null if metrics are disabled. */
+	public static Sample begin(String key, String modId, Stage stage) {
+		if (!ENABLED) {
+			return null;
+		}
+
+		Sample sample = new Sample(CURRENT.get(), key, modId, stage);
+		CURRENT.set(sample);
+		return sample;
+	}
+
+	public static void end(Sample sample) {
+		if (sample == null) {
+			return;
+		}
+
+		long nanos = System.nanoTime() - sample.startNanos;
+		long allocated = sample.startAllocated < 0 ? 0 : StartupTimeline.getAllocatedBytes(Thread.currentThread()) - sample.startAllocated;
+
+		if (sample.previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(sample.previous);
+			sample.previous.childNanos += nanos;
+			sample.previous.childAllocated += allocated;
+		}
+
+		long selfNanos = nanos - sample.childNanos;
+		long selfAllocated = allocated - sample.childAllocated;
+		JfrEvents.endEntrypoint(sample.jfrEvent, selfAllocated);
+
+		ModStats stats = MODS.computeIfAbsent(sample.modId, id -> new ModStats());
+
+		synchronized (stats) {
+			stats.nanos.computeIfAbsent(sample.key, k -> new long[Stage.values().length])[sample.stage.ordinal()] += selfNanos;
+			stats.allocated.computeIfAbsent(sample.key, k -> new long[Stage.values().length])[sample.stage.ordinal()] += selfAllocated;
+			stats.totalNanos += selfNanos;
+			stats.totalAllocated += selfAllocated;
+		}
+	}
+
+	/** @return True if any entrypoint has been recorded. */
+	public static boolean hasData() {
+		return !MODS.isEmpty();
+	}
+
+	/** @return The total time spent in every entrypoint of the given mod, in nanoseconds, or -1 if none of its
+	 *         entrypoints have been recorded. */
+	public static long getTotalNanos(String modId) {
+		ModStats stats = MODS.get(modId);
+
+		if (stats == null) {
+			return -1;
+		}
+
+		synchronized (stats) {
+			return stats.totalNanos;
+		}
+	}
+
+	/** Writes every recorded entrypoint to the given file, slowest mod first. This can be called more than once, and
+	 * overwrites the file each time. */
+	public static void write(Path file) {
+		if (!ENABLED) {
+			return;
+		}
+
+		List<Map.Entry<String, ModStats>> mods = new ArrayList<>(MODS.entrySet());
+		mods.sort(Comparator.comparingLong((Map.Entry<String, ModStats> entry) -> getTotalNanos(entry.getKey())).reversed());
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (Writer out = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+				JsonWriter writer = JsonWriter.json(out);
+				writer.beginObject();
+				writer.name("loader_version").value(QuiltLoaderImpl.VERSION);
+				writer.name("allocation_supported").value(StartupTimeline.getAllocatedBytes(Thread.currentThread()) >= 0);
+				writer.name("mods").beginArray();
+
+				for (Map.Entry<String, ModStats> entry : mods) {
+					ModStats stats = entry.getValue();
+
+					synchronized (stats) {
+						writer.beginObject();
+						writer.name("id").value(entry.getKey());
+						writer.name("total_ms").value(toMillis(stats.totalNanos));
+						writer.name("allocated_bytes").value(stats.totalAllocated);
+						writer.name("entrypoints").beginArray();
+
+						for (Map.Entry<String, long[]> key : stats.nanos.entrySet()) {
+							long[] allocated = stats.allocated.get(key.getKey());
+							writer.beginObject();
+							writer.name("key").value(key.getKey());
+
+							for (Stage stage : Stage.values()) {
+								writer.name(stage.jsonName + "_ms").value(toMillis(key.getValue()[stage.ordinal()]));
+								writer.name(stage.jsonName + "_allocated_bytes").value(allocated[stage.ordinal()]);
+							}
+
+							writer.endObject();
+						}
+
+						writer.endArray();
+						writer.endObject();
+					}
+				}
+
+				writer.endArray();
+				writer.endObject();
+				writer.flush();
+			}
+
+			Log.debug(LogCategory.ENTRYPOINT, "Wrote the entrypoint metrics to %s", file);
+		} catch (IOException e) {
+			Log.warn(LogCategory.ENTRYPOINT, "Failed to write the entrypoint metrics to " + file, e);
+		}
+	}
+
+	private static double toMillis(long nanos) {
+		return (nanos / 1_000) / 1_000.0;
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Emits the loader's custom JFR events.
+ * <p>
+ * Loader is compiled against java 8, which doesn't have the {@code jdk.jfr} API, so every event type is created at
+ * runtime with {@code jdk.jfr.EventFactory} through method handles. If JFR isn't available then every method here does
+ * nothing. */
+final class JfrEvents {
+
+	static final String[] CATEGORY = { "Quilt Loader" };
+
+	private static final boolean AVAILABLE;
+	private static final MethodHandle ANNOTATION_ELEMENT_NEW;
+	private static final MethodHandle VALUE_DESCRIPTOR_NEW;
+	private static final MethodHandle EVENT_FACTORY_CREATE;
+	private static final MethodHandle EVENT_FACTORY_NEW_EVENT;
+	private static final MethodHandle EVENT_BEGIN;
+	private static final MethodHandle EVENT_END;
+	private static final MethodHandle EVENT_COMMIT;
+	private static final MethodHandle EVENT_SET;
+	private static final MethodHandle EVENT_SHOULD_COMMIT;
+	private static final Class<?> NAME_ANNOTATION, LABEL_ANNOTATION, CATEGORY_ANNOTATION, DATA_AMOUNT_ANNOTATION;
+
+	private static final EventType PHASE;
+	private static final EventType ENTRYPOINT;
+
+	static {
+		boolean available = false;
+		MethodHandle annotationNew = null, valueNew = null, factoryCreate = null, factoryNewEvent = null;
+		MethodHandle begin = null, end = null, commit = null, set = null, shouldCommit = null;
+		Class<?> name = null, label = null, category = null, dataAmount = null;
+
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+			Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+
+			name = Class.forName("jdk.jfr.Name");
+			label = Class.forName("jdk.jfr.Label");
+			category = Class.forName("jdk.jfr.Category");
+			dataAmount = Class.forName("jdk.jfr.DataAmount");
+
+			annotationNew = lookup.findConstructor(annotationElement, MethodType.methodType(void.class, Class.class, Object.class));
+			valueNew = lookup.findConstructor(valueDescriptor, MethodType.methodType(void.class, Class.class, String.class, List.class));
+			factoryCreate = lookup.findStatic(eventFactory, "create", MethodType.methodType(eventFactory, List.class, List.class));
+			factoryNewEvent = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event));
+			begin = lookup.findVirtual(event, "begin", MethodType.methodType(void.class));
+			end = lookup.findVirtual(event, "end", MethodType.methodType(void.class));
+			commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class));
+			set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class));
+			shouldCommit = lookup.findVirtual(event, "shouldCommit", MethodType.methodType(boolean.class));
+			available = true;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// JFR isn't available on this VM
+		}
+
+		AVAILABLE = available;
+		ANNOTATION_ELEMENT_NEW = annotationNew;
+		VALUE_DESCRIPTOR_NEW = valueNew;
+		EVENT_FACTORY_CREATE = factoryCreate;
+		EVENT_FACTORY_NEW_EVENT = factoryNewEvent;
+		EVENT_BEGIN = begin;
+		EVENT_END = end;
+		EVENT_COMMIT = commit;
+		EVENT_SET = set;
+		EVENT_SHOULD_COMMIT = shouldCommit;
+		NAME_ANNOTATION = name;
+		LABEL_ANNOTATION = label;
+		CATEGORY_ANNOTATION = category;
+		DATA_AMOUNT_ANNOTATION = dataAmount;
+
+		PHASE = create("org.quiltmc.loader.StartupPhase", "Startup Phase", //
+			field(String.class, "category", "Category"), //
+			field(String.class, "name", "Name"), //
+			bytesField("allocated", "Allocated") //
+		);
+
+		ENTRYPOINT = create("org.quiltmc.loader.Entrypoint", "Entrypoint", //
+			field(String.class, "mod", "Mod"), //
+			field(String.class, "key", "Key"), //
+			field(String.class, "stage", "Stage"), //
+			bytesField("allocated", "Allocated") //
+		);
+	}
+
+	private JfrEvents() {}
+
+	static Object beginPhase(String category, String name) {
+		Object event = PHASE.newEvent();
+
+		if (event != null) {
+			PHASE.set(event, 0, category);
+			PHASE.set(event, 1, name);
+			PHASE.begin(event);
+		}
+
+		return event;
+	}
+
+	static void endPhase(Object event, long allocatedBytes) {
+		if (event != null) {
+			PHASE.set(event, 2, allocatedBytes);
+			PHASE.end(event);
+			PHASE.commit(event);
+		}
+	}
+
+	static Object beginEntrypoint(String mod, String key, String stage) {
+		Object event = ENTRYPOINT.newEvent();
+
+		if (event != null) {
+			ENTRYPOINT.set(event, 0, mod);
+			ENTRYPOINT.set(event, 1, key);
+			ENTRYPOINT.set(event, 2, stage);
+			ENTRYPOINT.begin(event);
+		}
+
+		return event;
+	}
+
+	static void endEntrypoint(Object event, long allocatedBytes) {
+		if (event != null) {
+			ENTRYPOINT.set(event, 3, allocatedBytes);
+			ENTRYPOINT.end(event);
+			ENTRYPOINT.commit(event);
+		}
+	}
+
+	static final class Field {
+		final Class<?> type;
+		final String name, label;
+		final boolean bytes;
+
+		Field(Class<?> type, String name, String label, boolean bytes) {
+			this.type = type;
+			this.name = name;
+			this.label = label;
+			this.bytes = bytes;
+		}
+	}
+
+	static Field field(Class<?> type, String name, String label) {
+		return new Field(type, name, label, false);
+	}
+
+	static Field bytesField(String name, String label) {
+		return new Field(long.class, name, label, true);
+	}
+
+	/** Creates a new event type, in the {@link #CATEGORY quilt loader category}.
+	 *
+	 * @return The event type. This is never null - if JFR isn't available then it just never creates any events. */
+	static EventType create(String name, String label, Field... fields) {
+		if (!AVAILABLE) {
+			return new EventType(null);
+		}
+
+		try {
+			List<Object> annotations = Arrays.asList(
+				ANNOTATION_ELEMENT_NEW.invoke(NAME_ANNOTATION, name),
+				ANNOTATION_ELEMENT_NEW.invoke(LABEL_ANNOTATION, label),
+				ANNOTATION_ELEMENT_NEW.invoke(CATEGORY_ANNOTATION, CATEGORY)
+			);
+
+			List<Object> values = new ArrayList<>();
+
+			for (Field field : fields) {
+				List<Object> fieldAnnotations = new ArrayList<>();
+				fieldAnnotations.add(ANNOTATION_ELEMENT_NEW.invoke(LABEL_ANNOTATION, field.label));
+
+				if (field.bytes) {
+					fieldAnnotations.add(ANNOTATION_ELEMENT_NEW.invoke(DATA_AMOUNT_ANNOTATION, "BYTES"));
+				}
+
+				values.add(VALUE_DESCRIPTOR_NEW.invoke(field.type, field.name, Collections.unmodifiableList(fieldAnnotations)));
+			}
+
+			return new EventType(EVENT_FACTORY_CREATE.invoke(annotations, values));
+		} catch (Throwable t) {
+			Log.warn(LogCategory.GENERAL, "Failed to create the JFR event type " + name, t);
+			return new EventType(null);
+		}
+	}
+
+	/** A JFR event type. All of the methods that take an event accept (and ignore) null. */
+	static final class EventType {
+		private final Object factory;
+
+		EventType(Object factory) {
+			this.factory = factory;
+		}
+
+		/** @return A new event, or null if JFR isn't available. */
+		Object newEvent() {
+			if (factory == null) {
+				return null;
+			}
+
+			try {
+				return EVENT_FACTORY_NEW_EVENT.invoke(factory);
+			} catch (Throwable t) {
+				return null;
+			}
+		}
+
+		void begin(Object event) {
+			invoke(EVENT_BEGIN, event);
+		}
+
+		void end(Object event) {
+			invoke(EVENT_END, event);
+		}
+
+		void set(Object event, int index, Object value) {
+			if (event != null) {
+				try {
+					EVENT_SET.invoke(event, index, value);
+				} catch (Throwable t) {
+					// Ignored, since this can only be a programming error
+				}
+			}
+		}
+
+		/** @return True if the event passes the recording's threshold, and so should be filled in and committed. */
+		boolean shouldCommit(Object event) {
+			if (event == null) {
+				return false;
+			}
+
+			try {
+				return (boolean) EVENT_SHOULD_COMMIT.invoke(event);
+			} catch (Throwable t) {
+				return false;
+			}
+		}
+
+		void commit(Object event) {
+			invoke(EVENT_COMMIT, event);
+		}
+
+		private static void invoke(MethodHandle handle, Object event) {
+			if (event != null) {
+				try {
+					handle.invoke(event);
+				} catch (Throwable t) {
+					// Ignored, since this can only be a programming error
+				}
+			}
+		}
+	}
+}
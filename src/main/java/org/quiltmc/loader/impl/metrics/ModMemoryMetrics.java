@@ -0,0 +1,286 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.loader.api.plugin.ModContainerExt;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
+import org.quiltmc.loader.impl.filesystem.QuiltJoinedPath;
+import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Estimates how much memory each loaded mod is costing: the in-memory file systems its files are held in, the joined
+ * file systems on top of them, and its metadata. The classes knot has defined from it (taken from
+ * {@link ClassLoadingMetrics}) are reported alongside, but aren't part of the estimated total.
+ * <p>
+ * Nothing is recorded ahead of time: every call walks the loaded mods again, so the numbers are always current. */
+public final class ModMemoryMetrics implements ModMemoryMetricsMXBean {
+
+	public static final String OBJECT_NAME = "org.quiltmc.loader:type=ModMemory";
+
+	private static final boolean ENABLED = !Boolean.getBoolean(SystemProperties.DISABLE_MOD_MEMORY_METRICS);
+	private static final ModMemoryMetrics INSTANCE = new ModMemoryMetrics();
+
+	private static final String[] METADATA_FILES = { "quilt.mod.json", "fabric.mod.json" };
+
+	/** The memory used by a single mod. */
+	static final class ModMemory {
+		final String modId;
+		long fileBytes, uncompressedFileBytes, fileSystemFootprint, joinedFootprint, metadataBytes;
+		long classes, bytecodeBytes;
+
+		ModMemory(String modId) {
+			this.modId = modId;
+		}
+
+		/** Bytecode isn't included: class files held in memory are already part of {@link #fileSystemFootprint}, and
+		 * the bytes read from anywhere else are dropped once the class is defined. */
+		long estimatedTotal() {
+			return fileSystemFootprint + joinedFootprint + metadataBytes;
+		}
+	}
+
+	/** Mod id to the resource root the mod was loaded with, for mods whose {@link ModContainerExt#rootPath()} is in
+	 * the transform cache instead. The original root is still held in memory, so it still counts. */
+	private final Map<String, Path> untransformedRoots = new ConcurrentHashMap<>();
+
+	private ModMemoryMetrics() {}
+
+	public static ModMemoryMetrics get() {
+		return INSTANCE;
+	}
+
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/** Registers {@link #get() the metrics} with the platform MBean server, if they are enabled. Like
+	 * {@link ClassLoadingMetrics#registerMBean()} this happens on a background thread. */
+	public static void registerMBean() {
+		if (!ENABLED) {
+			return;
+		}
+
+		Thread thread = new Thread(() -> {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+			} catch (JMException | LinkageError e) {
+				Log.warn(LogCategory.KNOT, "Failed to register the mod memory metrics MBean", e);
+			}
+		}, "Quilt Mod Memory Metrics Registration");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Used to include the original files of a mod which was transformed, since its root path only points at the
+	 * transformed classes. */
+	public static void registerUntransformedRoot(String modId, Path resourceRoot) {
+		if (ENABLED) {
+			INSTANCE.untransformedRoots.put(modId, resourceRoot);
+		}
+	}
+
+	/** @return The memory used by every loaded mod, largest first. Empty if mods haven't been loaded yet. */
+	static List<ModMemory> compute() {
+		Collection<ModContainerExt> mods = QuiltLoaderImpl.INSTANCE.getAllModsExt();
+		Map<String, long[]> classes = ClassLoadingMetrics.get().getClassesAndBytesByMod();
+		List<ModMemory> list = new ArrayList<>();
+
+		for (ModContainerExt mod : mods) {
+			String modId = mod.metadata().id();
+			ModMemory memory = measure(modId, mod.rootPath(), INSTANCE.untransformedRoots.get(modId));
+			long[] modClasses = classes.get(modId);
+
+			if (modClasses != null) {
+				memory.classes = modClasses[0];
+				memory.bytecodeBytes = modClasses[1];
+			}
+
+			list.add(memory);
+		}
+
+		list.sort((a, b) -> Long.compare(b.estimatedTotal(), a.estimatedTotal()));
+		return list;
+	}
+
+	/** @param untransformedRoot The root the mod was loaded with, if its root path is in the transform cache.
+	 * @return The memory used by the file systems and metadata of a single mod, without any classes. */
+	static ModMemory measure(String modId, Path rootPath, @Nullable Path untransformedRoot) {
+		ModMemory memory = new ModMemory(modId);
+		Set<FileSystem> visited = new HashSet<>();
+		// Only the root paths, since source paths can be inside the file system of the mod that contains this one
+		addFileSystem(memory, visited, rootPath);
+
+		if (untransformedRoot != null) {
+			addFileSystem(memory, visited, untransformedRoot);
+		}
+
+		memory.metadataBytes = metadataSize(rootPath);
+
+		if (memory.metadataBytes == 0 && untransformedRoot != null) {
+			memory.metadataBytes = metadataSize(untransformedRoot);
+		}
+
+		return memory;
+	}
+
+	private static long metadataSize(Path root) {
+		for (String name : METADATA_FILES) {
+			try {
+				Path metadata = root.resolve(name);
+
+				if (Files.isRegularFile(metadata)) {
+					return Files.size(metadata);
+				}
+			} catch (IOException | RuntimeException e) {
+				// Released or closed file systems just don't count
+			}
+		}
+
+		return 0;
+	}
+
+	private static void addFileSystem(ModMemory memory, Set<FileSystem> visited, Path path) {
+		FileSystem fs = path.getFileSystem();
+
+		if (!visited.add(fs)) {
+			return;
+		}
+
+		if (fs instanceof QuiltMemoryFileSystem.ReadOnly) {
+			QuiltMemoryFileSystem.ReadOnly readOnly = (QuiltMemoryFileSystem.ReadOnly) fs;
+			memory.fileBytes += readOnly.getUsedSize();
+			memory.uncompressedFileBytes += readOnly.getUncompressedSize();
+			memory.fileSystemFootprint += readOnly.getEstimatedMemoryFootprint();
+		} else if (fs instanceof QuiltMemoryFileSystem.ReadWrite) {
+			long used = ((QuiltMemoryFileSystem.ReadWrite) fs).getUsedSize();
+			memory.fileBytes += used;
+			memory.uncompressedFileBytes += used;
+			memory.fileSystemFootprint += used;
+		} else if (fs instanceof QuiltJoinedFileSystem) {
+			QuiltJoinedFileSystem joined = (QuiltJoinedFileSystem) fs;
+			QuiltJoinedPath root = (QuiltJoinedPath) joined.getRoot();
+			memory.joinedFootprint += joined.getEstimatedMemoryFootprint();
+
+			for (int i = 0; i < joined.getBackingPathCount(); i++) {
+				addFileSystem(memory, visited, joined.getBackingPath(i, root));
+			}
+		}
+	}
+
+	private static Map<String, Long> map(ToLongFunction<ModMemory> getter) {
+		Map<String, Long> map = new LinkedHashMap<>();
+
+		for (ModMemory memory : compute()) {
+			map.put(memory.modId, getter.applyAsLong(memory));
+		}
+
+		return map;
+	}
+
+	/** Appends each line of {@link #dump()} to the given consumer. */
+	public void appendReport(Consumer<String> to) {
+		List<ModMemory> mods = compute();
+		to.accept(String.format(Locale.ROOT, "%-40s %14s %14s %14s %12s %12s %14s %8s %14s", "Mod", "File Bytes", //
+			"Uncompressed", "FS Footprint", "Joined FS", "Metadata", "Total", "Classes", "Bytecode"));
+
+		long total = 0;
+
+		for (ModMemory mod : mods) {
+			total += mod.estimatedTotal();
+			to.accept(String.format(Locale.ROOT, "%-40s %,14d %,14d %,14d %,12d %,12d %,14d %8d %,14d", mod.modId, //
+				mod.fileBytes, mod.uncompressedFileBytes, mod.fileSystemFootprint, mod.joinedFootprint, //
+				mod.metadataBytes, mod.estimatedTotal(), mod.classes, mod.bytecodeBytes));
+		}
+
+		to.accept(String.format(Locale.ROOT, "Estimated total: %,d bytes across %d mods", total, mods.size()));
+	}
+
+	// ###
+	// JMX
+	// ###
+
+	@Override
+	public Map<String, Long> getFileBytesByMod() {
+		return map(m -> m.fileBytes);
+	}
+
+	@Override
+	public Map<String, Long> getUncompressedFileBytesByMod() {
+		return map(m -> m.uncompressedFileBytes);
+	}
+
+	@Override
+	public Map<String, Long> getFileSystemFootprintByMod() {
+		return map(m -> m.fileSystemFootprint);
+	}
+
+	@Override
+	public Map<String, Long> getJoinedFileSystemFootprintByMod() {
+		return map(m -> m.joinedFootprint);
+	}
+
+	@Override
+	public Map<String, Long> getMetadataBytesByMod() {
+		return map(m -> m.metadataBytes);
+	}
+
+	@Override
+	public Map<String, Long> getClassesByMod() {
+		return map(m -> m.classes);
+	}
+
+	@Override
+	public Map<String, Long> getBytecodeBytesByMod() {
+		return map(m -> m.bytecodeBytes);
+	}
+
+	@Override
+	public Map<String, Long> getEstimatedTotalBytesByMod() {
+		return map(ModMemory::estimatedTotal);
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+		appendReport(line -> sb.append(line).append('\n'));
+		return sb.toString();
+	}
+}
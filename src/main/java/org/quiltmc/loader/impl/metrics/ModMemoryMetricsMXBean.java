@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.util.Map;
+
+/** The JMX view of {@link ModMemoryMetrics}, registered as {@value ModMemoryMetrics#OBJECT_NAME}. Every map is keyed
+ * by mod id, and sorted by {@link #getEstimatedTotalBytesByMod()}, largest first. */
+public interface ModMemoryMetricsMXBean {
+
+	/** @return The number of bytes of file data each mod's in-memory file systems hold. Since most files are stored
+	 *         compressed this is usually smaller than {@link #getUncompressedFileBytesByMod()}. */
+	Map<String, Long> getFileBytesByMod();
+
+	/** @return The uncompressed size of every file in each mod's in-memory file systems. */
+	Map<String, Long> getUncompressedFileBytesByMod();
+
+	/** @return An estimate of the heap used by each mod's in-memory file systems, including paths and folders. */
+	Map<String, Long> getFileSystemFootprintByMod();
+
+	/** @return An estimate of the heap used by each mod's joined file systems, which is mostly their indexes. */
+	Map<String, Long> getJoinedFileSystemFootprintByMod();
+
+	/** @return The size of each mod's metadata file. The parsed metadata is kept for the whole game, and is roughly
+	 *         proportional to this. */
+	Map<String, Long> getMetadataBytesByMod();
+
+	/** @return The number of classes knot has defined from each mod. */
+	Map<String, Long> getClassesByMod();
+
+	/** @return The number of class file bytes knot has read from each mod. This isn't part of
+	 *         {@link #getEstimatedTotalBytesByMod()}, since in-memory class files are already counted by
+	 *         {@link #getFileSystemFootprintByMod()}. */
+	Map<String, Long> getBytecodeBytesByMod();
+
+	/** @return The sum of the file system, joined file system, and metadata estimates, for each mod. */
+	Map<String, Long> getEstimatedTotalBytesByMod();
+
+	/** @return A human readable table of every metric. */
+	String dump();
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.quiltmc.json5.JsonWriter;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** Records how long each phase of startup takes, as a tree of nested {@link Phase}s. Each phase is also emitted as a
+ * JFR event (when JFR is available), and the whole tree is written to {@code .quilt/startup-timeline.json} once the
+ * game is about to start.
+ * <p>
+ * Phases are nested per-thread: a phase begun while another phase is open on the same thread becomes its child. Phases
+ * begun on a thread without an open phase are added to the root of the timeline.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * try (StartupTimeline.Phase phase = StartupTimeline.begin("loader", "solve")) {
+ *     // ...
+ * }
+ * </pre> */
+public final class StartupTimeline {
+
+	public static final String FILE_NAME = "startup-timeline.json";
+
+	private static final boolean ENABLED = !Boolean.getBoolean(SystemProperties.DISABLE_STARTUP_TIMELINE);
+
+	private static final long START_NANOS = System.nanoTime();
+	private static final long START_MILLIS = System.currentTimeMillis();
+
+	private static final Phase NO_OP = new Phase(null, null, null, null);
+
+	private static final List<Phase> ROOTS = new ArrayList<>();
+	private static final ThreadLocal<Phase> CURRENT = new ThreadLocal<>();
+
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+	private static volatile boolean finished = false;
+
+	private StartupTimeline() {}
+
+	/** @return True if phases are being recorded. Callers only need to check this if computing the phase name is
+	 *         expensive. */
+	public static boolean isEnabled() {
+		return ENABLED && !finished;
+	}
+
+	/** Begins a new phase on the current thread. The returned phase must be {@link Phase#close() closed} on the same
+	 * thread, preferably with a try-with-resources statement.
+	 *
+	 * @param category A short, fixed name for the area of the loader this phase is in, like "knot" or "plugin".
+	 * @param name The name of this phase. */
+	public static Phase begin(String category, String name) {
+		if (!isEnabled()) {
+			return NO_OP;
+		}
+
+		Thread thread = Thread.currentThread();
+		Phase parent = CURRENT.get();
+		Phase phase = new Phase(parent, category, name, thread.getName());
+		phase.startNanos = System.nanoTime();
+		phase.startAllocated = getAllocatedBytes(thread);
+		phase.jfrEvent = JfrEvents.beginPhase(category, name);
+
+		synchronized (ROOTS) {
+			// finish() may have cleared the timeline since isEnabled() was checked
+			if (!finished) {
+				(parent == null ? ROOTS : parent.children).add(phase);
+			}
+		}
+
+		CURRENT.set(phase);
+		return phase;
+	}
+
+	/** Stops recording and writes the timeline to the given file. Phases which haven't been closed yet are written
+	 * with their duration so far. Only the first call does anything. Afterwards the recorded phases are dropped, since
+	 * nothing reads them again (and there's one for every scanned file). */
+	public static void finish(Path file) {
+		if (!isEnabled()) {
+			return;
+		}
+
+		finished = true;
+		long now = System.nanoTime();
+
+		try {
+			write(file, now);
+		} finally {
+			synchronized (ROOTS) {
+				ROOTS.clear();
+			}
+
+			// Phases still open on other threads remove themselves from those threads when they're closed
+			CURRENT.remove();
+		}
+	}
+
+	private static void write(Path file, long now) {
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (Writer out = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+				JsonWriter writer = JsonWriter.json(out);
+				writer.beginObject();
+				writer.name("loader_version").value(QuiltLoaderImpl.VERSION);
+				writer.name("start_time").value(START_MILLIS);
+				writer.name("total_ms").value(toMillis(now - START_NANOS));
+				writer.name("phases");
+
+				synchronized (ROOTS) {
+					writePhases(writer, ROOTS, now);
+				}
+
+				writer.endObject();
+				writer.flush();
+			}
+
+			Log.debug(LogCategory.GENERAL, "Wrote the startup timeline to %s", file);
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to write the startup timeline to " + file, e);
+		}
+	}
+
+	private static void writePhases(JsonWriter writer, List<Phase> phases, long now) throws IOException {
+		writer.beginArray();
+
+		for (Phase phase : phases) {
+			long end = phase.endNanos != 0 ? phase.endNanos : now;
+
+			writer.beginObject();
+			writer.name("category").value(phase.category);
+			writer.name("name").value(phase.name);
+			writer.name("thread").value(phase.threadName);
+			writer.name("start_ms").value(toMillis(phase.startNanos - START_NANOS));
+			writer.name("duration_ms").value(toMillis(end - phase.startNanos));
+
+			if (phase.allocatedBytes >= 0) {
+				writer.name("allocated_bytes").value(phase.allocatedBytes);
+			}
+
+			if (phase.endNanos == 0) {
+				writer.name("unfinished").value(true);
+			}
+
+			if (!phase.children.isEmpty()) {
+				writer.name("children");
+				writePhases(writer, phase.children, now);
+			}
+
+			writer.endObject();
+		}
+
+		writer.endArray();
+	}
+
+	private static double toMillis(long nanos) {
+		// Microsecond precision is plenty
+		return (nanos / 1_000) / 1_000.0;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		if (!ENABLED) {
+			return null;
+		}
+
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+				if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+					return sunBean;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// Not a HotSpot-based VM (or the management module isn't present)
+		}
+
+		return null;
+	}
+
+	static long getAllocatedBytes(Thread thread) {
+		return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getThreadAllocatedBytes(thread.getId()) : -1;
+	}
+
+	public static final class Phase implements AutoCloseable {
+		final Phase parent;
+		final String category, name, threadName;
+		final List<Phase> children = new ArrayList<>();
+
+		long startNanos, endNanos;
+		long startAllocated;
+		long allocatedBytes = -1;
+		Object jfrEvent;
+
+		Phase(Phase parent, String category, String name, String threadName) {
+			this.parent = parent;
+			this.category = category;
+			this.name = name;
+			this.threadName = threadName;
+		}
+
+		@Override
+		public void close() {
+			if (this == NO_OP || endNanos != 0) {
+				return;
+			}
+
+			endNanos = System.nanoTime();
+
+			if (startAllocated >= 0) {
+				allocatedBytes = getAllocatedBytes(Thread.currentThread()) - startAllocated;
+			}
+
+			JfrEvents.endPhase(jfrEvent, allocatedBytes);
+
+			if (CURRENT.get() == this) {
+				if (parent == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(parent);
+				}
+			}
+		}
+	}
+}
@@ -38,8 +38,10 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
@@ -89,6 +91,7 @@ import org.quiltmc.loader.impl.filesystem.QuiltJoinedPath;
 import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.metadata.qmj.VersionConstraintImpl;
+import org.quiltmc.loader.impl.metrics.StartupTimeline;
 import org.quiltmc.loader.impl.plugin.base.InternalModContainerBase;
 import org.quiltmc.loader.impl.plugin.fabric.StandardFabricPlugin;
 import org.quiltmc.loader.impl.plugin.gui.GuiManagerImpl;
@@ -104,6 +107,8 @@ import org.quiltmc.loader.impl.solver.ModSolveResultImpl;
 import org.quiltmc.loader.impl.solver.ModSolveResultImpl.LoadOptionResult;
 import org.quiltmc.loader.impl.solver.Sat4jWrapper;
 import org.quiltmc.loader.impl.util.SystemProperties;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
 import org.quiltmc.loader.util.sat4j.specs.TimeoutException;
 
 import net.fabricmc.api.EnvType;
@@ -126,6 +131,11 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	final Map<Path, String> customPathNames = new HashMap<>();
 	final Map<String, Integer> allocatedFileSystemIndices = new HashMap<>();
 
+	/** Every file system created by {@link #loadZip(Path)}. These are owned by this manager, so the ones that no loaded
+	 * mod needs are {@link QuiltMemoryFileSystem.ReadOnly#release() released} by {@link #cleanup(ModSolveResultImpl)}
+	 * once solving succeeds. */
+	final Set<QuiltMemoryFileSystem.ReadOnly> zipFileSystems = new HashSet<>();
+
 	final Map<Path, String> modFolders = new LinkedHashMap<>();
 	final Map<Path, ModLoadOption> modPaths = new LinkedHashMap<>();
 	final Map<ModLoadOption, String> modProviders = new HashMap<>();
@@ -145,7 +155,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	/** Every mod id that contained a plugin, at any point. Used to scan for plugins at the start of each cycle. */
 	final Set<String> idsWithPlugins = new HashSet<>();
 
-	final Sat4jWrapper solver = new Sat4jWrapper();
+	final Sat4jWrapper solver;
 
 	/** Set to null if {@link QuiltLoaderConfig#singleThreadedLoading} is true, otherwise this will be a useful
 	 * value. */
@@ -161,6 +171,10 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	final Map<ModLoadOption, PluginGuiTreeNode> modGuiNodes = new HashMap<>();
 	final List<QuiltPluginErrorImpl> errors = new ArrayList<>();
 
+	/** If {@link #guiModsRoot} should be populated once solving succeeds, or fails. It's only ever shown in the loader
+	 * window, so there's no point building it when that can't be opened. */
+	private boolean modsGuiTabOnSuccess = true, modsGuiTabOnError = true;
+
 	/** Only written by {@link #runSingleCycle()}, only read during crash report generation. */
 	private PerCycleStep perCycleStep;
 
@@ -175,7 +189,14 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	}
 
 	public QuiltPluginManagerImpl(Path gameDir, Path configDir, Path modsDir, GameProvider game, boolean simulationOnly, QuiltLoaderConfig config) {
+		this(gameDir, configDir, modsDir, game, simulationOnly, config, new Sat4jWrapper());
+	}
+
+	/** @param solver The solver used for every cycle. Only tests pass their own, to measure how long each solver step
+	 *            takes. */
+	protected QuiltPluginManagerImpl(Path gameDir, Path configDir, Path modsDir, GameProvider game, boolean simulationOnly, QuiltLoaderConfig config, Sat4jWrapper solver) {
 		this.simulationOnly = simulationOnly;
+		this.solver = solver;
 		this.game = game;
 		gameVersion = game == null ? null : Version.of(game.getNormalizedGameVersion());
 		this.config = config;
@@ -197,9 +218,20 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		theFabricPluginContext = addBuiltinPlugin(theFabricPlugin, "quilted_fabric_loader");
 	}
 
+	/** Sets whether {@link #guiModsRoot} will actually be shown, after {@link #run(boolean)} returns or throws. The tab
+	 * is only populated if it will be. */
+	public void setModsGuiTabNeeded(boolean onSuccess, boolean onError) {
+		this.modsGuiTabOnSuccess = onSuccess;
+		this.modsGuiTabOnError = onError;
+	}
+
 	private BuiltinPluginContext addBuiltinPlugin(BuiltinQuiltPlugin plugin, String id) {
 		BuiltinPluginContext ctx = new BuiltinPluginContext(this, id, plugin);
-		plugin.load(ctx, Collections.emptyMap());
+
+		try (StartupTimeline.Phase phase = beginPluginPhase(ctx, "load")) {
+			plugin.load(ctx, Collections.emptyMap());
+		}
+
 		plugins.put(plugin, ctx);
 		return ctx;
 	}
@@ -254,10 +286,19 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 				}
 			}
 
-			for (Path root : fileSystem.getRootDirectories()) {
-				Path qRoot = copyToReadOnlyFileSystem(zip.getFileName().toString(), root);
-				pathParents.put(qRoot, zip);
-				return qRoot;
+			try {
+				for (Path root : fileSystem.getRootDirectories()) {
+					Path qRoot = copyToReadOnlyFileSystem(zip.getFileName().toString(), root);
+					zipFileSystems.add((QuiltMemoryFileSystem.ReadOnly) qRoot.getFileSystem());
+					pathParents.put(qRoot, zip);
+					return qRoot;
+				}
+			} finally {
+				try {
+					fileSystem.close();
+				} catch (IOException e) {
+					// Everything we need has already been copied out
+				}
 			}
 
 			throw new IOException("No root directories found in " + describePath(zip));
@@ -617,11 +658,35 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		appendModDetails(modDetails::lines);
 		modDetails.setShowInLogs(false);
 
-		populateModsGuiTab(null);
+		QuiltStringSection zipMemory = report.addStringSection("Zip Memory", 100);
+		appendZipMemory(zipMemory::lines);
+		zipMemory.setShowInLogs(false);
+
+		if (modsGuiTabOnError) {
+			populateModsGuiTab(null);
+		}
 
 		throw new QuiltReportedError(report);
 	}
 
+	/** Appends the memory used by every zip loaded by {@link #loadZip(Path)}, largest first. */
+	private void appendZipMemory(Consumer<String> to) {
+		List<QuiltMemoryFileSystem.ReadOnly> list = new ArrayList<>(zipFileSystems);
+		list.sort(Comparator.comparingInt(QuiltMemoryFileSystem.ReadOnly::getEstimatedMemoryFootprint).reversed());
+		long total = 0;
+
+		to.accept(String.format(Locale.ROOT, "%-60s %14s %14s %14s", "Zip", "Used", "Uncompressed", "Footprint"));
+
+		for (QuiltMemoryFileSystem.ReadOnly fs : list) {
+			total += fs.getEstimatedMemoryFootprint();
+			Path zip = pathParents.get(fs.getRoot());
+			to.accept(String.format(Locale.ROOT, "%-60s %,14d %,14d %,14d", zip == null ? fs.getName() : describePath(zip), //
+				fs.getUsedSize(), fs.getUncompressedSize(), fs.getEstimatedMemoryFootprint()));
+		}
+
+		to.accept(String.format(Locale.ROOT, "Estimated total: %,d bytes across %d zips", total, list.size()));
+	}
+
 	private void populateModsGuiTab(ModSolveResultImpl result) {
 		// WARNING Temporary mod list
 		// (This will be moved to on mod load option addition)
@@ -1057,10 +1122,18 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 
 		for (int cycle = 0; cycle < 1000; cycle++) {
 			this.cycleNumber = cycle + 1;
-			ModSolveResultImpl result = runSingleCycle();
+			ModSolveResultImpl result;
+
+			try (StartupTimeline.Phase phase = StartupTimeline.begin("plugin", "cycle " + cycleNumber)) {
+				result = runSingleCycle();
+			}
+
 			checkForErrors();
 			if (result != null) {
-				populateModsGuiTab(result);
+				if (modsGuiTabOnSuccess) {
+					populateModsGuiTab(result);
+				}
+				cleanup(result);
 				return result;
 			}
 		}
@@ -1112,10 +1185,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 
 		while (true) {
 			if (config.singleThreadedLoading) {
-				MainThreadTask task;
-				while ((task = mainThreadTasks.poll()) != null) {
-					task.execute(this);
-				}
+				runMainThreadTasks();
 
 				// TODO: Also wait for GUI tasks
 
@@ -1126,7 +1196,9 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 			switch (step) {
 				case START: {
 					for (QuiltPluginContext pluginCtx : plugins.values()) {
-						pluginCtx.plugin().beforeSolve();
+						try (StartupTimeline.Phase phase = beginPluginPhase(pluginCtx, "beforeSolve")) {
+							pluginCtx.plugin().beforeSolve();
+						}
 					}
 					checkForErrors();
 					this.perCycleStep = step = PerCycleStep.SOLVE;
@@ -1134,7 +1206,13 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 				}
 				case SOLVE: {
 
-					if (solver.hasSolution()) {
+					boolean hasSolution;
+
+					try (StartupTimeline.Phase phase = StartupTimeline.begin("plugin", "solve")) {
+						hasSolution = solver.hasSolution();
+					}
+
+					if (hasSolution) {
 						ModSolveResultImpl partialResult = getPartialSolution();
 
 						if (processTentatives(partialResult)) {
@@ -1158,9 +1236,6 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 					return null;
 				}
 				case SUCCESS: {
-
-					cleanup();
-
 					return result;
 				}
 				default: {
@@ -1171,6 +1246,19 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 
 	}
 
+	/** Runs every queued {@link MainThreadTask}, which is where mod files are scanned. Only tests override this, to time
+	 * scanning separately from solving. */
+	protected void runMainThreadTasks() {
+		MainThreadTask task;
+		while ((task = mainThreadTasks.poll()) != null) {
+			task.execute(this);
+		}
+	}
+
+	private static StartupTimeline.Phase beginPluginPhase(QuiltPluginContext ctx, String callback) {
+		return StartupTimeline.begin("plugin", ctx.pluginId() + " " + callback);
+	}
+
 	private void handleSolverFailure() throws TimeoutException {
 
 		boolean failed = false;
@@ -1183,7 +1271,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 				BasePluginContext ctx = entry.getValue();
 				boolean recovered = plugin.handleError(rules);
 				Rule blamed = null;
-				try {
+				try (StartupTimeline.Phase phase = beginPluginPhase(ctx, "handleError")) {
 					ctx.blameableRules = rules;
 					recovered = plugin.handleError(rules);
 					blamed = ctx.blamedRule;
@@ -1323,9 +1411,70 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		}
 	}
 
-	private void cleanup() {
-		// TODO: Cleanup:
-		// - zips loaded with "loadZip(Path)" but not claimed or used by a mod
+	/** Releases every zip file system (loaded by {@link #loadZip(Path)}) which isn't needed by a loaded mod, a loaded
+	 * plugin, or one of the zips they were found inside. Rejected mods (and every other version of each mod) would
+	 * otherwise keep their whole jar in memory until this manager is garbage collected. */
+	private void cleanup(ModSolveResultImpl result) {
+		Set<FileSystem> needed = new HashSet<>();
+
+		for (ModLoadOption mod : result.directMods().values()) {
+			addNeededFileSystems(needed, mod.from());
+			addNeededFileSystems(needed, mod.resourceRoot());
+		}
+
+		for (ModLoadOption mod : result.providedMods().values()) {
+			addNeededFileSystems(needed, mod.from());
+			addNeededFileSystems(needed, mod.resourceRoot());
+		}
+
+		for (QuiltPluginContextImpl plugin : pluginsById.values()) {
+			addNeededFileSystems(needed, plugin.optionFrom.from());
+			addNeededFileSystems(needed, plugin.pluginPath);
+		}
+
+		int released = 0;
+		long releasedBytes = 0;
+
+		for (Iterator<QuiltMemoryFileSystem.ReadOnly> iter = zipFileSystems.iterator(); iter.hasNext();) {
+			QuiltMemoryFileSystem.ReadOnly fs = iter.next();
+
+			if (!needed.contains(fs)) {
+				iter.remove();
+				released++;
+				releasedBytes += fs.getEstimatedMemoryFootprint();
+				fs.release();
+			}
+		}
+
+		modPaths.keySet().removeIf(path -> !path.getFileSystem().isOpen());
+
+		if (released > 0) {
+			Log.debug(LogCategory.DISCOVERY, "Released %d unused zip file systems (about %,d bytes)", released, releasedBytes);
+		}
+	}
+
+	/** Adds the file system of the given path to the set, along with the file systems of every zip it was loaded from,
+	 * and every path a joined file system joins together. */
+	private void addNeededFileSystems(Set<FileSystem> needed, Path path) {
+		while (path != null) {
+			FileSystem fs = path.getFileSystem();
+
+			if (!needed.add(fs)) {
+				return;
+			}
+
+			if (fs instanceof QuiltJoinedFileSystem) {
+				QuiltJoinedFileSystem joined = (QuiltJoinedFileSystem) fs;
+				QuiltJoinedPath root = (QuiltJoinedPath) joined.getRoot();
+
+				for (int i = 0; i < joined.getBackingPathCount(); i++) {
+					addNeededFileSystems(needed, joined.getBackingPath(i, root));
+				}
+			}
+
+			Path root = path.getRoot();
+			path = root == null ? null : pathParents.get(root);
+		}
 	}
 
 	/** Processes {@link TentativeLoadOption}s.
@@ -1469,7 +1618,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 			return;
 		}
 
-		try {
+		try (StartupTimeline.Phase phase = StartupTimeline.begin("plugin", metadata.id() + " load")) {
 			QuiltPluginContextImpl pluginCtx = new QuiltPluginContextImpl(this, from, data);
 
 			plugins.put(pluginCtx.plugin, pluginCtx);
@@ -1485,15 +1634,6 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		}
 	}
 
-	private static void forceGcButBadly() {
-		// What part of this is badly?
-		// Shh, don't check git log
-		System.gc();
-		System.gc();
-		System.gc();
-		System.gc();
-	}
-
 	// #########
 	// # Tasks #
 	// #########
@@ -1668,7 +1808,9 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 		for (BasePluginContext ctx : plugins.values()) {
 			ModLoadOption[] mods;
 			try {
-				mods = ctx.plugin().scanFolder(folder, location, guiNode);
+				try (StartupTimeline.Phase phase = beginPluginPhase(ctx, "scanFolder")) {
+					mods = ctx.plugin().scanFolder(folder, location, guiNode);
+				}
 			} catch (IOException e) {
 				// FOR NOW
 				// TODO: Proper error handling!
@@ -1816,7 +1958,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	/** Called by {@link MainThreadTask.ScanZipTask} */
 	void scanZip(Path zipFile, Path zipRoot, ModLocationImpl location, PluginGuiTreeNode guiNode) {
 
-		try {
+		try (StartupTimeline.Phase scanPhase = StartupTimeline.begin("discovery", describePath(zipFile))) {
 			state.push(guiNode);
 
 			Map<ModLoadOption, BasePluginContext> map = new HashMap<>();
@@ -1824,7 +1966,9 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 			for (BasePluginContext ctx : plugins.values()) {
 				ModLoadOption[] mods;
 				try {
-					mods = ctx.plugin().scanZip(zipRoot, location, guiNode);
+					try (StartupTimeline.Phase phase = beginPluginPhase(ctx, "scanZip")) {
+						mods = ctx.plugin().scanZip(zipRoot, location, guiNode);
+					}
 				} catch (IOException e) {
 					// FOR NOW
 					// TODO: Proper error handling!
@@ -1854,7 +1998,7 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 	/** Called by {@link MainThreadTask.ScanUnknownFileTask} */
 	void scanUnknownFile(Path file, ModLocationImpl location, PluginGuiTreeNode guiNode) {
 
-		try {
+		try (StartupTimeline.Phase scanPhase = StartupTimeline.begin("discovery", describePath(file))) {
 			state.push(guiNode);
 
 			Map<ModLoadOption, BasePluginContext> map = new HashMap<>();
@@ -1862,7 +2006,9 @@ public class QuiltPluginManagerImpl implements QuiltPluginManager {
 			for (BasePluginContext ctx : plugins.values()) {
 				ModLoadOption[] mods;
 				try {
-					mods = ctx.plugin().scanUnknownFile(file, location, guiNode);
+					try (StartupTimeline.Phase phase = beginPluginPhase(ctx, "scanUnknownFile")) {
+						mods = ctx.plugin().scanUnknownFile(file, location, guiNode);
+					}
 				} catch (IOException e) {
 					// FOR NOW
 					// TODO: Proper error handling!
@@ -28,6 +28,11 @@ import org.quiltmc.loader.api.plugin.gui.QuiltLoaderText;
 import org.quiltmc.loader.impl.gui.QuiltJsonGui;
 import org.quiltmc.loader.impl.gui.QuiltJsonGui.QuiltTreeWarningLevel;
 
+/** The tree built up while scanning and solving, which is only converted into a real {@link QuiltJsonGui} tree (by
+ * {@link #toNode(QuiltJsonGui.QuiltStatusNode, boolean)}) if a window is actually shown. Since that often never happens
+ * (for example on dedicated servers) nodes are kept as small as possible: children are just appended to a single list
+ * (which isn't created until the first child is added) and split up and sorted in {@link #toNode}, and the maximum
+ * warning level is updated incrementally rather than by rescanning every sibling. */
 public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 
 	final GuiManagerImpl guiManager;
@@ -43,22 +48,23 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 	PluginIconImpl mainIcon = GuiManagerImpl.ICON_NULL;
 	PluginIconImpl subIcon = null;
 
-	final List<TempQuilt2OldStatusNode> childrenByAddition, childrenByAlphabetical;
+	/** Every child, in the order they were added. Null if this has no children. */
+	List<TempQuilt2OldStatusNode> children;
+
+	/** True if this node is sorted {@link SortOrder#ALPHABETICAL_ORDER alphabetically} in its parent, rather than by
+	 * addition. */
+	boolean alphabetical;
 
 	Boolean expandByDefault = null;
 
 	public TempQuilt2OldStatusNode(GuiManagerImpl guiManager) {
 		this.guiManager = guiManager;
 		this.parent = null;
-		childrenByAddition = new ArrayList<>();
-		childrenByAlphabetical = new ArrayList<>();
 	}
 
 	public TempQuilt2OldStatusNode(TempQuilt2OldStatusNode parent) {
 		this.guiManager = parent.guiManager;
 		this.parent = parent;
-		childrenByAddition = new ArrayList<>();
-		childrenByAlphabetical = new ArrayList<>();
 	}
 
 	public void toNode(QuiltJsonGui.QuiltStatusNode node, boolean debug) {
@@ -78,8 +84,20 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 			node.expandByDefault = expandByDefault;
 		}
 
-		for (TempQuilt2OldStatusNode n : childrenByAddition) {
-			if (debug || n.directLevel != WarningLevel.DEBUG_ONLY) {
+		if (children == null) {
+			return;
+		}
+
+		List<TempQuilt2OldStatusNode> childrenByAlphabetical = new ArrayList<>();
+
+		for (TempQuilt2OldStatusNode n : children) {
+			if (!debug && n.directLevel == WarningLevel.DEBUG_ONLY) {
+				continue;
+			}
+
+			if (n.alphabetical) {
+				childrenByAlphabetical.add(n);
+			} else {
 				n.toNode(node.addChild(n.text.toString()), debug);
 			}
 		}
@@ -87,9 +105,7 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 		childrenByAlphabetical.sort(Comparator.comparing((TempQuilt2OldStatusNode a) -> a.sortPrefix).thenComparing(a -> a.text.toString()));
 
 		for (TempQuilt2OldStatusNode n : childrenByAlphabetical) {
-			if (debug || n.directLevel != WarningLevel.DEBUG_ONLY) {
-				n.toNode(node.addChild(n.text.toString()), debug);
-			}
+			n.toNode(node.addChild(n.text.toString()), debug);
 		}
 	}
 
@@ -114,17 +130,22 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 		child.text = text;
 		switch (sortOrder) {
 			case ADDITION_ORDER: {
-				childrenByAddition.add(child);
 				break;
 			}
 			case ALPHABETICAL_ORDER: {
-				childrenByAlphabetical.add(child);
+				child.alphabetical = true;
 				break;
 			}
 			default: {
 				throw new IllegalStateException("Unknown SortOrder " + sortOrder);
 			}
 		}
+
+		if (children == null) {
+			children = new ArrayList<>(4);
+		}
+
+		children.add(child);
 		return child;
 	}
 
@@ -160,22 +181,34 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 	private void resetCachedLevel() {
 		WarningLevel max = directLevel;
 
-		for (TempQuilt2OldStatusNode c : childrenByAddition) {
-			if (c.getMaximumLevel().ordinal() < max.ordinal()) {
-				max = c.getMaximumLevel();
+		if (children != null) {
+			for (TempQuilt2OldStatusNode c : children) {
+				if (c.getMaximumLevel().ordinal() < max.ordinal()) {
+					max = c.getMaximumLevel();
+				}
 			}
 		}
 
-		for (TempQuilt2OldStatusNode c : childrenByAlphabetical) {
-			if (c.getMaximumLevel().ordinal() < max.ordinal()) {
-				max = c.getMaximumLevel();
-			}
+		WarningLevel old = cachedLevel;
+		cachedLevel = max;
+
+		if (parent != null && old != max) {
+			parent.childLevelChanged(old, max);
 		}
+	}
 
-		cachedLevel = max;
+	private void childLevelChanged(WarningLevel oldLevel, WarningLevel newLevel) {
+		if (newLevel.ordinal() < cachedLevel.ordinal()) {
+			// More severe than anything else here, so there's no need to look at every other child
+			WarningLevel old = cachedLevel;
+			cachedLevel = newLevel;
 
-		if (parent != null) {
-			parent.resetCachedLevel();
+			if (parent != null) {
+				parent.childLevelChanged(old, newLevel);
+			}
+		} else if (oldLevel == cachedLevel) {
+			// That child might have been the most severe, so everything needs checking again
+			resetCachedLevel();
 		}
 	}
 
@@ -195,11 +228,10 @@ public class TempQuilt2OldStatusNode implements PluginGuiTreeNode {
 		if (getDirectLevel() == level) {
 			count++;
 		}
-		for (TempQuilt2OldStatusNode child : childrenByAddition) {
-			count += child.countOf(level);
-		}
-		for (TempQuilt2OldStatusNode child : childrenByAlphabetical) {
-			count += child.countOf(level);
+		if (children != null) {
+			for (TempQuilt2OldStatusNode child : children) {
+				count += child.countOf(level);
+			}
 		}
 		return count;
 	}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.quiltmc.loader.api.minecraft.ClientOnly;
+import org.quiltmc.loader.api.minecraft.DedicatedServerOnly;
+import org.quiltmc.loader.api.plugin.solver.ModLoadOption;
+import org.quiltmc.loader.impl.plugin.quilt.BuiltinModOption;
+import org.quiltmc.loader.impl.plugin.quilt.ProvidedModOption;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+import net.fabricmc.api.Environment;
+import net.fabricmc.api.EnvironmentInterface;
+import net.fabricmc.api.EnvironmentInterfaces;
+
+/** An index of which mod classes might carry environment annotations, built once when the transform cache is created
+ * and stored inside it as {@value #FILE_NAME}.
+ * <p>
+ * Every package that contains a mod class is recorded, alongside the classes in that package whose constant pool
+ * references one of the environment annotations. {@link QuiltTransformer} uses this to return every other class in
+ * those packages untouched, without parsing them at all. Classes in packages that no mod contains (and any class when
+ * no index is installed) still go through the full {@link EnvironmentStrippingData} pass. This relies on mods not
+ * sharing packages with non-mod code on the class path, which is why the index is only used outside of development
+ * environments. */
+public final class EnvironmentAnnotationIndex {
+
+	public static final String FILE_NAME = "environment-index.txt";
+
+	/** Increment this whenever the format or scanning changes, to force the transform cache to be rebuilt. */
+	public static final int VERSION = 2;
+
+	private static final String HEADER = "quilt-loader-environment-index " + VERSION;
+
+	private static final byte[][] DESCRIPTORS = {
+		descriptor(Environment.class), //
+		descriptor(EnvironmentInterface.class), //
+		descriptor(EnvironmentInterfaces.class), //
+		descriptor(ClientOnly.class), //
+		descriptor(DedicatedServerOnly.class), //
+	};
+
+	private static volatile EnvironmentAnnotationIndex installed;
+
+	/** Package name (with dots) to the names of every class in that package which has environment annotations. */
+	private final Map<String, Set<String>> packages;
+
+	private EnvironmentAnnotationIndex(Map<String, Set<String>> packages) {
+		this.packages = packages;
+	}
+
+	/** Sets the index that {@link #canSkip(String)} uses, or clears it if the given index is null. */
+	public static void install(EnvironmentAnnotationIndex index) {
+		installed = index;
+	}
+
+	/** @param name The binary name of a class, with dots.
+	 * @return True if the installed index says that the class has no environment annotations. */
+	public static boolean canSkip(String name) {
+		EnvironmentAnnotationIndex index = installed;
+
+		if (index == null) {
+			return false;
+		}
+
+		int dot = name.lastIndexOf('.');
+		Set<String> annotated = index.packages.get(dot < 0 ? "" : name.substring(0, dot));
+		return annotated != null && !annotated.contains(name);
+	}
+
+	/** Scans every class in the given mods, and writes the index to {@value #FILE_NAME} in the given transform cache
+	 * root.
+	 * <p>
+	 * Builtin mods (the game, java, and loader itself) and provided mods are never scanned, since they aren't mod code
+	 * (and scanning them would walk the whole game jar and java installation). Mods which fail to be scanned are left
+	 * out, so their classes just go through the full {@link EnvironmentStrippingData} pass instead.
+	 *
+	 * @param transformRoot The root of the transform cache. Mods which have been remapped are scanned from here rather
+	 *            than from their original root. */
+	public static void write(Path transformRoot, List<ModLoadOption> mods) throws IOException {
+		Map<String, Map<String, Set<String>>> byMod = new TreeMap<>();
+		int annotatedCount = 0;
+
+		for (ModLoadOption mod : mods) {
+			if (mod instanceof BuiltinModOption || mod instanceof ProvidedModOption) {
+				continue;
+			}
+
+			Path root = mod.resourceRoot();
+
+			if (mod.namespaceMappingFrom() != null) {
+				Path remapped = transformRoot.resolve(mod.id());
+
+				if (Files.isDirectory(remapped)) {
+					root = remapped;
+				}
+			}
+
+			Map<String, Set<String>> packages = new TreeMap<>();
+
+			try {
+				scanMod(root, packages);
+			} catch (IOException | IOError e) {
+				Log.warn(LogCategory.GENERAL, "Failed to index the environment annotations of " + mod.id() + ", so its classes will always be scanned", e);
+				continue;
+			}
+
+			byMod.put(mod.id(), packages);
+
+			for (Set<String> annotated : packages.values()) {
+				annotatedCount += annotated.size();
+			}
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(transformRoot.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+
+			for (Map.Entry<String, Map<String, Set<String>>> mod : byMod.entrySet()) {
+				writer.write("mod " + mod.getKey());
+				writer.newLine();
+
+				for (Map.Entry<String, Set<String>> pkg : mod.getValue().entrySet()) {
+					writer.write("package " + pkg.getKey());
+					writer.newLine();
+
+					for (String cls : pkg.getValue()) {
+						writer.write("class " + cls);
+						writer.newLine();
+					}
+				}
+			}
+		}
+
+		Log.debug(LogCategory.GENERAL, "Indexed environment annotations of %d mods, found %d annotated classes", byMod.size(), annotatedCount);
+	}
+
+	private static void scanMod(Path root, Map<String, Set<String>> packages) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				String path = root.relativize(file).toString().replace('\\', '/');
+
+				if (!path.endsWith(".class")) {
+					return FileVisitResult.CONTINUE;
+				}
+
+				if (path.startsWith("META-INF/versions/")) {
+					// Multi-release classes share their name with the base class
+					int start = path.indexOf('/', "META-INF/versions/".length());
+
+					if (start < 0) {
+						return FileVisitResult.CONTINUE;
+					}
+
+					path = path.substring(start + 1);
+				} else if (path.startsWith("META-INF/")) {
+					return FileVisitResult.CONTINUE;
+				}
+
+				String name = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+
+				if (name.endsWith("package-info") || name.equals("module-info")) {
+					// Handled separately by KnotClassDelegate
+					return FileVisitResult.CONTINUE;
+				}
+
+				int dot = name.lastIndexOf('.');
+				Set<String> annotated = packages.computeIfAbsent(dot < 0 ? "" : name.substring(0, dot), p -> new TreeSet<>());
+
+				if (mayHaveAnnotations(Files.readAllBytes(file))) {
+					annotated.add(name);
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/** Reads an index previously written by {@link #write(Path, List)}.
+	 *
+	 * @return The index, or null if the file doesn't exist or was written by a different version. */
+	public static EnvironmentAnnotationIndex read(Path file) {
+		Map<String, Set<String>> packages = new HashMap<>();
+
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				return null;
+			}
+
+			Set<String> current = null;
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("package ")) {
+					current = packages.computeIfAbsent(line.substring("package ".length()), p -> new HashSet<>());
+				} else if (line.startsWith("class ") && current != null) {
+					current.add(line.substring("class ".length()));
+				}
+				// "mod" lines are only there to make the file easier to read
+			}
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Log.warn(LogCategory.GENERAL, "Failed to read the environment annotation index " + file, e);
+			return null;
+		}
+
+		for (Map.Entry<String, Set<String>> entry : packages.entrySet()) {
+			if (entry.getValue().isEmpty()) {
+				entry.setValue(Collections.emptySet());
+			}
+		}
+
+		return new EnvironmentAnnotationIndex(packages);
+	}
+
+	/** Checks the constant pool of a class file for the descriptor of any environment annotation. This doesn't check
+	 * whether the annotation is actually applied to anything, so it can return true for classes which only reference
+	 * the annotation in some other way.
+	 *
+	 * @return False if the class definitely doesn't have any environment annotations. Malformed class files return
+	 *         true, so they still go through the normal transformer (and fail there). */
+	static boolean mayHaveAnnotations(byte[] bytes) {
+		try {
+			if (readInt(bytes, 0) != 0xCAFEBABE) {
+				return true;
+			}
+
+			int count = readShort(bytes, 8);
+			int offset = 10;
+
+			for (int i = 1; i < count; i++) {
+				int tag = bytes[offset] & 0xFF;
+				offset++;
+
+				switch (tag) {
+					case 1: { // Utf8
+						int length = readShort(bytes, offset);
+						offset += 2;
+
+						if (matchesDescriptor(bytes, offset, length)) {
+							return true;
+						}
+
+						offset += length;
+						break;
+					}
+					case 7: // Class
+					case 8: // String
+					case 16: // MethodType
+					case 19: // Module
+					case 20: // Package
+						offset += 2;
+						break;
+					case 15: // MethodHandle
+						offset += 3;
+						break;
+					case 3: // Integer
+					case 4: // Float
+					case 9: // Fieldref
+					case 10: // Methodref
+					case 11: // InterfaceMethodref
+					case 12: // NameAndType
+					case 17: // Dynamic
+					case 18: // InvokeDynamic
+						offset += 4;
+						break;
+					case 5: // Long
+					case 6: // Double
+						offset += 8;
+						// These take up two entries
+						i++;
+						break;
+					default:
+						return true;
+				}
+			}
+
+			return false;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			return true;
+		}
+	}
+
+	private static boolean matchesDescriptor(byte[] bytes, int offset, int length) {
+		outer: for (byte[] descriptor : DESCRIPTORS) {
+			if (descriptor.length != length) {
+				continue;
+			}
+
+			for (int i = 0; i < length; i++) {
+				if (bytes[offset + i] != descriptor[i]) {
+					continue outer;
+				}
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private static int readShort(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (readShort(bytes, offset) << 16) | readShort(bytes, offset + 2);
+	}
+
+	private static byte[] descriptor(Class<?> cls) {
+		// Class names are always plain ascii, so this is identical to the class file's modified utf-8
+		return ("L" + cls.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -40,7 +40,9 @@ import org.quiltmc.loader.impl.util.HashUtil;
 
 public class TransformCache {
 
-	public static void populateTransformBundle(Path transformCacheFile, List<ModLoadOption> modList, ModSolveResult result) throws ModResolutionException {
+	/** @return The options that the transform cache was created with. These contain the hash of every loaded mod, so can
+	 *         be used as a fingerprint of the whole mod set. */
+	public static String populateTransformBundle(Path transformCacheFile, List<ModLoadOption> modList, ModSolveResult result) throws ModResolutionException {
 		Map<String, String> map = new TreeMap<>();
 		// Mod order is important? For now, assume it is
 		int index = 0;
@@ -48,6 +50,9 @@ public class TransformCache {
 			map.put("mod#" + index++, mod.id());
 		}
 
+		// Older caches won't contain the environment index
+		map.put("environment-index", Integer.toString(EnvironmentAnnotationIndex.VERSION));
+
 		for (Entry<String, ModLoadOption> provided : result.providedMods().entrySet()) {
 			map.put("provided-mod:" + provided.getKey(), provided.getValue().metadata().id());
 		}
@@ -79,10 +84,11 @@ public class TransformCache {
 
 		Path existing = checkTransformCache(transformCacheFile, options);
 		if (existing != null) {
-			return;
+			return options;
 		}
 
 		createTransformCache(transformCacheFile, options, modList, result);
+		return options;
 	}
 
 	private static Path checkTransformCache(Path transformCacheFile, String options) throws ModResolutionException {
@@ -159,8 +165,9 @@ public class TransformCache {
 		}
 	}
 
-	private static void populateTransformCache(Path root, List<ModLoadOption> modList, ModSolveResult result) {
+	private static void populateTransformCache(Path root, List<ModLoadOption> modList, ModSolveResult result) throws IOException {
 		RuntimeModRemapper.remap(root, modList);
 		// TODO: Invoke chasm
+		EnvironmentAnnotationIndex.write(root, modList);
 	}
 }
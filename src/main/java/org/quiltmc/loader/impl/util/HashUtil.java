@@ -53,6 +53,15 @@ public class HashUtil {
 		}
 	}
 
+	public static byte[] computeHash(byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/** "Hashes" the current date and time. (Except instead of hashing, this just returns the date and time badly
 	 * encoded as bytes). */
 	public static byte[] currentDateAndTimeHash() {
@@ -87,4 +96,17 @@ public class HashUtil {
 		}
 		return sb.toString();
 	}
+
+	/** @return The given hash as a lowercase hex string, without any separators. Useful for cache file names. */
+	public static String hashToHex(byte[] hash) {
+		StringBuilder sb = new StringBuilder(hash.length * 2);
+		for (byte b : hash) {
+			int i = Byte.toUnsignedInt(b);
+			if (i < 0x10) {
+				sb.append("0");
+			}
+			sb.append(Integer.toHexString(i));
+		}
+		return sb.toString();
+	}
 }
@@ -23,6 +23,8 @@ public final class SystemProperties {
 	public static final String GAME_JAR_PATH = "loader.gameJarPath";
 	public static final String GAME_VERSION = "loader.gameVersion";
 	public static final String REMAP_CLASSPATH_FILE = "loader.remapClasspathFile";
+	// remap game classes individually when they are first loaded, instead of remapping the whole game jar up-front
+	public static final String LAZY_GAME_REMAP = "loader.lazyGameRemap";
 	public static final String DEBUG_MOD_SOLVING = "loader.debug.mod_solving";
 	public static final String MODS_DIRECTORY = "loader.modsDir";
 	public static final String CONFIG_DIRECTORY = "loader.configDir";
@@ -32,6 +34,10 @@ public final class SystemProperties {
 	public static final String GLOBAL_CONFIG_EXTENSION = "loader.globalConfigExtension";
 	public static final String LOG_FILE = "loader.log.file";
 	public static final String LOG_LEVEL = "loader.log.level";
+	// print log output before the game's logger is set up on the calling thread, rather than on a background thread
+	public static final String DISABLE_ASYNC_LOG = "loader.log.disableAsync";
+	// the number of log entries kept to replay to the game's logger (or to write to the log file), older entries are dropped (defaults to 65536)
+	public static final String LOG_REPLAY_BUFFER_SIZE = "loader.log.replayBufferSize";
 	public static final String SKIP_MC_PROVIDER = "loader.skipMcProvider";
 	// additional mods to load (path separator separated paths, @ prefix for meta-file with each line referencing an actual file)
 	// names that end with "\*" (windows) or "/*" (any) will make loader scan the folder, otherwise it will be loaded as a mod.
@@ -52,6 +58,32 @@ public final class SystemProperties {
 	public static final String DEBUG_REPLACE_VERSION = "loader.debug.replaceVersion";
 	// defaults to 60 seconds; can be changed by setting the system property
 	public static final String DEBUG_RESOLUTION_TIME_LIMIT = "loader.debug.resolutionTimeLimit";
+	// don't record the startup timeline (.quilt/startup-timeline.json and the matching JFR events)
+	public static final String DISABLE_STARTUP_TIMELINE = "loader.disableStartupTimeline";
+	// don't collect per-class loading metrics (exposed over JMX as org.quiltmc.loader:type=ClassLoading)
+	public static final String DISABLE_CLASS_LOADING_METRICS = "loader.disableClassLoadingMetrics";
+	// don't register the mod memory metrics (exposed over JMX as org.quiltmc.loader:type=ModMemory)
+	public static final String DISABLE_MOD_MEMORY_METRICS = "loader.disableModMemoryMetrics";
+	// always run the environment stripping pass on mod classes, rather than skipping classes the transform cache's index says aren't annotated
+	public static final String DISABLE_ENVIRONMENT_INDEX = "loader.disableEnvironmentIndex";
+	// the number of classes mixin has read to keep parsed in memory, 0 to disable (defaults to 2048)
+	public static final String MIXIN_CLASS_NODE_CACHE_SIZE = "loader.mixinClassNodeCacheSize";
+	// cache classes after mixins are applied in .quilt/mixin-class-cache: "true" to enable, or "verify" to also check every cached class against a fresh transform
+	public static final String MIXIN_CLASS_CACHE = "loader.mixinClassCache";
+	// the number of threads used to read mixin configs and refmaps before mixin registers them, 0 to disable (defaults to the number of processors, up to 8)
+	public static final String MIXIN_PREFETCH_THREADS = "loader.mixinPrefetchThreads";
+	// always patch the game jar, rather than reusing the patched classes from .quilt/game-patches
+	public static final String DISABLE_GAME_PATCH_CACHE = "loader.disableGamePatchCache";
+	// always classify the class path and look up the game version, rather than reusing the results from .quilt/game-discovery.bin
+	public static final String DISABLE_GAME_DISCOVERY_CACHE = "loader.disableGameDiscoveryCache";
+	// never index joined file systems, so every lookup searches each backing path in turn
+	public static final String DISABLE_JOINED_FILE_SYSTEM_INDEX = "loader.disableJoinedFileSystemIndex";
+	// the number of threads used to load entrypoint classes in the background after pre-launch (defaults to 0, which disables it)
+	public static final String ENTRYPOINT_PRELOAD_THREADS = "loader.entrypointPreloadThreads";
+	// don't time each mod's entrypoints (shown in the mod table, and written to .quilt/entrypoint-metrics.json)
+	public static final String DISABLE_ENTRYPOINT_METRICS = "loader.disableEntrypointMetrics";
+	// create a class data sharing archive of loader and its libraries in .quilt/quilt-loader.jsa once the game has started, if it's missing or out of date
+	public static final String CLASS_DATA_SHARING = "loader.classDataSharing";
 	public static final String DEBUG_DUMP_OVERRIDE_PATHS = "loader.debug.dump_override_paths";
 	private SystemProperties() {
 	}
@@ -24,8 +24,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
@@ -36,29 +38,102 @@ import java.util.Queue;
  * - log to stderr for LogLevel.ERROR
  * - option to relay previous log output to another log handler if requested through Log.init
  * - dumps previous log output to a log file if not closed/relayed yet
+ *
+ * <p>Console output is formatted and printed on a background thread, so logging doesn't block on a slow console.
+ * Errors are printed directly (after everything logged before them) so they can't be lost if the game crashes. The
+ * replay buffer only keeps the most recent {@link SystemProperties#LOG_REPLAY_BUFFER_SIZE} entries.
  */
 final class BuiltinLogHandler extends ConsoleLogHandler {
 	private static final String DEFAULT_LOG_FILE = "quilt_loader.log";
+	private static final int DEFAULT_REPLAY_BUFFER_SIZE = 1 << 16;
+	private static final int PRINT_QUEUE_SIZE = 1024;
+
+	/** Every entry that has been logged, up to the buffer size, as a ring. */
+	private final ReplayEntry[] replayBuffer;
+	private int replayStart, replayCount;
+	private long replayDropped;
+
+	/** Entries waiting to be printed by the {@link #writer}, or null if console output isn't asynchronous. */
+	private final BlockingQueue<ReplayEntry> printQueue;
+	private final Object printLock = new Object();
+	private final Thread writer;
+	private volatile boolean closed;
 
-	private final Queue<ReplayEntry> replayBuffer = new ArrayDeque<>();
 	private final Thread shutdownHook;
 
 	BuiltinLogHandler() {
+		replayBuffer = new ReplayEntry[Math.max(1, Integer.getInteger(SystemProperties.LOG_REPLAY_BUFFER_SIZE, DEFAULT_REPLAY_BUFFER_SIZE))];
+
+		if (Boolean.getBoolean(SystemProperties.DISABLE_ASYNC_LOG)) {
+			printQueue = null;
+			writer = null;
+		} else {
+			printQueue = new ArrayBlockingQueue<>(PRINT_QUEUE_SIZE);
+			writer = new WriterThread();
+			writer.start();
+		}
+
 		shutdownHook = new ShutdownHook();
 		Runtime.getRuntime().addShutdownHook(shutdownHook);
 	}
 
 	@Override
 	public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean isReplayedBuiltin) {
-		super.log(time, level, category, msg, exc, isReplayedBuiltin);
+		ReplayEntry entry = new ReplayEntry(time, level, category, msg, exc);
+
+		if (printQueue == null || closed || !level.isLessThan(LogLevel.ERROR) || !printQueue.offer(entry)) {
+			// Print everything that's still queued first, so the console stays in order
+			synchronized (printLock) {
+				flush();
+				print(entry);
+			}
+		} else if (closed) {
+			// close() ran between the check above and the offer, so the writer may already have stopped
+			flush();
+		} else {
+			LockSupport.unpark(writer);
+		}
 
 		synchronized (this) {
-			replayBuffer.add(new ReplayEntry(time, level, category, msg, exc));
+			if (replayCount < replayBuffer.length) {
+				replayBuffer[(replayStart + replayCount++) % replayBuffer.length] = entry;
+			} else {
+				replayBuffer[replayStart] = entry;
+				replayStart = (replayStart + 1) % replayBuffer.length;
+				replayDropped++;
+			}
+		}
+	}
+
+	/** Prints every queued entry. Entries are only ever removed from the queue while holding the print lock, so they
+	 * are always printed in the order they were logged. */
+	private void flush() {
+		if (printQueue == null) {
+			return;
+		}
+
+		synchronized (printLock) {
+			ReplayEntry entry;
+
+			while ((entry = printQueue.poll()) != null) {
+				print(entry);
+			}
 		}
 	}
 
+	private static void print(ReplayEntry entry) {
+		print(entry.level, formatLog(entry.time, entry.level, entry.category, entry.msg, entry.exc));
+	}
+
 	@Override
 	public void close() {
+		closed = true;
+		flush();
+
+		if (writer != null) {
+			LockSupport.unpark(writer);
+		}
+
 		Thread shutdownHook = this.shutdownHook;
 
 		if (shutdownHook != null) {
@@ -71,15 +146,35 @@ final class BuiltinLogHandler extends ConsoleLogHandler {
 	}
 
 	synchronized boolean replay(LogHandler target) {
+		flush();
+
 		ReplayEntry entry;
 
-		while ((entry = replayBuffer.poll()) != null) {
+		if (replayDropped > 0) {
+			String msg = replayDropped + " earlier log entries were dropped from the replay buffer (the limit is " + replayBuffer.length + ")";
+			target.log(replayBuffer[replayStart].time, LogLevel.WARN, LogCategory.LOG, msg, null, true);
+			replayDropped = 0;
+		}
+
+		while ((entry = pollReplay()) != null) {
 			target.log(entry.time, entry.level, entry.category, entry.msg, entry.exc, true);
 		}
 
 		return true;
 	}
 
+	private ReplayEntry pollReplay() {
+		if (replayCount == 0) {
+			return null;
+		}
+
+		ReplayEntry entry = replayBuffer[replayStart];
+		replayBuffer[replayStart] = null;
+		replayStart = (replayStart + 1) % replayBuffer.length;
+		replayCount--;
+		return entry;
+	}
+
 	private static final class ReplayEntry {
 		ReplayEntry(long time, LogLevel level, LogCategory category, String msg, Throwable exc) {
 			this.time = time;
@@ -96,6 +191,22 @@ final class BuiltinLogHandler extends ConsoleLogHandler {
 		final Throwable exc;
 	}
 
+	private final class WriterThread extends Thread {
+		WriterThread() {
+			super("Quilt Loader Log Writer");
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!closed) {
+				flush();
+				// The timeout is only a safety net: every queued entry unparks this thread
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+			}
+		}
+	}
+
 	private final class ShutdownHook extends Thread {
 		ShutdownHook() {
 			super("BuiltinLogHandler shutdown hook");
@@ -103,8 +214,10 @@ final class BuiltinLogHandler extends ConsoleLogHandler {
 
 		@Override
 		public void run() {
+			flush();
+
 			synchronized (BuiltinLogHandler.this) {
-				if (replayBuffer.isEmpty()) return;
+				if (replayCount == 0) return;
 
 				String fileName = System.getProperty(SystemProperties.LOG_FILE, DEFAULT_LOG_FILE);
 				if (fileName.isEmpty()) return;
@@ -116,7 +229,11 @@ final class BuiltinLogHandler extends ConsoleLogHandler {
 					try (Writer writer = Files.newBufferedWriter(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.CREATE)) {
 						ReplayEntry entry;
 
-						while ((entry = replayBuffer.poll()) != null) {
+						if (replayDropped > 0) {
+							writer.write("(" + replayDropped + " earlier log entries were dropped)" + System.lineSeparator());
+						}
+
+						while ((entry = pollReplay()) != null) {
 							writer.write(formatLog(entry.time, entry.level, entry.category, entry.msg, entry.exc));
 						}
 					}
@@ -19,15 +19,19 @@ package org.quiltmc.loader.impl.util.log;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.TimeZone;
 
 public class ConsoleLogHandler implements LogHandler {
 	private static final LogLevel MIN_STDERR_LEVEL = LogLevel.ERROR;
 	private static final LogLevel MIN_STDOUT_LEVEL = LogLevel.getDefault();
+	private static final String LINE_SEPARATOR = System.lineSeparator();
 
 	@Override
 	public void log(long time, LogLevel level, LogCategory category, String msg, Throwable exc, boolean isRelayedBuiltin) {
-		String formatted = formatLog(time, level, category, msg, exc);
+		print(level, formatLog(time, level, category, msg, exc));
+	}
 
+	protected static void print(LogLevel level, String formatted) {
 		if (level.isLessThan(MIN_STDERR_LEVEL)) {
 			System.out.print(formatted);
 		} else {
@@ -36,20 +40,40 @@ public class ConsoleLogHandler implements LogHandler {
 	}
 
 	protected static String formatLog(long time, LogLevel level, LogCategory category, String msg, Throwable exc) {
-		String ret = String.format("[%tT] [%s] [%s/%s]: %s%n", time, level.name(), Log.NAME, category.name, msg);
+		// Built by hand rather than with String.format, since this runs for every line logged before the game's own
+		// logger takes over
+		StringBuilder sb = new StringBuilder(msg.length() + category.name.length() + 48);
+		sb.append('[');
+		appendTime(sb, time);
+		sb.append("] [").append(level.name()).append("] [").append(Log.NAME).append('/').append(category.name);
+		sb.append("]: ").append(msg).append(LINE_SEPARATOR);
 
 		if (exc != null) {
-			StringWriter writer = new StringWriter(ret.length() + 500);
+			StringWriter writer = new StringWriter(sb.length() + 500);
 
 			try (PrintWriter pw = new PrintWriter(writer, false)) {
-				pw.print(ret);
+				pw.print(sb);
 				exc.printStackTrace(pw);
 			}
 
-			ret = writer.toString();
+			return writer.toString();
 		}
 
-		return ret;
+		return sb.toString();
+	}
+
+	/** Appends the local time of day in the same format as {@code %tT}: HH:MM:SS. The default zone is looked up every
+	 * time (like {@code %tT} does), so changes to it made after startup are still picked up. */
+	private static void appendTime(StringBuilder sb, long time) {
+		long seconds = Math.floorDiv(time + TimeZone.getDefault().getOffset(time), 1000L);
+		int secondOfDay = (int) Math.floorMod(seconds, 24 * 60 * 60);
+		append2(sb, secondOfDay / 3600).append(':');
+		append2(sb, secondOfDay / 60 % 60).append(':');
+		append2(sb, secondOfDay % 60);
+	}
+
+	private static StringBuilder append2(StringBuilder sb, int value) {
+		return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
 	}
 
 	@Override
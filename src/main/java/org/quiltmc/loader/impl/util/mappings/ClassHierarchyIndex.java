@@ -0,0 +1,377 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util.mappings;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.log.Log;
+import org.quiltmc.loader.impl.util.log.LogCategory;
+
+/** The super types and declared members of every class in a set of jars (or folders). This is everything needed to
+ * resolve inherited member references when remapping, without having to keep (or re-read) the classes themselves.
+ * <p>
+ * Indexes can be saved to a file alongside a key computed from the inputs they were built from, so later launches can
+ * skip reading the inputs entirely if they haven't changed. */
+public final class ClassHierarchyIndex {
+
+	private static final int MAGIC = 0x51484958; // "QHIX"
+	private static final int FORMAT_VERSION = 1;
+
+	public static final class ClassEntry {
+		public final String name;
+		public final int access;
+		/** The internal name of the super class, or null for java/lang/Object and module-info. */
+		public final String superName;
+		public final String[] interfaces;
+		public final MemberEntry[] fields;
+		public final MemberEntry[] methods;
+
+		ClassEntry(String name, int access, String superName, String[] interfaces, MemberEntry[] fields, MemberEntry[] methods) {
+			this.name = name;
+			this.access = access;
+			this.superName = superName;
+			this.interfaces = interfaces;
+			this.fields = fields;
+			this.methods = methods;
+		}
+	}
+
+	public static final class MemberEntry {
+		public final int access;
+		public final String name;
+		public final String descriptor;
+
+		MemberEntry(int access, String name, String descriptor) {
+			this.access = access;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+	}
+
+	private static final String[] NO_STRINGS = new String[0];
+	private static final MemberEntry[] NO_MEMBERS = new MemberEntry[0];
+
+	private final Map<String, ClassEntry> classes;
+
+	private ClassHierarchyIndex(Map<String, ClassEntry> classes) {
+		this.classes = classes;
+	}
+
+	/** @param name The internal name of the class.
+	 * @return The entry for the class, or null if the class wasn't in any of the inputs. */
+	public ClassEntry get(String name) {
+		return classes.get(name);
+	}
+
+	public boolean contains(String name) {
+		return classes.containsKey(name);
+	}
+
+	public Collection<ClassEntry> getClasses() {
+		return Collections.unmodifiableCollection(classes.values());
+	}
+
+	public int size() {
+		return classes.size();
+	}
+
+	/** Computes a key which changes whenever any of the given inputs change. Like the game discovery cache, files are
+	 * identified by their path, size and last modified time rather than their contents, since hashing every jar takes
+	 * longer than reading the index saves. Folders are always considered changed, since
+	 * {@link HashUtil#computeHash(Path)} doesn't hash their contents. */
+	public static String computeKey(List<Path> inputs) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+			for (Path input : inputs) {
+				if (Files.isDirectory(input)) {
+					digest.update(input.toString().getBytes(StandardCharsets.UTF_8));
+					digest.update(HashUtil.computeHash(input));
+				} else {
+					BasicFileAttributes attributes = Files.readAttributes(input, BasicFileAttributes.class);
+					String stamp = input.toAbsolutePath() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis() + "\n";
+					digest.update(stamp.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+
+			return HashUtil.hashToHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** Loads the index from the given file if it was saved with the key for the given inputs, otherwise reads every
+	 * class in the inputs and saves the new index to the file. Earlier inputs take priority over later inputs if a
+	 * class is present in more than one. */
+	public static ClassHierarchyIndex loadOrBuild(Path file, List<Path> inputs) throws IOException {
+		String key = computeKey(inputs);
+		ClassHierarchyIndex index = load(file, key);
+
+		if (index != null) {
+			Log.debug(LogCategory.GAME_REMAP, "Reusing the class hierarchy index %s (%d classes)", file, index.size());
+			return index;
+		}
+
+		long start = System.nanoTime();
+		index = build(inputs);
+		Log.debug(LogCategory.GAME_REMAP, "Indexed %d classes in %d ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+		try {
+			index.save(file, key);
+		} catch (IOException e) {
+			Log.warn(LogCategory.GAME_REMAP, "Failed to save the class hierarchy index to " + file, e);
+		}
+
+		return index;
+	}
+
+	public static ClassHierarchyIndex build(List<Path> inputs) throws IOException {
+		Map<String, ClassEntry> classes = new HashMap<>();
+		Map<String, String> strings = new HashMap<>();
+
+		for (Path input : inputs) {
+			if (Files.isDirectory(input)) {
+				try (Stream<Path> stream = Files.walk(input)) {
+					for (Path file : (Iterable<Path>) stream::iterator) {
+						if (file.getFileName() != null && file.getFileName().toString().endsWith(".class")) {
+							try (InputStream is = Files.newInputStream(file)) {
+								addClass(classes, strings, new ClassReader(is));
+							}
+						}
+					}
+				}
+			} else if (Files.exists(input)) {
+				try (ZipFile zip = new ZipFile(input.toFile())) {
+					Enumeration<? extends ZipEntry> entries = zip.entries();
+
+					while (entries.hasMoreElements()) {
+						ZipEntry entry = entries.nextElement();
+
+						if (entry.getName().endsWith(".class") && !entry.getName().startsWith("META-INF/")) {
+							try (InputStream is = zip.getInputStream(entry)) {
+								addClass(classes, strings, new ClassReader(is));
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return new ClassHierarchyIndex(classes);
+	}
+
+	private static void addClass(Map<String, ClassEntry> classes, Map<String, String> strings, ClassReader reader) {
+		if (classes.containsKey(reader.getClassName())) {
+			return;
+		}
+
+		List<MemberEntry> fields = new ArrayList<>();
+		List<MemberEntry> methods = new ArrayList<>();
+		ClassEntry[] result = new ClassEntry[1];
+
+		reader.accept(new ClassVisitor(QuiltLoaderImpl.ASM_VERSION) {
+			String name, superName;
+			String[] interfaces;
+			int access;
+
+			@Override
+			public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+				this.name = intern(strings, name);
+				this.access = access;
+				this.superName = intern(strings, superName);
+				this.interfaces = internAll(strings, interfaces);
+			}
+
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				fields.add(new MemberEntry(access, intern(strings, name), intern(strings, descriptor)));
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				methods.add(new MemberEntry(access, intern(strings, name), intern(strings, descriptor)));
+				return null;
+			}
+
+			@Override
+			public void visitEnd() {
+				result[0] = new ClassEntry(name, access, superName, interfaces, toArray(fields), toArray(methods));
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+		classes.put(result[0].name, result[0]);
+	}
+
+	/** Loads a previously {@link #save(Path, String) saved} index.
+	 *
+	 * @return The index, or null if the file doesn't exist, is unreadable, or was saved with a different key. */
+	public static ClassHierarchyIndex load(Path file, String key) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+				return null;
+			}
+
+			Map<String, String> strings = new HashMap<>();
+			int count = in.readInt();
+			Map<String, ClassEntry> classes = new HashMap<>(count * 2);
+
+			for (int i = 0; i < count; i++) {
+				String name = intern(strings, in.readUTF());
+				int access = in.readInt();
+				String superName = in.readBoolean() ? intern(strings, in.readUTF()) : null;
+				String[] interfaces = new String[in.readUnsignedShort()];
+
+				for (int j = 0; j < interfaces.length; j++) {
+					interfaces[j] = intern(strings, in.readUTF());
+				}
+
+				MemberEntry[] fields = readMembers(in, strings);
+				MemberEntry[] methods = readMembers(in, strings);
+				classes.put(name, new ClassEntry(name, access, superName, interfaces, fields, methods));
+			}
+
+			return new ClassHierarchyIndex(classes);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			Log.warn(LogCategory.GAME_REMAP, "Failed to read the class hierarchy index " + file, e);
+			return null;
+		}
+	}
+
+	private static MemberEntry[] readMembers(DataInputStream in, Map<String, String> strings) throws IOException {
+		int count = in.readInt();
+
+		if (count == 0) {
+			return NO_MEMBERS;
+		}
+
+		MemberEntry[] members = new MemberEntry[count];
+
+		for (int i = 0; i < count; i++) {
+			int access = in.readInt();
+			members[i] = new MemberEntry(access, intern(strings, in.readUTF()), intern(strings, in.readUTF()));
+		}
+
+		return members;
+	}
+
+	public void save(Path file, String key) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(key);
+			out.writeInt(classes.size());
+
+			for (ClassEntry entry : classes.values()) {
+				out.writeUTF(entry.name);
+				out.writeInt(entry.access);
+				out.writeBoolean(entry.superName != null);
+
+				if (entry.superName != null) {
+					out.writeUTF(entry.superName);
+				}
+
+				out.writeShort(entry.interfaces.length);
+
+				for (String itf : entry.interfaces) {
+					out.writeUTF(itf);
+				}
+
+				writeMembers(out, entry.fields);
+				writeMembers(out, entry.methods);
+			}
+		}
+
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void writeMembers(DataOutputStream out, MemberEntry[] members) throws IOException {
+		out.writeInt(members.length);
+
+		for (MemberEntry member : members) {
+			out.writeInt(member.access);
+			out.writeUTF(member.name);
+			out.writeUTF(member.descriptor);
+		}
+	}
+
+	private static String intern(Map<String, String> strings, String str) {
+		if (str == null) {
+			return null;
+		}
+
+		String existing = strings.putIfAbsent(str, str);
+		return existing != null ? existing : str;
+	}
+
+	private static String[] internAll(Map<String, String> strings, String[] array) {
+		if (array == null || array.length == 0) {
+			return NO_STRINGS;
+		}
+
+		String[] result = new String[array.length];
+
+		for (int i = 0; i < array.length; i++) {
+			result[i] = intern(strings, array[i]);
+		}
+
+		return result;
+	}
+
+	private static MemberEntry[] toArray(List<MemberEntry> list) {
+		return list.isEmpty() ? NO_MEMBERS : list.toArray(new MemberEntry[0]);
+	}
+}
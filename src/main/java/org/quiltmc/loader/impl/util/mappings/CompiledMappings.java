@@ -0,0 +1,495 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util.mappings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.fabricmc.mapping.tree.ClassDef;
+import net.fabricmc.mapping.tree.Descriptored;
+import net.fabricmc.mapping.tree.FieldDef;
+import net.fabricmc.mapping.tree.LocalVariableDef;
+import net.fabricmc.mapping.tree.MethodDef;
+import net.fabricmc.mapping.tree.ParameterDef;
+import net.fabricmc.mapping.tree.TinyMetadata;
+import net.fabricmc.mapping.tree.TinyTree;
+
+/** A {@link TinyTree} backed by a (usually memory-mapped) compiled binary form of a tiny file.
+ * <p>
+ * The binary form consists of a string table followed by class, field and method tables, where every entry stores one
+ * string index per namespace. Nothing is decoded up-front: {@link ClassDef}s are lightweight views into the tables, and
+ * strings are only decoded the first time they are asked for. Parameter, local variable and comment data is not
+ * retained, since nothing in loader uses it.
+ * <p>
+ * Layout (all values are big-endian ints unless stated otherwise):
+ * <ol>
+ * <li>Header: magic, format version, tiny major version, tiny minor version, namespace count, property count, string
+ * count, class count, field count, method count.</li>
+ * <li>Namespaces: one string index per namespace.</li>
+ * <li>Properties: key and value string index pairs. (-1 for null values).</li>
+ * <li>String offsets: the absolute offset of every string in the string data.</li>
+ * <li>Classes: one name per namespace, then the first field index, field count, first method index, method
+ * count.</li>
+ * <li>Fields: one name per namespace, then one descriptor per namespace.</li>
+ * <li>Methods: same as fields.</li>
+ * <li>String data: the byte length followed by the UTF-8 bytes of each string.</li>
+ * </ol> */
+public final class CompiledMappings implements TinyTree {
+
+	public static final String FILE_EXTENSION = ".qmap";
+
+	private static final int MAGIC = 0x514D4150; // "QMAP"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_INTS = 10;
+
+	private final ByteBuffer buffer;
+	private final String[] strings;
+	private final int majorVersion, minorVersion;
+	private final List<String> namespaces;
+	private final Map<String, String> properties;
+	private final int classCount;
+	private final int stringOffsetsPos, classTablePos, fieldTablePos, methodTablePos;
+	private final int classRecordSize, memberRecordSize;
+
+	private final List<ClassDef> classes = new AbstractList<ClassDef>() {
+		@Override
+		public ClassDef get(int index) {
+			if (index < 0 || index >= classCount) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return new CompiledClass(index);
+		}
+
+		@Override
+		public int size() {
+			return classCount;
+		}
+	};
+
+	private volatile Map<String, ClassDef> defaultNamespaceClassMap;
+
+	private CompiledMappings(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		if (buffer.capacity() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a compiled mappings file!");
+		}
+
+		if (buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Unsupported compiled mappings version " + buffer.getInt(4));
+		}
+
+		majorVersion = buffer.getInt(8);
+		minorVersion = buffer.getInt(12);
+		int namespaceCount = buffer.getInt(16);
+		int propertyCount = buffer.getInt(20);
+		int stringCount = buffer.getInt(24);
+		classCount = buffer.getInt(28);
+		int fieldCount = buffer.getInt(32);
+		int methodCount = buffer.getInt(36);
+
+		classRecordSize = (namespaceCount + 4) * 4;
+		memberRecordSize = namespaceCount * 2 * 4;
+
+		int namespacesPos = HEADER_INTS * 4;
+		int propertiesPos = namespacesPos + namespaceCount * 4;
+		stringOffsetsPos = propertiesPos + propertyCount * 2 * 4;
+		classTablePos = stringOffsetsPos + stringCount * 4;
+		fieldTablePos = classTablePos + classCount * classRecordSize;
+		methodTablePos = fieldTablePos + fieldCount * memberRecordSize;
+
+		if (methodTablePos + methodCount * memberRecordSize > buffer.capacity()) {
+			throw new IOException("Truncated compiled mappings file!");
+		}
+
+		strings = new String[stringCount];
+
+		String[] namespaceArray = new String[namespaceCount];
+		for (int i = 0; i < namespaceCount; i++) {
+			namespaceArray[i] = string(buffer.getInt(namespacesPos + i * 4));
+		}
+		namespaces = Collections.unmodifiableList(Arrays.asList(namespaceArray));
+
+		Map<String, String> props = new LinkedHashMap<>();
+		for (int i = 0; i < propertyCount; i++) {
+			int pos = propertiesPos + i * 8;
+			props.put(string(buffer.getInt(pos)), string(buffer.getInt(pos + 4)));
+		}
+		properties = Collections.unmodifiableMap(props);
+	}
+
+	/** Maps the given compiled mappings file into memory.
+	 *
+	 * @throws IOException if the file couldn't be read, or isn't a compiled mappings file of the current version. */
+	public static CompiledMappings open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new CompiledMappings(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/** Compiles the given tree into the binary format, writing it to the given file. The file is written to a
+	 * temporary file first, and then moved into place, so a partially written file is never visible to
+	 * {@link #open(Path)}. */
+	public static void write(TinyTree tree, Path file) throws IOException {
+		List<String> namespaces = tree.getMetadata().getNamespaces();
+		int namespaceCount = namespaces.size();
+
+		Map<String, Integer> stringIndices = new HashMap<>();
+		List<String> stringList = new ArrayList<>();
+
+		int[] namespaceTable = new int[namespaceCount];
+		for (int i = 0; i < namespaceCount; i++) {
+			namespaceTable[i] = intern(stringIndices, stringList, namespaces.get(i));
+		}
+
+		Map<String, String> props = tree.getMetadata().getProperties();
+		int[] propertyTable = new int[props.size() * 2];
+		int propertyIndex = 0;
+		for (Map.Entry<String, String> entry : props.entrySet()) {
+			propertyTable[propertyIndex++] = intern(stringIndices, stringList, entry.getKey());
+			propertyTable[propertyIndex++] = intern(stringIndices, stringList, entry.getValue());
+		}
+
+		Collection<ClassDef> classDefs = tree.getClasses();
+		int[] classTable = new int[classDefs.size() * (namespaceCount + 4)];
+		IntList fieldTable = new IntList();
+		IntList methodTable = new IntList();
+		int classPos = 0;
+
+		for (ClassDef classDef : classDefs) {
+			for (String namespace : namespaces) {
+				classTable[classPos++] = intern(stringIndices, stringList, classDef.getName(namespace));
+			}
+
+			Collection<FieldDef> fields = classDef.getFields();
+			classTable[classPos++] = fieldTable.size / (namespaceCount * 2);
+			classTable[classPos++] = fields.size();
+			for (FieldDef field : fields) {
+				writeMember(stringIndices, stringList, namespaces, field, fieldTable);
+			}
+
+			Collection<MethodDef> methods = classDef.getMethods();
+			classTable[classPos++] = methodTable.size / (namespaceCount * 2);
+			classTable[classPos++] = methods.size();
+			for (MethodDef method : methods) {
+				writeMember(stringIndices, stringList, namespaces, method, methodTable);
+			}
+		}
+
+		byte[][] stringBytes = new byte[stringList.size()][];
+		for (int i = 0; i < stringBytes.length; i++) {
+			stringBytes[i] = stringList.get(i).getBytes(StandardCharsets.UTF_8);
+		}
+
+		int stringDataPos = (HEADER_INTS + namespaceTable.length + propertyTable.length + stringBytes.length
+			+ classTable.length + fieldTable.size + methodTable.size) * 4;
+
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(tree.getMetadata().getMajorVersion());
+			out.writeInt(tree.getMetadata().getMinorVersion());
+			out.writeInt(namespaceCount);
+			out.writeInt(props.size());
+			out.writeInt(stringBytes.length);
+			out.writeInt(classDefs.size());
+			out.writeInt(fieldTable.size / (namespaceCount * 2));
+			out.writeInt(methodTable.size / (namespaceCount * 2));
+
+			writeInts(out, namespaceTable, namespaceTable.length);
+			writeInts(out, propertyTable, propertyTable.length);
+
+			int offset = stringDataPos;
+			for (byte[] bytes : stringBytes) {
+				out.writeInt(offset);
+				offset += 4 + bytes.length;
+			}
+
+			writeInts(out, classTable, classTable.length);
+			writeInts(out, fieldTable.values, fieldTable.size);
+			writeInts(out, methodTable.values, methodTable.size);
+
+			for (byte[] bytes : stringBytes) {
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void writeMember(Map<String, Integer> stringIndices, List<String> stringList, List<String> namespaces,
+		Descriptored member, IntList to) {
+
+		for (String namespace : namespaces) {
+			to.add(intern(stringIndices, stringList, member.getName(namespace)));
+		}
+
+		for (String namespace : namespaces) {
+			to.add(intern(stringIndices, stringList, member.getDescriptor(namespace)));
+		}
+	}
+
+	private static int intern(Map<String, Integer> stringIndices, List<String> stringList, String str) {
+		if (str == null) {
+			return -1;
+		}
+
+		Integer index = stringIndices.get(str);
+
+		if (index == null) {
+			index = stringList.size();
+			stringList.add(str);
+			stringIndices.put(str, index);
+		}
+
+		return index;
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	String string(int index) {
+		if (index < 0) {
+			return null;
+		}
+
+		String str = strings[index];
+
+		if (str == null) {
+			int offset = buffer.getInt(stringOffsetsPos + index * 4);
+			byte[] bytes = new byte[buffer.getInt(offset)];
+
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(offset + 4 + i);
+			}
+
+			// Racing threads will decode the same string, which is harmless
+			strings[index] = str = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return str;
+	}
+
+	int namespaceIndex(String namespace) {
+		int index = namespaces.indexOf(namespace);
+
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown namespace " + namespace + " (we know about " + namespaces + ")");
+		}
+
+		return index;
+	}
+
+	@Override
+	public TinyMetadata getMetadata() {
+		return new TinyMetadata() {
+			@Override
+			public int getMajorVersion() {
+				return majorVersion;
+			}
+
+			@Override
+			public int getMinorVersion() {
+				return minorVersion;
+			}
+
+			@Override
+			public List<String> getNamespaces() {
+				return namespaces;
+			}
+
+			@Override
+			public Map<String, String> getProperties() {
+				return properties;
+			}
+
+			public int index(String namespace) {
+				return namespaces.indexOf(namespace);
+			}
+		};
+	}
+
+	@Override
+	public Map<String, ClassDef> getDefaultNamespaceClassMap() {
+		Map<String, ClassDef> map = defaultNamespaceClassMap;
+
+		if (map == null) {
+			map = new HashMap<>();
+
+			for (ClassDef classDef : classes) {
+				map.put(classDef.getName(namespaces.get(0)), classDef);
+			}
+
+			defaultNamespaceClassMap = map = Collections.unmodifiableMap(map);
+		}
+
+		return map;
+	}
+
+	@Override
+	public Collection<ClassDef> getClasses() {
+		return classes;
+	}
+
+	private abstract class CompiledMapped {
+		final int pos;
+
+		CompiledMapped(int pos) {
+			this.pos = pos;
+		}
+
+		public String getName(String namespace) {
+			return string(buffer.getInt(pos + namespaceIndex(namespace) * 4));
+		}
+
+		public String getRawName(String namespace) {
+			return getName(namespace);
+		}
+
+		public String getComment() {
+			return null;
+		}
+	}
+
+	private final class CompiledClass extends CompiledMapped implements ClassDef {
+		CompiledClass(int index) {
+			super(classTablePos + index * classRecordSize);
+		}
+
+		@Override
+		public Collection<FieldDef> getFields() {
+			int countPos = pos + namespaces.size() * 4;
+			int first = buffer.getInt(countPos);
+			int count = buffer.getInt(countPos + 4);
+			return new MemberList<FieldDef>(first, count) {
+				@Override
+				FieldDef create(int index) {
+					return new CompiledField(fieldTablePos + index * memberRecordSize);
+				}
+			};
+		}
+
+		@Override
+		public Collection<MethodDef> getMethods() {
+			int countPos = pos + namespaces.size() * 4 + 8;
+			int first = buffer.getInt(countPos);
+			int count = buffer.getInt(countPos + 4);
+			return new MemberList<MethodDef>(first, count) {
+				@Override
+				MethodDef create(int index) {
+					return new CompiledMethod(methodTablePos + index * memberRecordSize);
+				}
+			};
+		}
+	}
+
+	private abstract class CompiledMember extends CompiledMapped implements Descriptored {
+		CompiledMember(int pos) {
+			super(pos);
+		}
+
+		@Override
+		public String getDescriptor(String namespace) {
+			return string(buffer.getInt(pos + (namespaces.size() + namespaceIndex(namespace)) * 4));
+		}
+	}
+
+	private final class CompiledField extends CompiledMember implements FieldDef {
+		CompiledField(int pos) {
+			super(pos);
+		}
+	}
+
+	private final class CompiledMethod extends CompiledMember implements MethodDef {
+		CompiledMethod(int pos) {
+			super(pos);
+		}
+
+		public Collection<ParameterDef> getParameters() {
+			return Collections.emptyList();
+		}
+
+		public Collection<LocalVariableDef> getLocalVariables() {
+			return Collections.emptyList();
+		}
+	}
+
+	private abstract static class MemberList<T> extends AbstractList<T> {
+		private final int first, count;
+
+		MemberList(int first, int count) {
+			this.first = first;
+			this.count = count;
+		}
+
+		abstract T create(int index);
+
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= count) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return create(first + index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+	private static final class IntList {
+		int[] values = new int[1024];
+		int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+}
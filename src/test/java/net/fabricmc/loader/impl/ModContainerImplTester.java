@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.fabricmc.loader.impl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.ModMetadata;
+
+public class ModContainerImplTester {
+
+	private final TestMod outer = new TestMod(Arrays.asList("mods/outer.jar"));
+	private final TestMod libA = new TestMod(Arrays.asList("mods/outer.jar", "/META-INF/jars/a.jar"));
+	private final TestMod libB = new TestMod(Arrays.asList("mods/outer.jar", "/META-INF/jars/b.jar"));
+	private final TestMod nested = new TestMod(Arrays.asList("mods/outer.jar", "/META-INF/jars/a.jar", "/META-INF/jars/n.jar"));
+	private final TestMod standalone = new TestMod(Arrays.asList("mods/standalone.jar"));
+	/** Bundled by two different mods, so it has two source paths. */
+	private final TestMod shared = new TestMod(
+		Arrays.asList("mods/standalone.jar", "/META-INF/jars/s.jar"), Arrays.asList("mods/outer.jar", "/META-INF/jars/s.jar")
+	);
+	/** Deliberately not in the same order as the source paths. */
+	private final List<ModContainer> mods = Arrays.asList(outer, libB, standalone, libA, nested, shared);
+
+	@Test
+	public void testJarInJarGraph() {
+		ModContainerImpl.FrozenMods frozen = ModContainerImpl.freeze(mods);
+
+		assertContainingMod(null, frozen, outer);
+		assertContainingMod(outer, frozen, libA);
+		assertContainingMod(outer, frozen, libB);
+		assertContainingMod(libA, frozen, nested);
+		assertContainingMod(null, frozen, standalone);
+		// The first source path wins
+		assertContainingMod(standalone, frozen, shared);
+
+		// Contained mods are in load order
+		assertContainedMods(frozen, outer, libB, libA, shared);
+		assertContainedMods(frozen, libA, nested);
+		assertContainedMods(frozen, libB);
+		assertContainedMods(frozen, nested);
+		assertContainedMods(frozen, standalone, shared);
+		assertContainedMods(frozen, shared);
+
+		List<ModContainer> all = new ArrayList<>();
+		for (net.fabricmc.loader.api.ModContainer mod : frozen.getMods()) {
+			all.add(((ModContainerImpl) mod).getQuiltModContainer());
+		}
+		Assertions.assertEquals(mods, all);
+	}
+
+	/** The graph computed by {@link ModContainerImpl#freeze(Collection)} has to match what the wrappers computed on
+	 * every call before the loader was frozen. */
+	@Test
+	public void testFrozenMatchesUnfrozen() {
+		ModContainerImpl.FrozenMods frozen = ModContainerImpl.freeze(mods);
+
+		for (ModContainer mod : mods) {
+			ModContainerImpl wrapper = frozen.get(mod);
+			Optional<net.fabricmc.loader.api.ModContainer> containing = wrapper.getContainingMod();
+			ModContainer expectedContaining = ModContainerImpl.findContainingMod(mod, mods);
+			Assertions.assertEquals(expectedContaining, containing.map(ModContainerImplTester::unwrap).orElse(null));
+
+			List<ModContainer> contained = new ArrayList<>();
+			for (net.fabricmc.loader.api.ModContainer child : wrapper.getContainedMods()) {
+				contained.add(unwrap(child));
+			}
+			Assertions.assertEquals(ModContainerImpl.findContainedMods(mod, mods), contained);
+		}
+	}
+
+	@Test
+	public void testFreezeTwice() {
+		ModContainerImpl.FrozenMods first = ModContainerImpl.freeze(mods);
+		ModContainerImpl.FrozenMods second = ModContainerImpl.freeze(Collections.singletonList(outer));
+
+		Assertions.assertNotSame(first.get(outer), second.get(outer));
+		Assertions.assertNull(second.get(libA));
+		Assertions.assertEquals(0, second.get(outer).getContainedMods().size());
+		Assertions.assertEquals(3, first.get(outer).getContainedMods().size());
+	}
+
+	private static void assertContainingMod(ModContainer expected, ModContainerImpl.FrozenMods frozen, ModContainer mod) {
+		Optional<net.fabricmc.loader.api.ModContainer> containing = frozen.get(mod).getContainingMod();
+
+		if (expected == null) {
+			Assertions.assertFalse(containing.isPresent());
+		} else {
+			Assertions.assertSame(frozen.get(expected), containing.get());
+		}
+	}
+
+	private static void assertContainedMods(ModContainerImpl.FrozenMods frozen, ModContainer mod, ModContainer... expected) {
+		List<net.fabricmc.loader.api.ModContainer> expectedWrappers = new ArrayList<>();
+		for (ModContainer child : expected) {
+			expectedWrappers.add(frozen.get(child));
+		}
+		Assertions.assertEquals(expectedWrappers, new ArrayList<>(frozen.get(mod).getContainedMods()));
+	}
+
+	private static ModContainer unwrap(net.fabricmc.loader.api.ModContainer mod) {
+		return ((ModContainerImpl) mod).getQuiltModContainer();
+	}
+
+	private static final class TestMod implements ModContainer {
+		final List<List<Path>> sourcePaths = new ArrayList<>();
+
+		@SafeVarargs
+		TestMod(List<String>... sourcePaths) {
+			for (List<String> names : sourcePaths) {
+				List<Path> paths = new ArrayList<>();
+				for (String name : names) {
+					paths.add(Paths.get(name));
+				}
+				this.sourcePaths.add(paths);
+			}
+		}
+
+		@Override
+		public ModMetadata metadata() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Path rootPath() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<List<Path>> getSourcePaths() {
+			return sourcePaths;
+		}
+
+		@Override
+		public BasicSourceType getSourceType() {
+			return BasicSourceType.NORMAL_QUILT;
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.mapping.tree.ClassDef;
+import net.fabricmc.mapping.tree.Descriptored;
+import net.fabricmc.mapping.tree.FieldDef;
+import net.fabricmc.mapping.tree.LocalVariableDef;
+import net.fabricmc.mapping.tree.MethodDef;
+import net.fabricmc.mapping.tree.ParameterDef;
+import net.fabricmc.mapping.tree.TinyMetadata;
+import net.fabricmc.mapping.tree.TinyTree;
+
+public class QuiltMappingResolverTester {
+
+	private static final String FROM = "intermediary";
+	private static final String TO = "named";
+
+	/** Built by hand rather than parsed, since the tiny parser never leaves names out. */
+	private static TinyTree createMappings() {
+		List<ClassDef> classes = new ArrayList<>();
+
+		TestClass thing = new TestClass(classes, "net/minecraft/class_1", "net/minecraft/Thing");
+		thing.field("field_1", "I", "count");
+		thing.field("field_2", "I", "field_2");
+		thing.field("field_3", "I", null);
+		thing.field("field_4", "J", "first");
+		thing.field("field_4", "J", "second");
+		thing.field("field_5", "J", "renamed");
+		thing.field("field_5", "J", "field_5");
+		thing.method("method_1", "()V", "tick");
+		thing.method("method_1", "(I)V", "tickBy");
+		thing.method(null, "()V", "orphan");
+
+		new TestClass(classes, "net/minecraft/class_2", "net/minecraft/Other");
+		new TestClass(classes, "net/minecraft/class_3", null);
+		new TestClass(classes, null, "net/minecraft/Orphan");
+		// Both of these are duplicates: the first of the same intermediary name, and the second of the same named name
+		new TestClass(classes, "net/minecraft/class_2", "net/minecraft/Other2");
+		new TestClass(classes, "net/minecraft/class_5", "net/minecraft/Thing");
+
+		return new TestTree(classes);
+	}
+
+	@Test
+	public void testClasses() {
+		QuiltMappingResolver resolver = new QuiltMappingResolver(QuiltMappingResolverTester::createMappings, TO);
+
+		Assertions.assertEquals("net.minecraft.Thing", resolver.mapClassName(FROM, "net.minecraft.class_1"));
+		Assertions.assertEquals("net.minecraft.Other2", resolver.mapClassName(FROM, "net.minecraft.class_2"));
+		Assertions.assertEquals("net.minecraft.class_3", resolver.mapClassName(FROM, "net.minecraft.class_3"));
+		Assertions.assertEquals("net.minecraft.class_9", resolver.mapClassName(FROM, "net.minecraft.class_9"));
+		Assertions.assertEquals("", resolver.mapClassName(FROM, ""));
+
+		Assertions.assertEquals("net.minecraft.class_5", resolver.unmapClassName(FROM, "net.minecraft.Thing"));
+		Assertions.assertEquals("net.minecraft.class_2", resolver.unmapClassName(FROM, "net.minecraft.Other"));
+		Assertions.assertEquals("net.minecraft.class_2", resolver.unmapClassName(FROM, "net.minecraft.Other2"));
+		Assertions.assertEquals("net.minecraft.Orphan", resolver.unmapClassName(FROM, "net.minecraft.Orphan"));
+		Assertions.assertEquals("", resolver.unmapClassName(FROM, ""));
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resolver.mapClassName(FROM, "net/minecraft/class_1"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resolver.mapClassName("official", "a"));
+	}
+
+	@Test
+	public void testMembers() {
+		QuiltMappingResolver resolver = new QuiltMappingResolver(QuiltMappingResolverTester::createMappings, TO);
+		String owner = "net.minecraft.class_1";
+
+		Assertions.assertEquals("count", resolver.mapFieldName(FROM, owner, "field_1", "I"));
+		Assertions.assertEquals("field_1", resolver.mapFieldName(FROM, owner, "field_1", "J"));
+		Assertions.assertEquals("field_2", resolver.mapFieldName(FROM, owner, "field_2", "I"));
+		Assertions.assertEquals("field_3", resolver.mapFieldName(FROM, owner, "field_3", "I"));
+		Assertions.assertEquals("second", resolver.mapFieldName(FROM, owner, "field_4", "J"));
+		Assertions.assertEquals("field_5", resolver.mapFieldName(FROM, owner, "field_5", "J"));
+		Assertions.assertEquals("field_1", resolver.mapFieldName(FROM, "net.minecraft.class_9", "field_1", "I"));
+
+		Assertions.assertEquals("tick", resolver.mapMethodName(FROM, owner, "method_1", "()V"));
+		Assertions.assertEquals("tickBy", resolver.mapMethodName(FROM, owner, "method_1", "(I)V"));
+		Assertions.assertEquals("method_1", resolver.mapMethodName(FROM, owner, "method_1", "(J)V"));
+		// Fields and methods are separate
+		Assertions.assertEquals("method_1", resolver.mapFieldName(FROM, owner, "method_1", "()V"));
+		Assertions.assertNull(resolver.mapMethodName(FROM, owner, null, "()V"));
+	}
+
+	/** Checks every name in the mappings against the hash maps that the resolver used to be built from. */
+	@Test
+	public void testMatchesHashMaps() {
+		TinyTree mappings = createMappings();
+		QuiltMappingResolver resolver = new QuiltMappingResolver(() -> mappings, TO);
+
+		Map<String, String> classNames = new HashMap<>();
+		Map<String, String> classNamesInverse = new HashMap<>();
+		Map<List<String>, String> fieldNames = new HashMap<>();
+		Map<List<String>, String> methodNames = new HashMap<>();
+
+		for (ClassDef classDef : mappings.getClasses()) {
+			String from = classDef.getName(FROM);
+			String to = classDef.getName(TO);
+
+			// The old resolver threw a NullPointerException for these
+			if (from == null || to == null) {
+				continue;
+			}
+
+			from = from.replace('/', '.');
+			to = to.replace('/', '.');
+			classNames.put(from, to);
+			classNamesInverse.put(to, from);
+			recordMembers(from, classDef.getFields(), fieldNames);
+			recordMembers(from, classDef.getMethods(), methodNames);
+		}
+
+		for (Map.Entry<String, String> entry : classNames.entrySet()) {
+			Assertions.assertEquals(entry.getValue(), resolver.mapClassName(FROM, entry.getKey()));
+		}
+
+		for (Map.Entry<String, String> entry : classNamesInverse.entrySet()) {
+			Assertions.assertEquals(entry.getValue(), resolver.unmapClassName(FROM, entry.getKey()));
+		}
+
+		for (Map.Entry<List<String>, String> entry : fieldNames.entrySet()) {
+			List<String> key = entry.getKey();
+			String expected = entry.getValue() == null ? key.get(1) : entry.getValue();
+			Assertions.assertEquals(expected, resolver.mapFieldName(FROM, key.get(0), key.get(1), key.get(2)));
+		}
+
+		for (Map.Entry<List<String>, String> entry : methodNames.entrySet()) {
+			List<String> key = entry.getKey();
+			String expected = entry.getValue() == null ? key.get(1) : entry.getValue();
+			Assertions.assertEquals(expected, resolver.mapMethodName(FROM, key.get(0), key.get(1), key.get(2)));
+		}
+
+		for (String unknown : Arrays.asList("net.minecraft.class_9", "net.minecraft.Unknown", "java.lang.Object")) {
+			Assertions.assertEquals(classNames.getOrDefault(unknown, unknown), resolver.mapClassName(FROM, unknown));
+			Assertions.assertEquals(classNamesInverse.getOrDefault(unknown, unknown), resolver.unmapClassName(FROM, unknown));
+			Assertions.assertEquals("field_1", resolver.mapFieldName(FROM, unknown, "field_1", "I"));
+			Assertions.assertEquals("method_1", resolver.mapMethodName(FROM, unknown, "method_1", "()V"));
+		}
+	}
+
+	private static void recordMembers(String owner, Collection<? extends Descriptored> members, Map<List<String>, String> into) {
+		for (Descriptored member : members) {
+			if (member.getName(FROM) != null) {
+				into.put(Arrays.asList(owner, member.getName(FROM), member.getDescriptor(FROM)), member.getName(TO));
+			}
+		}
+	}
+
+	private static final class TestTree implements TinyTree {
+		final List<ClassDef> classes;
+
+		TestTree(List<ClassDef> classes) {
+			this.classes = classes;
+		}
+
+		@Override
+		public TinyMetadata getMetadata() {
+			return new TinyMetadata() {
+				@Override
+				public int getMajorVersion() {
+					return 2;
+				}
+
+				@Override
+				public int getMinorVersion() {
+					return 0;
+				}
+
+				@Override
+				public List<String> getNamespaces() {
+					return Arrays.asList(FROM, TO);
+				}
+
+				@Override
+				public Map<String, String> getProperties() {
+					return Collections.emptyMap();
+				}
+
+				public int index(String namespace) {
+					return getNamespaces().indexOf(namespace);
+				}
+			};
+		}
+
+		@Override
+		public Map<String, ClassDef> getDefaultNamespaceClassMap() {
+			Map<String, ClassDef> map = new HashMap<>();
+
+			for (ClassDef classDef : classes) {
+				map.put(classDef.getName(FROM), classDef);
+			}
+
+			return map;
+		}
+
+		@Override
+		public Collection<ClassDef> getClasses() {
+			return classes;
+		}
+	}
+
+	private static class TestMapped {
+		final String from, to;
+
+		TestMapped(String from, String to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		public String getName(String namespace) {
+			return FROM.equals(namespace) ? from : to;
+		}
+
+		public String getRawName(String namespace) {
+			return getName(namespace);
+		}
+
+		public String getComment() {
+			return null;
+		}
+	}
+
+	private static final class TestClass extends TestMapped implements ClassDef {
+		final List<FieldDef> fields = new ArrayList<>();
+		final List<MethodDef> methods = new ArrayList<>();
+
+		TestClass(List<ClassDef> classes, String from, String to) {
+			super(from, to);
+			classes.add(this);
+		}
+
+		void field(String from, String descriptor, String to) {
+			fields.add(new TestMember(from, descriptor, to));
+		}
+
+		void method(String from, String descriptor, String to) {
+			methods.add(new TestMember(from, descriptor, to));
+		}
+
+		@Override
+		public Collection<FieldDef> getFields() {
+			return fields;
+		}
+
+		@Override
+		public Collection<MethodDef> getMethods() {
+			return methods;
+		}
+	}
+
+	/** Only used with primitive descriptors, which are the same in every namespace. */
+	private static final class TestMember extends TestMapped implements FieldDef, MethodDef {
+		final String descriptor;
+
+		TestMember(String from, String descriptor, String to) {
+			super(from, to);
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		public String getDescriptor(String namespace) {
+			return descriptor;
+		}
+
+		public Collection<ParameterDef> getParameters() {
+			return Collections.emptyList();
+		}
+
+		public Collection<LocalVariableDef> getLocalVariables() {
+			return Collections.emptyList();
+		}
+	}
+}
@@ -19,11 +19,16 @@ package org.quiltmc.loader.impl;
 import java.nio.file.Path;
 
 import org.quiltmc.loader.impl.plugin.QuiltPluginManagerImpl;
+import org.quiltmc.loader.impl.solver.Sat4jWrapper;
 
 public class QuiltPluginManagerForTests extends QuiltPluginManagerImpl {
 
 	public QuiltPluginManagerForTests(Path gameDir, Path configDir, Path modsDir) {
-		super(gameDir, configDir, modsDir, null, true, new QuiltLoaderConfig());
+		this(gameDir, configDir, modsDir, new Sat4jWrapper());
+	}
+
+	public QuiltPluginManagerForTests(Path gameDir, Path configDir, Path modsDir, Sat4jWrapper solver) {
+		super(gameDir, configDir, modsDir, null, true, new QuiltLoaderConfig(), solver);
 	}
 
 	@Override
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EntrypointStorageTester {
+
+	@Test
+	public void testPreloadClasses() throws InterruptedException {
+		Set<String> requested = ConcurrentHashMap.newKeySet();
+		ClassLoader loader = new ClassLoader(EntrypointStorageTester.class.getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				requested.add(name);
+				return super.loadClass(name, resolve);
+			}
+		};
+
+		// The missing class mustn't stop the others from loading
+		List<String> names = Arrays.asList("java.lang.String", "org.quiltmc.test.Missing", "java.util.ArrayList", "java.util.HashMap");
+		ExecutorService executor = EntrypointStorage.preloadClasses(names, loader, 2);
+
+		Assertions.assertTrue(executor.isShutdown());
+		Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		Assertions.assertEquals(new HashSet<>(names), requested);
+	}
+}
@@ -16,8 +16,13 @@
 
 package org.quiltmc.loader.impl.filesystem;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 
@@ -36,6 +41,78 @@ public class QuiltFileSystemTester {
 		}
 	}
 
+	@Test
+	public void testInternedPaths() {
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("test_interned", true)) {
+			Path root = fs.getRootDirectories().iterator().next();
+			Path absHello = fs.getPath("/greeting/hello");
+
+			Assertions.assertSame(absHello, root.resolve("greeting").resolve("hello"));
+			Assertions.assertSame(absHello, fs.getPath("/greeting//hello/"));
+			Assertions.assertSame(absHello, fs.getPath("/greeting/hi").resolveSibling("hello"));
+			Assertions.assertSame(absHello, absHello.resolve("../hello").normalize());
+			Assertions.assertSame(fs.getPath("hello"), absHello.getFileName());
+			Assertions.assertSame(root, fs.getPath("/"));
+
+			try (QuiltMemoryFileSystem other = new QuiltMemoryFileSystem.ReadWrite("test_interned", true)) {
+				Assertions.assertFalse(absHello.equals(other.getPath("/greeting/hello")));
+			}
+		}
+	}
+
+	@Test
+	public void testUninternedPathsEqual() {
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("test_uninterned", true)) {
+			QuiltMemoryPath greeting = (QuiltMemoryPath) fs.getPath("/greeting");
+			QuiltMemoryPath absHello = (QuiltMemoryPath) greeting.resolve("hello");
+			QuiltMemoryPath copy = fs.newPath(greeting, "hello");
+
+			Assertions.assertNotSame(absHello, copy);
+			Assertions.assertEquals(absHello, copy);
+			Assertions.assertEquals(absHello.hashCode(), copy.hashCode());
+			Assertions.assertNotEquals(absHello, fs.newPath(greeting, "hi"));
+			Assertions.assertNotEquals(absHello, fs.newPath(null, "hello"));
+		}
+	}
+
+	@Test
+	public void testUnusedPathsReleased() throws InterruptedException {
+		try (QuiltMemoryFileSystem fs = new QuiltMemoryFileSystem.ReadWrite("test_released_paths", true)) {
+			QuiltMemoryPath greeting = (QuiltMemoryPath) fs.getPath("/greeting");
+			WeakReference<Path> hello = new WeakReference<>(fs.getPath("/greeting/hello"));
+
+			for (int i = 0; i < 50 && hello.get() != null; i++) {
+				System.gc();
+				Thread.sleep(10);
+			}
+
+			Assertions.assertNull(hello.get(), "The interned path was never collected");
+
+			// Creating any path removes the collected entries from the trie
+			fs.getPath("/other");
+			Assertions.assertFalse(greeting.children().containsKey("hello"));
+		}
+	}
+
+	@Test
+	public void testReleasedReadOnly() throws IOException {
+		try (QuiltMemoryFileSystem source = new QuiltMemoryFileSystem.ReadWrite("test_release_src", true)) {
+			Files.write(source.getPath("/hello.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+
+			QuiltMemoryFileSystem.ReadOnly fs = new QuiltMemoryFileSystem.ReadOnly("test_release", true, source.getPath("/"));
+			Path hello = fs.getPath("/hello.txt");
+			Assertions.assertTrue(Files.exists(hello));
+
+			try (InputStream stream = Files.newInputStream(hello)) {
+				fs.release();
+
+				Assertions.assertFalse(fs.isOpen());
+				Assertions.assertFalse(Files.exists(hello));
+				Assertions.assertEquals('h', stream.read());
+			}
+		}
+	}
+
 	/** Used to compare our file system implementation to a unix file system. This won't work when tested on a windows
 	 * platform however. */
 	@Test
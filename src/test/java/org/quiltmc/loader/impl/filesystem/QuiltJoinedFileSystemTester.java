@@ -18,6 +18,7 @@ package org.quiltmc.loader.impl.filesystem;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -25,9 +26,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.loader.impl.util.FileSystemUtil;
 
 public class QuiltJoinedFileSystemTester {
 
@@ -89,6 +94,62 @@ public class QuiltJoinedFileSystemTester {
 		}
 	}
 
+	@Test
+	public void testIndexedJoined() throws IOException {
+		try (QuiltMemoryFileSystem.ReadWrite rw1 = new QuiltMemoryFileSystem.ReadWrite("rw1", true); //
+			QuiltMemoryFileSystem.ReadWrite rw2 = new QuiltMemoryFileSystem.ReadWrite("rw2", true)//
+		) {
+			Files.createDirectories(rw1.getPath("assets", "a"));
+			Files.createDirectories(rw2.getPath("assets", "b"));
+			Files.write(rw1.getPath("greeting.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+			Files.write(rw2.getPath("greeting.txt"), "hidden".getBytes(StandardCharsets.UTF_8));
+			Files.write(rw2.getPath("assets", "b", "b.txt"), "b".getBytes(StandardCharsets.UTF_8));
+
+			try (QuiltMemoryFileSystem.ReadOnly ro1 = new QuiltMemoryFileSystem.ReadOnly("ro1", true, rw1.root); //
+				QuiltMemoryFileSystem.ReadOnly ro2 = new QuiltMemoryFileSystem.ReadOnly("ro2", true, rw2.root); //
+				QuiltJoinedFileSystem jfs = new QuiltJoinedFileSystem("jfs2", Arrays.asList(ro1.root, ro2.root))//
+			) {
+				Assertions.assertTrue(jfs.isIndexed());
+
+				Assertions.assertEquals("hello", new String(Files.readAllBytes(jfs.getPath("greeting.txt")), StandardCharsets.UTF_8));
+				Assertions.assertEquals("b", new String(Files.readAllBytes(jfs.getPath("/assets/b/b.txt")), StandardCharsets.UTF_8));
+				Assertions.assertTrue(Files.isDirectory(jfs.getPath("assets")));
+				Assertions.assertFalse(Files.exists(jfs.getPath("missing.txt")));
+
+				assertSetsEqual(getChildren(jfs.root), jfs.root.resolve("greeting.txt"), jfs.root.resolve("assets"));
+				assertSetsEqual(getChildren(jfs.getPath("/assets")), jfs.getPath("/assets/a"), jfs.getPath("/assets/b"));
+				assertSetsEqual(getChildren(jfs.getPath("assets")), jfs.getPath("assets/a"), jfs.getPath("assets/b"));
+			}
+		}
+	}
+
+	/** Mirrors how QuiltLoaderImpl joins each transformed mod folder from the transform cache bundle. */
+	@Test
+	public void testTransformBundleJoined(@TempDir Path dir) throws IOException {
+		Path bundle = dir.resolve("transform-cache.zip");
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(bundle))) {
+			zip.putNextEntry(new ZipEntry("mod/"));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("mod/greeting.txt"));
+			zip.write("hello".getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+
+		try (FileSystemUtil.FileSystemDelegate zipFs = FileSystemUtil.getJarFileSystem(bundle, false)) {
+			Path modTransformed = zipFs.get().getPath("/").resolve("mod/");
+			Assertions.assertFalse(modTransformed.getFileSystem().isReadOnly());
+
+			try (QuiltJoinedFileSystem jfs = new QuiltJoinedFileSystem(
+				"final-mod-mod", Collections.singletonList(modTransformed), null, true
+			)) {
+				Assertions.assertTrue(jfs.isIndexed());
+				Assertions.assertEquals("hello", new String(Files.readAllBytes(jfs.getPath("greeting.txt")), StandardCharsets.UTF_8));
+				assertSetsEqual(getChildren(jfs.root), jfs.root.resolve("greeting.txt"));
+			}
+		}
+	}
+
 	private static <T> void assertSetsEqual(Set<T> actual, T... expected) {
 		Set<T> expectedSet = new HashSet<>();
 		Collections.addAll(expectedSet, expected);
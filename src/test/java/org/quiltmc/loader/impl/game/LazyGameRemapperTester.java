@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.game;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.mapping.tree.TinyMappingFactory;
+import net.fabricmc.mapping.tree.TinyTree;
+
+public class LazyGameRemapperTester {
+
+	private static final String MAPPINGS = String.join("\n", //
+		"tiny\t2\t0\tofficial\tintermediary", //
+		"c\ta\tnet/minecraft/class_1", //
+		"\tf\tI\tx\tfield_super", //
+		"\tm\t()V\tm\tmethod_private", //
+		"c\tb\tnet/minecraft/class_2", //
+		"\tf\tI\tx\tfield_itf", //
+		"\tm\t()V\tm\tmethod_itf", //
+		"c\tc\tnet/minecraft/class_3", //
+		"c\td\tnet/minecraft/class_4", //
+		"" //
+	);
+
+	/** "c" extends "a" and implements "b", which both declare "x" and "m". The ones in "a" are private so they aren't
+	 * inherited, which means references to "c.x" and "c.m" must resolve to "b", even though it's searched last. */
+	@Test
+	public void testPrivateSuperMemberClash(@TempDir Path dir) throws IOException {
+		Path jar = dir.resolve("game.jar");
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			write(zip, "a", createClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "a", "java/lang/Object", null, cw -> {
+				cw.visitField(Opcodes.ACC_PRIVATE, "x", "I", null, null).visitEnd();
+				emptyMethod(cw, Opcodes.ACC_PRIVATE, "m");
+			}));
+			write(zip, "b", createClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "b", "java/lang/Object", null, cw -> {
+				cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "x", "I", null, 1).visitEnd();
+				emptyMethod(cw, Opcodes.ACC_PUBLIC, "m");
+			}));
+			write(zip, "c", createClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "c", "a", new String[] { "b" }, cw -> {}));
+			write(zip, "d", createClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "d", "java/lang/Object", null, cw -> {
+				MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "test", "(Lc;)V", null, null);
+				mv.visitCode();
+				mv.visitFieldInsn(Opcodes.GETSTATIC, "c", "x", "I");
+				mv.visitInsn(Opcodes.POP);
+				mv.visitVarInsn(Opcodes.ALOAD, 0);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "c", "m", "()V", false);
+				mv.visitInsn(Opcodes.RETURN);
+				mv.visitMaxs(0, 0);
+				mv.visitEnd();
+			}));
+		}
+
+		LazyGameRemapper remapper = create(jar, dir.resolve("cache"));
+
+		List<String> references = new ArrayList<>();
+		new ClassReader(remapper.getClassBytes("net/minecraft/class_4")).accept(new ClassVisitor(Opcodes.ASM9) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				return new MethodVisitor(Opcodes.ASM9) {
+					@Override
+					public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+						references.add(owner + "." + name);
+					}
+
+					@Override
+					public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+						references.add(owner + "." + name);
+					}
+				};
+			}
+		}, 0);
+
+		Assertions.assertEquals(Arrays.asList("net/minecraft/class_3.field_itf", "net/minecraft/class_3.method_itf"), references);
+
+		// The declaring class still sees its own private members
+		Assertions.assertEquals("method_private", remapper.new HierarchyRemapper().mapMethodName("a", "m", "()V"));
+		Assertions.assertEquals("field_super", remapper.new HierarchyRemapper().mapFieldName("a", "x", "I"));
+	}
+
+	@Test
+	public void testResources(@TempDir Path dir) throws IOException {
+		Path jar = dir.resolve("game.jar");
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "d");
+		Attributes signed = new Attributes();
+		signed.putValue("SHA-256-Digest", "abc=");
+		manifest.getEntries().put("a.class", signed);
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zip.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+			manifest.write(zip);
+			zip.closeEntry();
+			write(zip, "a", createClass(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "a", "java/lang/Object", null, cw -> {}));
+			zip.putNextEntry(new ZipEntry("META-INF/MOJANGCS.SF"));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("META-INF/services/b"));
+			zip.write("# comment\na\n".getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("assets/lang.json"));
+			zip.write("{}".getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+
+		LazyGameRemapper remapper = create(jar, dir.resolve("cache"));
+		Path resourceJar = remapper.getResourceJar("net.minecraft.class_1");
+		Assertions.assertEquals(Collections.singletonList(resourceJar), remapper.getResourceJars());
+
+		try (ZipFile zip = new ZipFile(resourceJar.toFile())) {
+			Assertions.assertNull(zip.getEntry("a.class"));
+			Assertions.assertNull(zip.getEntry("META-INF/MOJANGCS.SF"));
+			Assertions.assertNotNull(zip.getEntry("assets/lang.json"));
+
+			Manifest fixed = new Manifest(zip.getInputStream(zip.getEntry(JarFile.MANIFEST_NAME)));
+			Assertions.assertEquals("net.minecraft.class_4", fixed.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS));
+			Assertions.assertTrue(fixed.getEntries().isEmpty());
+
+			ZipEntry services = zip.getEntry("META-INF/services/net.minecraft.class_2");
+			Assertions.assertNotNull(services);
+			byte[] serviceBytes = new byte[(int) services.getSize()];
+			new DataInputStream(zip.getInputStream(services)).readFully(serviceBytes);
+			Assertions.assertEquals("# comment\nnet.minecraft.class_1\n", new String(serviceBytes, StandardCharsets.UTF_8));
+		}
+
+		Assertions.assertNull(remapper.getClassFile("a.class"));
+		Path classFile = remapper.getClassFile("net/minecraft/class_1.class");
+		Assertions.assertNotNull(classFile);
+		Assertions.assertEquals("net/minecraft/class_1", new ClassReader(Files.readAllBytes(classFile)).getClassName());
+
+		// Different mappings invalidate everything remapped with the old ones
+		create(jar, dir.resolve("cache"), "other");
+		Assertions.assertFalse(Files.exists(classFile));
+	}
+
+	private static LazyGameRemapper create(Path jar, Path cacheDir) throws IOException {
+		return create(jar, cacheDir, "test");
+	}
+
+	private static LazyGameRemapper create(Path jar, Path cacheDir, String mappingsHash) throws IOException {
+		TinyTree mappings = TinyMappingFactory.loadWithDetection(new BufferedReader(new StringReader(MAPPINGS)));
+		return LazyGameRemapper.create(Collections.singletonList(jar), mappings, mappingsHash, "official", "intermediary", cacheDir);
+	}
+
+	private static void emptyMethod(ClassWriter cw, int access, String name) {
+		MethodVisitor mv = cw.visitMethod(access, name, "()V", null, null);
+		mv.visitCode();
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static byte[] createClass(int access, String name, String superName, String[] interfaces, Consumer<ClassWriter> body) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, access, name, null, superName, interfaces);
+		body.accept(cw);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void write(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+		zip.putNextEntry(new ZipEntry(name + ".class"));
+		zip.write(bytes);
+		zip.closeEntry();
+	}
+}
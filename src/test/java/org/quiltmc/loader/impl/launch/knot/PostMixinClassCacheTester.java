@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.launch.knot;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class PostMixinClassCacheTester {
+
+	private static final String NAME = "org.quiltmc.test.Target";
+	private static final String INTERNAL_NAME = "org/quiltmc/test/Target";
+
+	@Test
+	public void testInjectedHandler() {
+		byte[] input = createClass(cw -> {});
+		byte[] output = createClass(cw -> method(cw, Opcodes.ACC_PRIVATE, "handler$zza000$onTick", null));
+		Assertions.assertTrue(PostMixinClassCache.canCache(NAME, input, output));
+	}
+
+	@Test
+	public void testAddedMembers() {
+		byte[] input = createClass(cw -> {});
+		Assertions.assertFalse(PostMixinClassCache.canCache(NAME, input, createClass(cw -> method(cw, Opcodes.ACC_PUBLIC, "added", null))));
+		Assertions.assertFalse(PostMixinClassCache.canCache(NAME, input, createClass(cw -> cw.visitField(Opcodes.ACC_PROTECTED, "added", "I", null, null))));
+		Assertions.assertFalse(PostMixinClassCache.canCache(NAME, input, createClass(new String[] { "java/lang/Runnable" }, cw -> {})));
+	}
+
+	@Test
+	public void testGeneratedClasses() {
+		byte[] input = createClass(cw -> method(cw, Opcodes.ACC_PUBLIC, "run", INTERNAL_NAME + "$Existing"));
+		byte[] existing = createClass(cw -> method(cw, Opcodes.ACC_PUBLIC, "run", INTERNAL_NAME + "$Existing"));
+		byte[] generated = createClass(cw -> method(cw, Opcodes.ACC_PUBLIC, "run", INTERNAL_NAME + "$Inner$abc123"));
+		byte[] synthetic = createClass(cw -> method(cw, Opcodes.ACC_PUBLIC, "run", "org/spongepowered/asm/synthetic/args/Args$1"));
+		Assertions.assertTrue(PostMixinClassCache.canCache(NAME, input, existing));
+		Assertions.assertFalse(PostMixinClassCache.canCache(NAME, input, generated));
+		Assertions.assertFalse(PostMixinClassCache.canCache(NAME, input, synthetic));
+	}
+
+	private static byte[] createClass(Consumer<ClassWriter> body) {
+		return createClass(null, body);
+	}
+
+	private static byte[] createClass(String[] interfaces, Consumer<ClassWriter> body) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, INTERNAL_NAME, null, "java/lang/Object", interfaces);
+		// Long constants take up two constant pool entries
+		cw.newConst(0x123456789L);
+		body.accept(cw);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/** Adds a method that creates an instance of the given class, if it isn't null. */
+	private static void method(ClassWriter cw, int access, String name, String creates) {
+		MethodVisitor mv = cw.visitMethod(access, name, "()V", null, null);
+		mv.visitCode();
+
+		if (creates != null) {
+			mv.visitTypeInsn(Opcodes.NEW, creates);
+			mv.visitInsn(Opcodes.POP);
+		}
+
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+}
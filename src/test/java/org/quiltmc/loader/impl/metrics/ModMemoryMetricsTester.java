@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.loader.impl.filesystem.QuiltJoinedFileSystem;
+import org.quiltmc.loader.impl.filesystem.QuiltMemoryFileSystem;
+import org.quiltmc.loader.impl.util.FileSystemUtil;
+
+public class ModMemoryMetricsTester {
+
+	@Test
+	public void testTotalExcludesBytecode() {
+		ModMemoryMetrics.ModMemory memory = new ModMemoryMetrics.ModMemory("test");
+		memory.fileSystemFootprint = 1000;
+		memory.joinedFootprint = 200;
+		memory.metadataBytes = 30;
+		memory.classes = 4;
+		// Already part of the file system footprint
+		memory.bytecodeBytes = 500;
+
+		Assertions.assertEquals(1230, memory.estimatedTotal());
+	}
+
+	@Test
+	public void testMeasureMemoryMod() throws IOException {
+		try (QuiltMemoryFileSystem.ReadWrite rw = new QuiltMemoryFileSystem.ReadWrite("test_measure_rw", true)) {
+			writeMod(rw.getPath("/"));
+
+			try (QuiltMemoryFileSystem.ReadOnly ro = new QuiltMemoryFileSystem.ReadOnly("test_measure_ro", true, rw.getPath("/"))) {
+				ModMemoryMetrics.ModMemory memory = ModMemoryMetrics.measure("mod", ro.getPath("/"), null);
+
+				Assertions.assertEquals(ro.getUsedSize(), memory.fileBytes);
+				Assertions.assertEquals(ro.getUncompressedSize(), memory.uncompressedFileBytes);
+				Assertions.assertEquals(ro.getEstimatedMemoryFootprint(), memory.fileSystemFootprint);
+				Assertions.assertEquals(0, memory.joinedFootprint);
+				Assertions.assertEquals(Files.size(ro.getPath("/quilt.mod.json")), memory.metadataBytes);
+			}
+		}
+	}
+
+	/** Mirrors how QuiltLoaderImpl loads a transformed mod: the root path is a joined file system over the transform
+	 * cache, but the mod's original in-memory jar is still loaded. */
+	@Test
+	public void testMeasureTransformedMod(@TempDir Path dir) throws IOException {
+		Path bundle = dir.resolve("transform-cache.zip");
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(bundle))) {
+			zip.putNextEntry(new ZipEntry("mod/"));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("mod/Main.class"));
+			zip.write(new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE });
+			zip.closeEntry();
+		}
+
+		try (QuiltMemoryFileSystem.ReadWrite rw = new QuiltMemoryFileSystem.ReadWrite("test_transformed_rw", true); //
+			FileSystemUtil.FileSystemDelegate zipFs = FileSystemUtil.getJarFileSystem(bundle, false)//
+		) {
+			writeMod(rw.getPath("/"));
+			Path modTransformed = zipFs.get().getPath("/").resolve("mod/");
+
+			try (QuiltMemoryFileSystem.ReadOnly ro = new QuiltMemoryFileSystem.ReadOnly("test_transformed_ro", true, rw.getPath("/")); //
+				QuiltJoinedFileSystem jfs = new QuiltJoinedFileSystem("final-mod-mod", Collections.singletonList(modTransformed), null, true)//
+			) {
+				Path root = jfs.getPath("/");
+
+				// The transform cache itself isn't held in memory
+				ModMemoryMetrics.ModMemory withoutOriginal = ModMemoryMetrics.measure("mod", root, null);
+				Assertions.assertEquals(0, withoutOriginal.fileSystemFootprint);
+
+				ModMemoryMetrics.ModMemory memory = ModMemoryMetrics.measure("mod", root, ro.getPath("/"));
+				Assertions.assertEquals(ro.getUsedSize(), memory.fileBytes);
+				Assertions.assertEquals(ro.getEstimatedMemoryFootprint(), memory.fileSystemFootprint);
+				Assertions.assertEquals(jfs.getEstimatedMemoryFootprint(), memory.joinedFootprint);
+				Assertions.assertTrue(memory.joinedFootprint > 0);
+				// Read from the original jar, since it isn't in the transform cache
+				Assertions.assertEquals(Files.size(ro.getPath("/quilt.mod.json")), memory.metadataBytes);
+				Assertions.assertEquals(memory.fileSystemFootprint + memory.joinedFootprint + memory.metadataBytes, memory.estimatedTotal());
+			}
+		}
+	}
+
+	private static void writeMod(Path root) throws IOException {
+		Files.write(root.resolve("quilt.mod.json"), "{\"schema_version\": 1}".getBytes(StandardCharsets.UTF_8));
+		Files.write(root.resolve("Main.class"), new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE });
+	}
+}
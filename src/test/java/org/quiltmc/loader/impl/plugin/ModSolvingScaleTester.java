@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.plugin;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.loader.api.plugin.solver.LoadOption;
+import org.quiltmc.loader.api.plugin.solver.Rule;
+import org.quiltmc.loader.impl.QuiltPluginManagerForTests;
+import org.quiltmc.loader.impl.discovery.ModSolvingError;
+import org.quiltmc.loader.impl.report.QuiltReportedError;
+import org.quiltmc.loader.impl.solver.ModSolveResultImpl;
+import org.quiltmc.loader.impl.solver.Sat4jWrapper;
+import org.quiltmc.loader.util.sat4j.specs.TimeoutException;
+
+/** Measures how long discovery and solving take for {@link SyntheticModPack}s of increasing size.
+ * <p>
+ * This is a benchmark rather than a test, so it only runs when the {@value #SIZES_PROPERTY} system property is set to
+ * a comma separated list of pack sizes, for example {@code -Dquilt.test.modScale=100,1000,10000}. The results are
+ * published to the {@link TestReporter}, one entry per pack. */
+@EnabledIfSystemProperty(named = ModSolvingScaleTester.SIZES_PROPERTY, matches = ".+")
+public class ModSolvingScaleTester {
+
+	static final String SIZES_PROPERTY = "quilt.test.modScale";
+
+	@Test
+	public void testScale(@TempDir Path dir, TestReporter reporter) throws Exception {
+		for (String size : System.getProperty(SIZES_PROPERTY).split(",")) {
+			int mods = Integer.parseInt(size.trim());
+			Path root = dir.resolve("pack-" + mods);
+			SyntheticModPack pack = new SyntheticModPack().mods(mods).seed(mods);
+			pack.write(root.resolve("mods"));
+			reporter.publishEntry(measure(pack, root));
+		}
+	}
+
+	private static Map<String, String> measure(SyntheticModPack pack, Path root) throws Exception {
+		TimingSolver solver = new TimingSolver();
+		TimedPluginManager manager = new TimedPluginManager(
+			root.resolve("game"), root.resolve("config"), root.resolve("mods"), solver
+		);
+		// Loading is single threaded, so everything is allocated by this thread
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+		ModSolveResultImpl result;
+
+		try {
+			result = manager.run(false);
+		} catch (QuiltReportedError error) {
+			StringWriter writer = new StringWriter();
+			error.report.write(new PrintWriter(writer));
+			Assertions.fail("Failed to solve " + pack + "\n" + writer);
+			return null;
+		}
+
+		long total = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		for (int i = 0; i < pack.getMods(); i++) {
+			String id = SyntheticModPack.MOD_PREFIX + i;
+			Assertions.assertTrue(result.directModMap.containsKey(id), () -> id + " wasn't loaded");
+		}
+
+		Map<String, String> entry = new LinkedHashMap<>();
+		entry.put("mods", Integer.toString(pack.getMods()));
+		entry.put("total ms", millis(total));
+		entry.put("scan ms", millis(manager.scanNanos));
+		entry.put("rules ms", millis(solver.defineNanos));
+		entry.put("solve ms", millis(solver.solveNanos));
+		entry.put("optimise ms", millis(solver.optimiseNanos));
+		entry.put("allocated MiB", allocated < 0 ? "unknown" : String.format("%.1f", allocated / 1048576.0));
+		return entry;
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.1f", nanos / 1_000_000.0);
+	}
+
+	/** @return The bytes allocated by the current thread so far, or -1 if the JVM can't measure that. */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+
+	static final class TimedPluginManager extends QuiltPluginManagerForTests {
+		private final TimingSolver solver;
+		long scanNanos;
+
+		TimedPluginManager(Path gameDir, Path configDir, Path modsDir, TimingSolver solver) {
+			super(gameDir, configDir, modsDir, solver);
+			this.solver = solver;
+		}
+
+		@Override
+		protected void runMainThreadTasks() {
+			// Scanned mods add their options and rules as they go, which is already counted as defining rules
+			long defineBefore = solver.defineNanos;
+			long start = System.nanoTime();
+			super.runMainThreadTasks();
+			scanNanos += System.nanoTime() - start - (solver.defineNanos - defineBefore);
+		}
+	}
+
+	/** Sums up the time spent in each step of the solver. Rules and options are added and removed by the plugin manager
+	 * in between scanning files, so this is the only way to separate them. */
+	static final class TimingSolver extends Sat4jWrapper {
+		long defineNanos, solveNanos, optimiseNanos;
+
+		/** Defining methods call each other, so only the outermost call is timed. */
+		private int defineDepth;
+		private long defineStart;
+
+		private void beginDefine() {
+			if (defineDepth++ == 0) {
+				defineStart = System.nanoTime();
+			}
+		}
+
+		private void endDefine() {
+			if (--defineDepth == 0) {
+				defineNanos += System.nanoTime() - defineStart;
+			}
+		}
+
+		@Override
+		public void addOption(LoadOption option, int weight) {
+			beginDefine();
+			try {
+				super.addOption(option, weight);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public void setWeight(LoadOption option, int weight) {
+			beginDefine();
+			try {
+				super.setWeight(option, weight);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public void removeOption(LoadOption option) {
+			beginDefine();
+			try {
+				super.removeOption(option);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public void addRule(Rule rule) {
+			beginDefine();
+			try {
+				super.addRule(rule);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public void removeRule(Rule rule) {
+			beginDefine();
+			try {
+				super.removeRule(rule);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public void redefine(Rule rule) {
+			beginDefine();
+			try {
+				super.redefine(rule);
+			} finally {
+				endDefine();
+			}
+		}
+
+		@Override
+		public boolean hasSolution() throws TimeoutException {
+			long start = System.nanoTime();
+			try {
+				return super.hasSolution();
+			} finally {
+				solveNanos += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public Collection<Rule> getError() throws TimeoutException {
+			long start = System.nanoTime();
+			try {
+				return super.getError();
+			} finally {
+				solveNanos += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public List<LoadOption> getSolution() throws TimeoutException, ModSolvingError {
+			long start = System.nanoTime();
+			try {
+				return super.getSolution();
+			} finally {
+				optimiseNanos += System.nanoTime() - start;
+			}
+		}
+	}
+}
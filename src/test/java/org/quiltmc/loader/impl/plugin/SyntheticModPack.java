@@ -0,0 +1,345 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.plugin;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.quiltmc.json5.JsonWriter;
+
+/** Generates a synthetic mods folder, for measuring how discovery and solving scale with the number of mods.
+ * <p>
+ * Every "jar" is written as a folder whose name ends in ".jar", which {@link QuiltPluginManagerImpl} only accepts when
+ * {@link QuiltPluginManagerImpl#isTest()} returns true. The generated pack is always solvable:
+ * <ul>
+ * <li>Every top-level mod has a unique id, so none of them are duplicates.</li>
+ * <li>Libraries are only ever jar-in-jar, and each library is included at its highest version by at least one
+ * top-level mod. Different mods include different versions, so the solver has to pick between them.</li>
+ * <li>Mods only depend on mods with a lower index, aliases provided by them, or libraries that they include
+ * themselves.</li>
+ * <li>Breaks (for quilt mods) and conflicts (for fabric mods) only target the lowest version of a library, which is
+ * never the only version available.</li>
+ * </ul> */
+public final class SyntheticModPack {
+
+	static final String MOD_PREFIX = "synthetic_mod_";
+	static final String LIBRARY_PREFIX = "synthetic_lib_";
+	static final String ALIAS_PREFIX = "synthetic_alias_";
+
+	private int mods = 100;
+	private int libraries = -1;
+	private int versionsPerLibrary = 3;
+	private int maxDependencies = 3;
+	private int jarInJarDepth = 2;
+	private double providesChance = 0.1;
+	private double breaksChance = 0.05;
+	private double fabricChance = 0.1;
+	private long seed = 0;
+
+	/** Sets the number of top-level mods. Defaults to 100. */
+	public SyntheticModPack mods(int count) {
+		this.mods = count;
+		return this;
+	}
+
+	/** Sets the number of distinct library ids. Defaults to a tenth of the number of mods. */
+	public SyntheticModPack libraries(int count) {
+		this.libraries = count;
+		return this;
+	}
+
+	/** Sets how many different versions of each library are spread across the pack. Defaults to 3. */
+	public SyntheticModPack versionsPerLibrary(int count) {
+		this.versionsPerLibrary = count;
+		return this;
+	}
+
+	/** Sets the maximum number of other mods that each mod depends on. Defaults to 3. */
+	public SyntheticModPack maxDependencies(int count) {
+		this.maxDependencies = count;
+		return this;
+	}
+
+	/** Sets how deep libraries are nested inside each other. 1 means libraries don't include other libraries. Defaults
+	 * to 2. */
+	public SyntheticModPack jarInJarDepth(int depth) {
+		this.jarInJarDepth = depth;
+		return this;
+	}
+
+	/** Sets the chance that each mod provides an alias, which later mods may depend on instead. Defaults to 0.1. */
+	public SyntheticModPack providesChance(double chance) {
+		this.providesChance = chance;
+		return this;
+	}
+
+	/** Sets the chance that each mod breaks (or conflicts with, for fabric mods) the lowest version of a library.
+	 * Defaults to 0.05. */
+	public SyntheticModPack breaksChance(double chance) {
+		this.breaksChance = chance;
+		return this;
+	}
+
+	/** Sets the chance that each top-level mod uses a fabric.mod.json rather than a quilt.mod.json. Defaults to 0.1. */
+	public SyntheticModPack fabricChance(double chance) {
+		this.fabricChance = chance;
+		return this;
+	}
+
+	public SyntheticModPack seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public int getMods() {
+		return mods;
+	}
+
+	/** Writes the pack into the given (empty) folder. */
+	public void write(Path modsDir) throws IOException {
+		if (mods < 1 || versionsPerLibrary < 1 || jarInJarDepth < 0) {
+			throw new IllegalStateException("Invalid pack " + this);
+		}
+
+		int libCount = libraries >= 0 ? libraries : Math.max(1, mods / 10);
+
+		if (libCount > mods) {
+			throw new IllegalStateException("Every library needs at least one mod to include its highest version");
+		}
+
+		Random random = new Random(seed);
+		Files.createDirectories(modsDir);
+		List<String> aliases = new ArrayList<>();
+
+		for (int i = 0; i < mods; i++) {
+			Jar jar = new Jar(MOD_PREFIX + i, "1.0.0", random.nextDouble() < fabricChance);
+
+			if (libCount > 0 && jarInJarDepth > 0) {
+				// The first mods include the highest version of each library, so every library is always available
+				int lib = i < libCount ? i : random.nextInt(libCount);
+				int version = i < libCount ? versionsPerLibrary - 1 : random.nextInt(versionsPerLibrary);
+				jar.include(library(random, libCount, lib, version, jarInJarDepth));
+			}
+
+			int dependencies = i == 0 ? 0 : random.nextInt(maxDependencies + 1);
+
+			for (int d = 0; d < dependencies; d++) {
+				if (!aliases.isEmpty() && random.nextInt(4) == 0) {
+					jar.depends.put(aliases.get(random.nextInt(aliases.size())), "*");
+				} else {
+					jar.depends.put(MOD_PREFIX + random.nextInt(i), "*");
+				}
+			}
+
+			if (random.nextDouble() < providesChance) {
+				String alias = ALIAS_PREFIX + i;
+				jar.provides.add(alias);
+				aliases.add(alias);
+			}
+
+			if (versionsPerLibrary > 1 && libCount > 0 && random.nextDouble() < breaksChance) {
+				jar.breaks.put(LIBRARY_PREFIX + random.nextInt(libCount), version(0));
+			}
+
+			jar.write(modsDir);
+		}
+	}
+
+	private Jar library(Random random, int libCount, int lib, int version, int depth) {
+		Jar jar = new Jar(LIBRARY_PREFIX + lib, version(version), false);
+		jar.library = true;
+
+		if (depth > 1 && libCount > 1) {
+			int next = (lib + 1) % libCount;
+			jar.include(library(random, libCount, next, random.nextInt(versionsPerLibrary), depth - 1));
+		}
+
+		return jar;
+	}
+
+	private static String version(int index) {
+		return "1." + index + ".0";
+	}
+
+	@Override
+	public String toString() {
+		return "SyntheticModPack { mods = " + mods + ", libraries = " + libraries + ", versionsPerLibrary = "
+			+ versionsPerLibrary + ", maxDependencies = " + maxDependencies + ", jarInJarDepth = " + jarInJarDepth
+			+ ", providesChance = " + providesChance + ", breaksChance = " + breaksChance + ", fabricChance = "
+			+ fabricChance + ", seed = " + seed + " }";
+	}
+
+	private static final class Jar {
+		final String id, version;
+		final boolean fabric;
+		boolean library;
+		final Map<String, String> depends = new LinkedHashMap<>();
+		final Map<String, String> breaks = new LinkedHashMap<>();
+		final Set<String> provides = new LinkedHashSet<>();
+		final List<Jar> jars = new ArrayList<>();
+
+		Jar(String id, String version, boolean fabric) {
+			this.id = id;
+			this.version = version;
+			this.fabric = fabric;
+		}
+
+		String fileName() {
+			return id + "-" + version + ".jar";
+		}
+
+		void include(Jar jar) {
+			jars.add(jar);
+			// The lowest version might be broken by another mod, but any version is fine for us
+			depends.put(jar.id, ">=" + version(0));
+		}
+
+		void write(Path parent) throws IOException {
+			Path root = parent.resolve(fileName());
+			Files.createDirectories(root);
+
+			try (Writer out = Files.newBufferedWriter(root.resolve(fabric ? "fabric.mod.json" : "quilt.mod.json"), StandardCharsets.UTF_8)) {
+				JsonWriter writer = JsonWriter.json(out);
+
+				if (fabric) {
+					writeFabric(writer);
+				} else {
+					writeQuilt(writer);
+				}
+
+				writer.flush();
+			}
+
+			for (Jar jar : jars) {
+				jar.write(root);
+			}
+		}
+
+		private void writeQuilt(JsonWriter writer) throws IOException {
+			writer.beginObject();
+			writer.name("schema_version").value(1);
+			writer.name("quilt_loader").beginObject();
+			writer.name("group").value("org.quiltmc.test.synthetic");
+			writer.name("id").value(id);
+			writer.name("version").value(version);
+			writer.name("intermediate_mappings").value("net.fabricmc:intermediary");
+
+			if (library) {
+				writer.name("load_type").value("if_required");
+			}
+
+			if (!jars.isEmpty()) {
+				writer.name("jars").beginArray();
+				for (Jar jar : jars) {
+					writer.value(jar.fileName());
+				}
+				writer.endArray();
+			}
+
+			if (!provides.isEmpty()) {
+				writer.name("provides").beginArray();
+				for (String alias : provides) {
+					writer.value(alias);
+				}
+				writer.endArray();
+			}
+
+			writeQuiltDependencies(writer, "depends", depends, "");
+			writeQuiltDependencies(writer, "breaks", breaks, "=");
+
+			writer.endObject();
+			writer.endObject();
+		}
+
+		private static void writeQuiltDependencies(JsonWriter writer, String name, Map<String, String> map, String prefix)
+			throws IOException {
+
+			if (map.isEmpty()) {
+				return;
+			}
+
+			writer.name(name).beginArray();
+
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				writer.beginObject();
+				writer.name("id").value(entry.getKey());
+				String versions = entry.getValue();
+				writer.name("versions").value("*".equals(versions) ? versions : prefix + versions);
+				writer.endObject();
+			}
+
+			writer.endArray();
+		}
+
+		private void writeFabric(JsonWriter writer) throws IOException {
+			writer.beginObject();
+			writer.name("schemaVersion").value(1);
+			writer.name("id").value(id);
+			writer.name("version").value(version);
+
+			if (!jars.isEmpty()) {
+				writer.name("jars").beginArray();
+				for (Jar jar : jars) {
+					writer.beginObject();
+					writer.name("file").value(jar.fileName());
+					writer.endObject();
+				}
+				writer.endArray();
+			}
+
+			if (!provides.isEmpty()) {
+				writer.name("provides").beginArray();
+				for (String alias : provides) {
+					writer.value(alias);
+				}
+				writer.endArray();
+			}
+
+			writeFabricDependencies(writer, "depends", depends);
+			// Fabric's conflicts are the soft version of breaks
+			writeFabricDependencies(writer, "conflicts", breaks);
+
+			writer.endObject();
+		}
+
+		private static void writeFabricDependencies(JsonWriter writer, String name, Map<String, String> map)
+			throws IOException {
+
+			if (map.isEmpty()) {
+				return;
+			}
+
+			writer.name(name).beginObject();
+
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				writer.name(entry.getKey()).value(entry.getValue());
+			}
+
+			writer.endObject();
+		}
+	}
+}
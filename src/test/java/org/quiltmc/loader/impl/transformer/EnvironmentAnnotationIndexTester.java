@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.test.lambda_strip.on.ClassWithLambda;
+import org.quiltmc.test.lambda_strip.on.ClientItf;
+
+public class EnvironmentAnnotationIndexTester {
+
+	@Test
+	public void testAnnotatedClasses() throws IOException {
+		Assertions.assertTrue(EnvironmentAnnotationIndex.mayHaveAnnotations(read(ClassWithLambda.class)));
+		Assertions.assertTrue(EnvironmentAnnotationIndex.mayHaveAnnotations(read(ClientItf.class)));
+	}
+
+	@Test
+	public void testPlainClasses() throws IOException {
+		Assertions.assertFalse(EnvironmentAnnotationIndex.mayHaveAnnotations(read(EnvironmentAnnotationIndexTester.class)));
+		Assertions.assertFalse(EnvironmentAnnotationIndex.mayHaveAnnotations(read(Plain.class)));
+	}
+
+	@Test
+	public void testMalformedClasses() {
+		Assertions.assertTrue(EnvironmentAnnotationIndex.mayHaveAnnotations(new byte[0]));
+		Assertions.assertTrue(EnvironmentAnnotationIndex.mayHaveAnnotations(new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52, 0, 9 }));
+	}
+
+	private static byte[] read(Class<?> cls) throws IOException {
+		String name = cls.getName();
+
+		try (InputStream stream = cls.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+
+			while ((read = stream.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	/** Uses every kind of constant that a normal class file can contain, including longs and doubles, which take up
+	 * two constant pool entries. */
+	static class Plain {
+		static final long LONG = 0x123456789L;
+		static final double DOUBLE = 1.5;
+		static final float FLOAT = 2.5f;
+		static final String STRING = "Lnet/fabricmc/api/Environment";
+
+		long run(Runnable task) {
+			task.run();
+			Runnable lambda = () -> System.out.println(STRING + LONG + DOUBLE + FLOAT);
+			lambda.run();
+			return System.nanoTime() + LONG;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.loader.impl.util.mappings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ClassHierarchyIndexTester {
+
+	@Test
+	public void testKeyUsesFileStamps(@TempDir Path dir) throws IOException {
+		Path a = dir.resolve("a.jar");
+		Path b = dir.resolve("b.jar");
+		FileTime time = FileTime.fromMillis(1_600_000_000_000L);
+		Files.write(a, new byte[] { 1, 2, 3 });
+		Files.write(b, new byte[] { 4, 5 });
+		Files.setLastModifiedTime(a, time);
+		Files.setLastModifiedTime(b, time);
+
+		String key = ClassHierarchyIndex.computeKey(Arrays.asList(a, b));
+		Assertions.assertEquals(key, ClassHierarchyIndex.computeKey(Arrays.asList(a, b)));
+		Assertions.assertNotEquals(key, ClassHierarchyIndex.computeKey(Arrays.asList(b, a)));
+		Assertions.assertNotEquals(key, ClassHierarchyIndex.computeKey(Collections.singletonList(a)));
+
+		// Contents aren't read, so the same size and time count as unchanged
+		Files.write(a, new byte[] { 3, 2, 1 });
+		Files.setLastModifiedTime(a, time);
+		Assertions.assertEquals(key, ClassHierarchyIndex.computeKey(Arrays.asList(a, b)));
+
+		Files.setLastModifiedTime(a, FileTime.fromMillis(time.toMillis() + 1000));
+		Assertions.assertNotEquals(key, ClassHierarchyIndex.computeKey(Arrays.asList(a, b)));
+
+		Files.write(a, new byte[] { 1, 2, 3, 4 });
+		Files.setLastModifiedTime(a, time);
+		Assertions.assertNotEquals(key, ClassHierarchyIndex.computeKey(Arrays.asList(a, b)));
+	}
+}
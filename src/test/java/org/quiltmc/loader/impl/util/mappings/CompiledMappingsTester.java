@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util.mappings;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.fabricmc.mapping.tree.ClassDef;
+import net.fabricmc.mapping.tree.FieldDef;
+import net.fabricmc.mapping.tree.MethodDef;
+import net.fabricmc.mapping.tree.TinyMappingFactory;
+import net.fabricmc.mapping.tree.TinyTree;
+
+public class CompiledMappingsTester {
+
+	private static final String MAPPINGS = String.join("\n", //
+		"tiny\t2\t0\tofficial\tintermediary\tnamed", //
+		"c\ta\tnet/minecraft/class_1\tnet/minecraft/Thing", //
+		"\tf\tI\tb\tfield_1\tcount", //
+		"\tm\t(La;)V\tc\tmethod_1\tcopyFrom", //
+		"c\td\tnet/minecraft/class_2\tnet/minecraft/Other", //
+		"" //
+	);
+
+	@Test
+	public void testRoundTrip(@TempDir Path dir) throws IOException {
+		TinyTree parsed = TinyMappingFactory.loadWithDetection(new BufferedReader(new StringReader(MAPPINGS)));
+		Path file = dir.resolve("mappings" + CompiledMappings.FILE_EXTENSION);
+		CompiledMappings.write(parsed, file);
+
+		Assertions.assertTrue(Files.isRegularFile(file));
+
+		CompiledMappings compiled = CompiledMappings.open(file);
+		Assertions.assertEquals(parsed.getMetadata().getNamespaces(), compiled.getMetadata().getNamespaces());
+		Assertions.assertEquals(parsed.getClasses().size(), compiled.getClasses().size());
+
+		Iterator<ClassDef> expectedClasses = parsed.getClasses().iterator();
+
+		for (ClassDef actual : compiled.getClasses()) {
+			ClassDef expected = expectedClasses.next();
+
+			for (String namespace : parsed.getMetadata().getNamespaces()) {
+				Assertions.assertEquals(expected.getName(namespace), actual.getName(namespace));
+			}
+
+			Assertions.assertEquals(expected.getFields().size(), actual.getFields().size());
+			Assertions.assertEquals(expected.getMethods().size(), actual.getMethods().size());
+
+			Iterator<FieldDef> expectedFields = expected.getFields().iterator();
+			for (FieldDef field : actual.getFields()) {
+				FieldDef expectedField = expectedFields.next();
+				for (String namespace : parsed.getMetadata().getNamespaces()) {
+					Assertions.assertEquals(expectedField.getName(namespace), field.getName(namespace));
+					Assertions.assertEquals(expectedField.getDescriptor(namespace), field.getDescriptor(namespace));
+				}
+			}
+
+			Iterator<MethodDef> expectedMethods = expected.getMethods().iterator();
+			for (MethodDef method : actual.getMethods()) {
+				MethodDef expectedMethod = expectedMethods.next();
+				for (String namespace : parsed.getMetadata().getNamespaces()) {
+					Assertions.assertEquals(expectedMethod.getName(namespace), method.getName(namespace));
+					Assertions.assertEquals(expectedMethod.getDescriptor(namespace), method.getDescriptor(namespace));
+				}
+			}
+		}
+
+		Assertions.assertEquals("net/minecraft/Other", compiled.getDefaultNamespaceClassMap().get("d").getName("named"));
+	}
+
+	@Test
+	public void testRejectsOtherFiles(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("broken" + CompiledMappings.FILE_EXTENSION);
+		Files.write(file, MAPPINGS.getBytes());
+		Assertions.assertThrows(IOException.class, () -> CompiledMappings.open(file));
+	}
+}